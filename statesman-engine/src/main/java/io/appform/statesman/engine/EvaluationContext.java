@@ -0,0 +1,47 @@
+package io.appform.statesman.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Document that HopeLang rules are evaluated against: <code>{"data": ..., "update": ...}</code>.
+ * Workflow data and the incoming update are referenced, not copied. When the workflow data is replaced between hops
+ * the same context is rebound to the new node. Rules only read the document, so it is exposed as a plain
+ * {@link JsonNode}.
+ */
+public final class EvaluationContext {
+    private static final String DATA = "data";
+    private static final String UPDATE = "update";
+
+    private final ObjectNode node = JsonNodeFactory.instance.objectNode();
+
+    private EvaluationContext(JsonNode data, JsonNode update) {
+        node.set(DATA, data);
+        if (null != update) {
+            node.set(UPDATE, update);
+        }
+    }
+
+    public static EvaluationContext of(JsonNode data) {
+        return new EvaluationContext(data, null);
+    }
+
+    public static EvaluationContext of(JsonNode data, JsonNode update) {
+        return new EvaluationContext(data, update);
+    }
+
+    /**
+     * Points <code>/data</code> to the given node. Cheap enough to call before every evaluation round.
+     */
+    public EvaluationContext data(JsonNode data) {
+        if (node.get(DATA) != data) {
+            node.set(DATA, data);
+        }
+        return this;
+    }
+
+    public JsonNode node() {
+        return node;
+    }
+}
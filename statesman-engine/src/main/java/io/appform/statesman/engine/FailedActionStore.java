@@ -0,0 +1,32 @@
+package io.appform.statesman.engine;
+
+import io.appform.statesman.model.action.FailedAction;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Durable queue of failed action executions
+ */
+public interface FailedActionStore {
+
+    void save(FailedAction failedAction);
+
+    /**
+     * Pending actions whose next attempt is due at the given time, oldest first.
+     */
+    List<FailedAction> due(Date now, int limit);
+
+    /**
+     * Pushes the next attempt of a pending action out to <code>leaseUntil</code>, so that other pollers skip it while
+     * it is being retried.
+     *
+     * @return false if the action was already claimed or is no longer pending at the same attempt count
+     */
+    boolean claim(FailedAction failedAction, Date leaseUntil);
+
+    void update(FailedAction failedAction);
+
+    List<FailedAction> deadLetters(int limit);
+
+}
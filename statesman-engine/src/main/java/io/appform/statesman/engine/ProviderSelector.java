@@ -2,9 +2,14 @@ package io.appform.statesman.engine;
 
 import io.appform.statesman.model.Workflow;
 
-import java.util.Set;
+import java.util.Map;
 
 public interface ProviderSelector {
 
-    String provider(String useCase, Set<String> configuredProviders, Workflow workflow);
+    /**
+     * Picks one of the providers of a routed action.
+     *
+     * @param providerTemplates provider id to the action template used to call that provider
+     */
+    String provider(String useCase, Map<String, String> providerTemplates, Workflow workflow);
 }
@@ -1,21 +1,28 @@
 package io.appform.statesman.engine;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
-import io.appform.hope.core.Evaluatable;
 import io.appform.hope.core.exceptions.errorstrategy.InjectValueErrorHandlingStrategy;
 import io.appform.hope.lang.HopeLangEngine;
 import io.appform.statesman.engine.action.ActionExecutor;
+import io.appform.statesman.engine.graph.RuleResultMemo;
+import io.appform.statesman.engine.graph.TransitionGraph;
+import io.appform.statesman.engine.graph.TransitionGraph.CompiledTransition;
+import io.appform.statesman.engine.graph.TransitionGraphStore;
 import io.appform.statesman.engine.observer.ObservableEventBus;
 import io.appform.statesman.engine.observer.events.StateTransitionEvent;
 import io.appform.statesman.model.*;
 import io.appform.statesman.model.dataaction.DataAction;
 import io.appform.statesman.model.dataaction.impl.MergeDataAction;
+import io.appform.statesman.model.exception.ResponseCode;
+import io.appform.statesman.model.exception.StatesmanError;
+import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 
@@ -23,6 +30,7 @@ import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
@@ -30,125 +38,186 @@ import java.util.*;
 @Singleton
 @Slf4j
 public class StateTransitionEngine {
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
     private final Provider<WorkflowProvider> workflowProvider;
-    private final Provider<TransitionStore> transitionStore;
+    private final TransitionGraphStore transitionGraphStore;
     private final ObjectMapper mapper;
     private final DataActionExecutor dataActionExecutor;
     private final ObservableEventBus eventBus;
     private final Provider<ActionExecutor> actionExecutor;
+    private final Meter updateConflicts;
+    private final Meter updateRetries;
+    private final Meter updateConflictsExhausted;
+    private final Meter ruleEvaluations;
+    private final Meter ruleMemoHits;
+    private final Cache<String, RuleResultMemo> ruleMemos = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .build();
 
     private final HopeLangEngine hopeLangEngine = HopeLangEngine.builder()
             .errorHandlingStrategy(new InjectValueErrorHandlingStrategy())
             .build();
 
-    private final LoadingCache<String, Evaluatable> evalCache = Caffeine.newBuilder()
-            .maximumSize(100_000)
-            .build(hopeLangEngine::parse);
-
     @Inject
     public StateTransitionEngine(
             Provider<WorkflowProvider> workflowProvider,
-            Provider<TransitionStore> transitionStore,
+            TransitionGraphStore transitionGraphStore,
             ObjectMapper mapper,
             DataActionExecutor dataActionExecutor,
             ObservableEventBus eventBus,
-            Provider<ActionExecutor> actionExecutor) {
+            Provider<ActionExecutor> actionExecutor,
+            MetricRegistry metricRegistry) {
         this.workflowProvider = workflowProvider;
-        this.transitionStore = transitionStore;
+        this.transitionGraphStore = transitionGraphStore;
         this.mapper = mapper;
         this.dataActionExecutor = dataActionExecutor;
         this.eventBus = eventBus;
         this.actionExecutor = actionExecutor;
+        this.updateConflicts = metricRegistry.meter(MetricRegistry.name(StateTransitionEngine.class, "update", "conflicts"));
+        this.updateRetries = metricRegistry.meter(MetricRegistry.name(StateTransitionEngine.class, "update", "retries"));
+        this.updateConflictsExhausted = metricRegistry.meter(MetricRegistry.name(StateTransitionEngine.class, "update", "exhausted"));
+        this.ruleEvaluations = metricRegistry.meter(MetricRegistry.name(StateTransitionEngine.class, "rules", "evaluated"));
+        this.ruleMemoHits = metricRegistry.meter(MetricRegistry.name(StateTransitionEngine.class, "rules", "memoized"));
     }
 
     public AppliedTransitions handle(DataUpdate dataUpdate) {
         return handle(dataUpdate, null);
     }
 
+    /**
+     * Applies the update, replaying it on the latest stored copy if the workflow was modified concurrently.
+     * Actions are executed only once per call; a replay reuses the responses they returned on the first attempt.
+     */
     public AppliedTransitions handle(DataUpdate dataUpdate, DataAction defaultAction) {
-        val transitions = new ArrayList<AppliedTransition>();
-        AppliedTransition transition = null;
-        Set<String> evaluatedRuleSet = new HashSet<>();
-        do {
-            transition = handleSingleTransition(dataUpdate, evaluatedRuleSet, defaultAction).orElse(null);
-            if (null != transition) {
-                transitions.add(transition);
-                evaluatedRuleSet.add(transition.getTransitionId());
+        val workflowId = dataUpdate.getWorkflowId();
+        final Map<String, Optional<JsonNode>> actionResponses = new HashMap<>();
+        for (int attempt = 1; ; attempt++) {
+            val transitions = applyTransitions(dataUpdate, defaultAction, actionResponses);
+            if (transitions.isPresent()) {
+                log.debug("workflowId:{},transitions:{}", workflowId, transitions.get());
+                return new AppliedTransitions(workflowId, transitions.get());
             }
-        } while (null != transition);
-        log.debug("workflowId:{},transitions:{}", dataUpdate.getWorkflowId(), transitions);
-        return new AppliedTransitions(dataUpdate.getWorkflowId(), transitions);
+            updateConflicts.mark();
+            if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                updateConflictsExhausted.mark();
+                throw new StatesmanError("Workflow " + workflowId + " was concurrently modified. Gave up after "
+                                                 + attempt + " attempts",
+                                         ResponseCode.WORKFLOW_UPDATE_CONFLICT);
+            }
+            log.info("Workflow {} was concurrently modified. Replaying update. Attempt: {}", workflowId, attempt);
+            updateRetries.mark();
+        }
     }
 
-    private Optional<AppliedTransition> handleSingleTransition(
+    /**
+     * Applies the update on the latest stored copy of the workflow.
+     *
+     * @return the applied transitions, or empty if the workflow changed underneath us and nothing was written
+     */
+    private Optional<List<AppliedTransition>> applyTransitions(
             DataUpdate dataUpdate,
-            Set<String> alreadyVisited,
-            DataAction defaultAction) {
+            DataAction defaultAction,
+            Map<String, Optional<JsonNode>> actionResponses) {
         val workflowId = dataUpdate.getWorkflowId();
-        log.debug("Existing transitions for {}: {}", workflowId, alreadyVisited);
         val workflow = workflowProvider.get()
                 .getWorkflow(workflowId)
                 .orElse(null);
         Preconditions.checkNotNull(workflow);
-        final DataObject dataObject = workflow.getDataObject();
-        val currentState = dataObject.getCurrentState();
-        if (currentState.isTerminal()) {
+        val transitions = new ArrayList<AppliedTransition>();
+        if (workflow.getDataObject().getCurrentState().isTerminal()) {
             log.info("Workflow {} is already complete.", workflow.getId());
-            return Optional.empty();
+            return Optional.of(transitions);
         }
         val template = workflowProvider.get()
                 .getTemplate(workflow.getTemplateId())
                 .orElse(null);
         Preconditions.checkNotNull(template);
-        val transitions = transitionStore.get()
-                .getTransitionFor(template.getId(), currentState.getName());
-        Preconditions.checkNotNull(transitions);
-        val evalNode = mapper.createObjectNode();
-        evalNode.putObject("data").setAll((ObjectNode) dataObject.getData());
-        evalNode.putObject("update").setAll((ObjectNode) dataUpdate.getData());
-        val selectedTransition = transitions.stream()
-                .filter(stateTransition -> stateTransition.getType().equals(StateTransition.Type.EVALUATED))
-                .filter(StateTransition::isActive)
-                .filter(stateTransition -> !alreadyVisited.contains(stateTransition.getId()))
-                .filter(stateTransition -> hopeLangEngine.evaluate(evalCache.get(stateTransition.getRule()), evalNode))
-                .findFirst()
-                .orElse(defaultTransition(transitions, alreadyVisited));
-        if (null == selectedTransition) {
+        val graph = transitionGraphStore.get(template.getId());
+        val context = new TransitionContext(workflow,
+                                            template,
+                                            graph,
+                                            ruleMemos.asMap().compute(workflowId, (id, memo) ->
+                                                    null != memo && memo.isFor(graph) ? memo : new RuleResultMemo(graph)),
+                                            dataUpdate,
+                                            defaultAction,
+                                            EvaluationContext.of(workflow.getDataObject().getData(),
+                                                                 dataUpdate.getData()),
+                                            actionResponses);
+        AppliedTransition transition = null;
+        do {
+            transition = handleSingleTransition(context).orElse(null);
+            if (null != transition) {
+                transitions.add(transition);
+            }
+        } while (null != transition);
+        if (context.isDirty()) {
+            if (!workflowProvider.get().compareAndUpdateWorkflow(workflow)) {
+                return Optional.empty();
+            }
+            context.getEvents().forEach(eventBus::publish);
+        }
+        return Optional.of(transitions);
+    }
+
+    private Optional<AppliedTransition> handleSingleTransition(TransitionContext context) {
+        val workflow = context.getWorkflow();
+        val dataUpdate = context.getDataUpdate();
+        val alreadyVisited = context.getVisited();
+        val workflowId = workflow.getId();
+        log.debug("Existing transitions for {}: {}", workflowId, alreadyVisited);
+        final DataObject dataObject = workflow.getDataObject();
+        val currentState = dataObject.getCurrentState();
+        if (currentState.isTerminal()) {
+            log.info("Workflow {} is already complete.", workflowId);
+            return Optional.empty();
+        }
+        val template = context.getTemplate();
+        val node = context.getGraph().node(currentState.getName());
+        val evalNode = context.getEvaluationContext()
+                .data(dataObject.getData())
+                .node();
+        val selected = selectTransition(node, alreadyVisited, evalNode, context.getRuleMemo());
+        val defaultAction = context.getDefaultAction();
+        if (null == selected) {
             log.debug("No matching transition for: {} for update: {}", workflowId, dataUpdate);
             if (null != defaultAction) {
                 log.debug("Applying default action of type: {}", defaultAction.getType().name());
-                if(alreadyVisited == null || alreadyVisited.isEmpty()) {
+                if (alreadyVisited.isEmpty()) {
                     dataObject.setData(dataActionExecutor.apply(dataObject, dataUpdate));
-                    workflowProvider.get().updateWorkflow(workflow);
+                    context.setDirty(true);
                 }
             }
             return Optional.empty();
         }
-        if(alreadyVisited == null || alreadyVisited.isEmpty()) {
+        val selectedTransition = selected.getTransition();
+        val previousData = dataObject.getData();
+        if (alreadyVisited.isEmpty()) {
             dataObject.setData(dataActionExecutor.apply(dataObject, dataUpdate));
         }
+        alreadyVisited.set(selected.getIndex());
         dataObject.setCurrentState(selectedTransition.getToState());
-        val action = applyAction(workflow, dataObject, selectedTransition);
-        workflowProvider.get().updateWorkflow(workflow);
-        eventBus.publish(new StateTransitionEvent(template, workflow, dataUpdate, currentState, action));
+        val action = applyAction(workflow, dataObject, selected, context.getActionResponses());
+        context.setDirty(true);
+        context.getEvents().add(new StateTransitionEvent(template, snapshot(workflow), dataUpdate, currentState, action, previousData));
         return Optional.of(new AppliedTransition(currentState,
                                                  selectedTransition.getToState(),
                                                  selectedTransition.getId()));
     }
 
-    private String applyAction(Workflow workflow, DataObject dataObject, StateTransition selectedTransition) {
+    private String applyAction(
+            Workflow workflow,
+            DataObject dataObject,
+            CompiledTransition selected,
+            Map<String, Optional<JsonNode>> actionResponses) {
         String workflowId = workflow.getId();
-        val action = selectedTransition.getAction();
+        val action = selected.getTransition().getAction();
         if (!Strings.isNullOrEmpty(action)) {
-            JsonNode actionResponse = null;
-            try {
-                actionResponse = actionExecutor.get()
-                        .execute(action, workflow)
-                        .orElse(null);
-            }
-            catch (Exception e) {
-                log.error("Error executing action " + action + " for wfid: " + workflowId, e);
-            }
+            val actionResponse = actionResponses.computeIfAbsent(
+                    selected.getIndex() + ":" + action,
+                    key -> executeAction(action, workflow))
+                    .orElse(null);
             if (null == actionResponse || actionResponse.isNull() || actionResponse.isMissingNode() || !actionResponse.isObject()) {
                 log.warn("Empty/Non object action response for action {} for workflow {}",
                          action, workflowId);
@@ -163,14 +232,89 @@ public class StateTransitionEngine {
         return action;
     }
 
-    private StateTransition defaultTransition(
-            List<StateTransition> transitions,
-            Set<String> alreadyVisited) {
-        return transitions.stream()
-                .filter(stateTransition -> stateTransition.getType().equals(StateTransition.Type.DEFAULT))
-                .filter(StateTransition::isActive)
-                .filter(stateTransition -> !alreadyVisited.contains(stateTransition.getId()))
-                .findFirst()
-                .orElse(null);
+    private Optional<JsonNode> executeAction(String action, Workflow workflow) {
+        try {
+            val response = actionExecutor.get().execute(action, workflow);
+            return null == response ? Optional.empty() : response;
+        }
+        catch (Exception e) {
+            log.error("Error executing action " + action + " for wfid: " + workflow.getId(), e);
+            return Optional.empty();
+        }
+    }
+
+    private CompiledTransition selectTransition(
+            TransitionGraph.Node node,
+            BitSet alreadyVisited,
+            JsonNode evalNode,
+            RuleResultMemo ruleMemo) {
+        for (val transition : node.getEvaluated()) {
+            if (!alreadyVisited.get(transition.getIndex())
+                    && evaluate(transition, evalNode, ruleMemo)) {
+                return transition;
+            }
+        }
+        for (val transition : node.getDefaults()) {
+            if (!alreadyVisited.get(transition.getIndex())) {
+                return transition;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Evaluates the transition rule unless it was already evaluated for this workflow against the same inputs.
+     */
+    private boolean evaluate(CompiledTransition transition, JsonNode evalNode, RuleResultMemo ruleMemo) {
+        val inputs = RuleResultMemo.inputs(transition, evalNode);
+        if (null != inputs) {
+            val previous = ruleMemo.result(transition, inputs);
+            if (null != previous) {
+                ruleMemoHits.mark();
+                return previous;
+            }
+        }
+        ruleEvaluations.mark();
+        val result = hopeLangEngine.evaluate(transition.getRule(), evalNode);
+        if (null != inputs) {
+            ruleMemo.record(transition, inputs, result);
+        }
+        return result;
+    }
+
+    /**
+     * Copy of the workflow as it stands after a hop. Data nodes are replaced (never mutated) on every hop,
+     * so sharing them is enough to keep per hop events stable while the chain moves on.
+     */
+    private static Workflow snapshot(Workflow workflow) {
+        val dataObject = workflow.getDataObject();
+        return new Workflow(workflow.getId(),
+                            workflow.getTemplateId(),
+                            new DataObject(dataObject.getData(),
+                                           dataObject.getCurrentState(),
+                                           dataObject.getCreated(),
+                                           dataObject.getUpdated()),
+                            workflow.getCreated(),
+                            workflow.getUpdated(),
+                            workflow.getVersion());
+    }
+
+    /**
+     * State carried across the hops of a single {@link #handle(DataUpdate, DataAction)} call.
+     * The workflow is loaded once, all hops are applied in memory and the result is persisted in a single write.
+     */
+    @Data
+    private static final class TransitionContext {
+        private final Workflow workflow;
+        private final WorkflowTemplate template;
+        private final TransitionGraph graph;
+        private final RuleResultMemo ruleMemo;
+        private final DataUpdate dataUpdate;
+        private final DataAction defaultAction;
+        private final EvaluationContext evaluationContext;
+        private final Map<String, Optional<JsonNode>> actionResponses;
+        private final BitSet visited = new BitSet();
+        private final List<StateTransitionEvent> events = new ArrayList<>();
+        private boolean dirty;
     }
 }
@@ -0,0 +1,217 @@
+package io.appform.statesman.engine;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.appform.statesman.model.AppliedTransitions;
+import io.appform.statesman.model.DataUpdate;
+import io.appform.statesman.model.dataaction.DataAction;
+import io.appform.statesman.model.dataaction.DataActionType;
+import io.appform.statesman.model.dataaction.impl.MergeDataAction;
+import io.appform.statesman.model.exception.StatesmanError;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serializes {@link DataUpdate}s per workflow in front of the {@link StateTransitionEngine}.
+ * Updates are queued in a mailbox keyed by workflow id. Whichever caller finds the mailbox idle drains it, while the
+ * others wait for their result. Consecutive pending merge updates that touch disjoint top level fields are coalesced
+ * into a single engine pass, so a burst of callbacks for one workflow costs one read and one write. An update that
+ * overwrites a field of an earlier pending one starts a new pass, so rules that would have matched the intermediate
+ * value still see it. Mailboxes of different workflows never contend.
+ * Updates that nobody waits for, such as merges of async action responses, go in through {@link #enqueue(DataUpdate)}.
+ * They are drained on a separate executor; a caller draining its own update hands the mailbox over when it reaches
+ * one, so it doesn't pay for passes it didn't ask for.
+ */
+@Singleton
+@Slf4j
+public class WorkflowMailbox {
+    private final Provider<StateTransitionEngine> engine;
+    private final ObjectMapper mapper;
+    private final ExecutorService executorService;
+    private final ConcurrentHashMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final Histogram coalescedUpdates;
+
+    @Inject
+    public WorkflowMailbox(
+            Provider<StateTransitionEngine> engine,
+            ObjectMapper mapper,
+            MetricRegistry metricRegistry,
+            @Named("mailboxExecutor") ExecutorService executorService) {
+        this.engine = engine;
+        this.mapper = mapper;
+        this.executorService = executorService;
+        this.coalescedUpdates = metricRegistry.histogram(MetricRegistry.name(WorkflowMailbox.class, "coalesced"));
+        metricRegistry.register(MetricRegistry.name(WorkflowMailbox.class, "active"), (Gauge<Integer>) mailboxes::size);
+    }
+
+    public AppliedTransitions handle(DataUpdate dataUpdate) {
+        return handle(dataUpdate, null);
+    }
+
+    public AppliedTransitions handle(DataUpdate dataUpdate, DataAction defaultAction) {
+        val workflowId = dataUpdate.getWorkflowId();
+        val pending = new PendingUpdate(dataUpdate, defaultAction, false, new CompletableFuture<>());
+        drain(workflowId, offer(workflowId, pending), false);
+        try {
+            return pending.result.join();
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw StatesmanError.propagate(e.getCause());
+        }
+    }
+
+    /**
+     * Queues the update without waiting for it to be applied.
+     *
+     * @return completes with the transitions applied by the pass the update went through
+     */
+    public CompletableFuture<AppliedTransitions> enqueue(DataUpdate dataUpdate) {
+        val workflowId = dataUpdate.getWorkflowId();
+        val pending = new PendingUpdate(dataUpdate, null, true, new CompletableFuture<>());
+        schedule(workflowId, offer(workflowId, pending));
+        return pending.result;
+    }
+
+    private Mailbox offer(String workflowId, PendingUpdate pending) {
+        return mailboxes.compute(workflowId, (id, existing) -> {
+            val target = null == existing ? new Mailbox() : existing;
+            target.queue.add(pending);
+            return target;
+        });
+    }
+
+    //Falls back to draining on the caller when the executor is saturated, so that queued updates are never stranded
+    private void schedule(String workflowId, Mailbox mailbox) {
+        try {
+            executorService.execute(() -> drain(workflowId, mailbox, true));
+        }
+        catch (RejectedExecutionException e) {
+            log.warn("Mailbox executor saturated, draining workflow {} on the caller", workflowId);
+            drain(workflowId, mailbox, true);
+        }
+    }
+
+    private void drain(String workflowId, Mailbox mailbox, boolean background) {
+        while (!mailbox.queue.isEmpty() && mailbox.running.compareAndSet(false, true)) {
+            boolean handOver = false;
+            try {
+                PendingUpdate next;
+                while (null != (next = mailbox.queue.peek())) {
+                    if (next.background && !background) {
+                        handOver = true;
+                        break;
+                    }
+                    process(mailbox.queue.poll(), mailbox.queue);
+                }
+            }
+            finally {
+                mailbox.running.set(false);
+            }
+            if (handOver) {
+                schedule(workflowId, mailbox);
+                return;
+            }
+            mailboxes.computeIfPresent(workflowId,
+                                       (id, existing) -> existing == mailbox && mailbox.isIdle() ? null : existing);
+        }
+    }
+
+    private void process(PendingUpdate first, Queue<PendingUpdate> queue) {
+        val batch = new ArrayList<PendingUpdate>();
+        batch.add(first);
+        if (coalescable(first)) {
+            final Set<String> fields = new HashSet<>();
+            addFields(first, fields);
+            PendingUpdate candidate;
+            while (null != (candidate = queue.peek())
+                    && coalescable(candidate)
+                    && first.background == candidate.background
+                    && Objects.equals(first.defaultAction, candidate.defaultAction)
+                    && disjoint(candidate, fields)) {
+                addFields(candidate, fields);
+                batch.add(queue.poll());
+            }
+        }
+        coalescedUpdates.update(batch.size());
+        try {
+            val transitions = engine.get().handle(merge(batch), first.defaultAction);
+            batch.forEach(pending -> pending.result.complete(transitions));
+        }
+        catch (Throwable e) {
+            log.error("Error handling update for workflow " + first.dataUpdate.getWorkflowId(), e);
+            batch.forEach(pending -> pending.result.completeExceptionally(e));
+        }
+    }
+
+    private DataUpdate merge(List<PendingUpdate> batch) {
+        if (batch.size() == 1) {
+            return batch.get(0).dataUpdate;
+        }
+        val data = mapper.createObjectNode();
+        batch.forEach(pending -> data.setAll((ObjectNode) pending.dataUpdate.getData()));
+        return new DataUpdate(batch.get(0).dataUpdate.getWorkflowId(), data, new MergeDataAction());
+    }
+
+    private static boolean disjoint(PendingUpdate pending, Set<String> fields) {
+        val names = pending.dataUpdate.getData().fieldNames();
+        while (names.hasNext()) {
+            if (fields.contains(names.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void addFields(PendingUpdate pending, Set<String> fields) {
+        pending.dataUpdate.getData().fieldNames().forEachRemaining(fields::add);
+    }
+
+    private static boolean coalescable(PendingUpdate pending) {
+        val dataUpdate = pending.dataUpdate;
+        return dataUpdate.getDataAction().getType() == DataActionType.MERGE
+                && null != dataUpdate.getData()
+                && dataUpdate.getData().isObject();
+    }
+
+    @AllArgsConstructor
+    private static final class PendingUpdate {
+        private final DataUpdate dataUpdate;
+        private final DataAction defaultAction;
+        private final boolean background;
+        private final CompletableFuture<AppliedTransitions> result;
+    }
+
+    private static final class Mailbox {
+        private final Queue<PendingUpdate> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean running = new AtomicBoolean();
+
+        private boolean isIdle() {
+            return !running.get() && queue.isEmpty();
+        }
+    }
+}
@@ -27,6 +27,13 @@ public interface WorkflowProvider {
 
     void updateWorkflow(final Workflow workflow);
 
+    /**
+     * Updates the workflow only if the stored copy is still at {@link Workflow#getVersion()}.
+     *
+     * @return false if the workflow was modified since it was read
+     */
+    boolean compareAndUpdateWorkflow(final Workflow workflow);
+
     boolean workflowExists(final String workflowId);
 
 }
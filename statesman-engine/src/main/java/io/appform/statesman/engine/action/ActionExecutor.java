@@ -2,6 +2,7 @@ package io.appform.statesman.engine.action;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import io.appform.statesman.model.Workflow;
+import io.appform.statesman.model.action.template.ActionTemplate;
 
 import java.util.Optional;
 
@@ -10,4 +11,9 @@ import java.util.Optional;
  */
 public interface ActionExecutor {
     Optional<JsonNode> execute(String actionId, Workflow workflow);
+
+    /**
+     * Precompiles the rules and templates used by the action so that the first execution does not pay for it.
+     */
+    void warmup(ActionTemplate actionTemplate);
 }
@@ -6,12 +6,15 @@ import com.google.inject.Singleton;
 import io.appform.functionmetrics.MetricTerm;
 import io.appform.functionmetrics.MonitoredFunction;
 import io.appform.statesman.engine.ActionTemplateStore;
+import io.appform.statesman.model.Action;
 import io.appform.statesman.model.Workflow;
 import io.appform.statesman.model.action.template.ActionTemplate;
+import io.appform.statesman.model.exception.StatesmanError;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.inject.Provider;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Singleton
@@ -19,12 +22,18 @@ public class ActionExecutorImpl implements ActionExecutor {
 
     Provider<ActionRegistry> actionRegistry;
     Provider<ActionTemplateStore> actionTemplateStore;
+    Provider<ActionLimiter> actionLimiter;
+    Provider<ActionRetryQueue> retryQueue;
 
     @Inject
     public void ActionExecutor(final Provider<ActionRegistry> actionRegistry,
-                               final Provider<ActionTemplateStore> actionTemplateStore) {
+                               final Provider<ActionTemplateStore> actionTemplateStore,
+                               final Provider<ActionLimiter> actionLimiter,
+                               final Provider<ActionRetryQueue> retryQueue) {
         this.actionRegistry = actionRegistry;
         this.actionTemplateStore = actionTemplateStore;
+        this.actionLimiter = actionLimiter;
+        this.retryQueue = retryQueue;
     }
 
     @Override
@@ -36,9 +45,41 @@ public class ActionExecutorImpl implements ActionExecutor {
 
     @SuppressWarnings("unchecked")
     private JsonNode execute(Workflow workflow, ActionTemplate actionTemplate) {
-        return actionRegistry.get().get(actionTemplate.getType().name())
-                .map(action -> action.apply(actionTemplate, workflow))
-                .orElse(null);
+        final ActionLimiter.Permit permit;
+        try {
+            permit = actionLimiter.get().acquire(actionTemplate.getTemplateId(), actionTemplate.getLimit());
+        }
+        catch (StatesmanError e) {
+            log.warn("Deferring action {} for workflow {}: {}",
+                     actionTemplate.getTemplateId(), workflow.getId(), e.getMessage());
+            retryQueue.get().defer(actionTemplate, workflow.getId(), e);
+            return null;
+        }
+        final Action action = actionRegistry.get().get(actionTemplate.getType().name()).orElse(null);
+        if (!(action instanceof BaseAction)) {
+            try (ActionLimiter.Permit ignored = permit) {
+                return null == action ? null : action.apply(actionTemplate, workflow);
+            }
+        }
+        //Actions that run in the background complete after apply returns, the permit is held until they do
+        final CompletableFuture<JsonNode> execution;
+        try {
+            execution = ((BaseAction<ActionTemplate>) action).applyAsync(actionTemplate, workflow);
+        }
+        catch (RuntimeException e) {
+            permit.close();
+            throw e;
+        }
+        execution.whenComplete((response, error) -> permit.close());
+        return BaseAction.responseOf(execution);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void warmup(ActionTemplate actionTemplate) {
+        actionRegistry.get().get(actionTemplate.getType().name())
+                .filter(action -> action instanceof BaseAction)
+                .ifPresent(action -> ((BaseAction<ActionTemplate>) action).warmup(actionTemplate));
     }
 
 }
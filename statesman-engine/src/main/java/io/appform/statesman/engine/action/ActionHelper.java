@@ -1,34 +1,148 @@
 package io.appform.statesman.engine.action;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import io.appform.statesman.engine.ActionTemplateStore;
 import io.appform.statesman.model.Workflow;
-import lombok.RequiredArgsConstructor;
+import io.appform.statesman.model.exception.ResponseCode;
+import io.appform.statesman.model.exception.StatesmanError;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 
 import javax.inject.Provider;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @Singleton
-@RequiredArgsConstructor(onConstructor_ = @Inject)
 public class ActionHelper {
 
+    //Set on branch threads, so that nested parallel compounds don't wait on the pool they are running on
+    private static final ThreadLocal<Boolean> IN_BRANCH = ThreadLocal.withInitial(() -> false);
+
     private final ObjectMapper mapper;
     private final Provider<ActionExecutor> actionExecutor;
+    private final Provider<ActionTemplateStore> actionTemplateStore;
+    private final Provider<ActionRetryQueue> retryQueue;
+    private final ExecutorService branchExecutor;
+
+    @Inject
+    public ActionHelper(
+            ObjectMapper mapper,
+            Provider<ActionExecutor> actionExecutor,
+            Provider<ActionTemplateStore> actionTemplateStore,
+            Provider<ActionRetryQueue> retryQueue,
+            @Named("compoundActionExecutor") ExecutorService branchExecutor) {
+        this.mapper = mapper;
+        this.actionExecutor = actionExecutor;
+        this.actionTemplateStore = actionTemplateStore;
+        this.retryQueue = retryQueue;
+        this.branchExecutor = branchExecutor;
+    }
 
     public ObjectNode executeActions(List<String> actionTemplates, Workflow workflow) {
         val response = mapper.createObjectNode();
 
         actionTemplates
-                .forEach(actionId ->
-                        actionExecutor.get()
-                                .execute(actionId, workflow)
-                                .filter(jsonNode -> !jsonNode.isNull() && !jsonNode.isMissingNode())
-                                .ifPresent(jsonNode -> response.setAll((ObjectNode) jsonNode)));
+                .forEach(actionId -> merge(response, actionExecutor.get().execute(actionId, workflow)));
+        return response;
+    }
+
+    /**
+     * Runs the actions concurrently and merges their responses in declared order, same as
+     * {@link #executeActions(List, Workflow)}. A branch that has not completed within <code>branchTimeoutMs</code> of
+     * dispatch is cancelled and contributes nothing. A timeout of zero or less waits for all branches.
+     * Branches the pool rejects can't be run here without blowing the deadline, so they are handed to the
+     * {@link ActionRetryQueue} as deferred actions and contribute nothing here. Without a timeout they run on the
+     * caller once the rest are dispatched.
+     */
+    public ObjectNode executeActionsInParallel(List<String> actionTemplates, Workflow workflow, long branchTimeoutMs) {
+        if (actionTemplates.size() < 2 || IN_BRANCH.get()) {
+            return executeActions(actionTemplates, workflow);
+        }
+        val branches = new ArrayList<FutureTask<Optional<JsonNode>>>(actionTemplates.size());
+        val rejected = new ArrayList<FutureTask<Optional<JsonNode>>>();
+        for (String actionId : actionTemplates) {
+            val branch = new FutureTask<>(() -> executeBranch(actionId, workflow));
+            try {
+                branchExecutor.execute(branch);
+            }
+            catch (RejectedExecutionException e) {
+                if (branchTimeoutMs > 0) {
+                    defer(actionId, workflow);
+                    branch.cancel(false);
+                }
+                else {
+                    rejected.add(branch);
+                }
+            }
+            branches.add(branch);
+        }
+        rejected.forEach(FutureTask::run);
+        val deadline = System.currentTimeMillis() + branchTimeoutMs;
+        val response = mapper.createObjectNode();
+        for (int i = 0; i < branches.size(); i++) {
+            val actionId = actionTemplates.get(i);
+            val branch = branches.get(i);
+            try {
+                merge(response, branchTimeoutMs > 0
+                                ? branch.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)
+                                : branch.get());
+            }
+            catch (CancellationException e) {
+                log.debug("Action {} for workflow {} was deferred", actionId, workflow.getId());
+            }
+            catch (TimeoutException e) {
+                branch.cancel(true);
+                log.warn("Action {} for workflow {} timed out after {} ms", actionId, workflow.getId(), branchTimeoutMs);
+            }
+            catch (ExecutionException e) {
+                log.error("Error executing action " + actionId + " for workflow " + workflow.getId(), e.getCause());
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                branches.forEach(pending -> pending.cancel(true));
+                log.warn("Interrupted while waiting for actions of workflow {}", workflow.getId());
+                break;
+            }
+        }
         return response;
     }
+
+    private void defer(String actionId, Workflow workflow) {
+        log.warn("Compound action pool saturated, deferring action {} for workflow {}", actionId, workflow.getId());
+        actionTemplateStore.get().get(actionId)
+                .ifPresent(actionTemplate -> retryQueue.get().defer(
+                        actionTemplate,
+                        workflow.getId(),
+                        new StatesmanError("Compound action pool saturated", ResponseCode.ACTION_THROTTLED)));
+    }
+
+    private Optional<JsonNode> executeBranch(String actionId, Workflow workflow) {
+        IN_BRANCH.set(true);
+        try {
+            return actionExecutor.get().execute(actionId, workflow);
+        }
+        finally {
+            IN_BRANCH.set(false);
+        }
+    }
+
+    private static void merge(ObjectNode response, Optional<JsonNode> actionResponse) {
+        actionResponse
+                .filter(jsonNode -> !jsonNode.isNull() && !jsonNode.isMissingNode())
+                .ifPresent(jsonNode -> response.setAll((ObjectNode) jsonNode));
+    }
 }
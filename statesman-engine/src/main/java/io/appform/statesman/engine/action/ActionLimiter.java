@@ -0,0 +1,196 @@
+package io.appform.statesman.engine.action;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.RateLimiter;
+import io.appform.statesman.model.action.ActionLimit;
+import io.appform.statesman.model.exception.ResponseCode;
+import io.appform.statesman.model.exception.StatesmanError;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Token bucket rate limits and concurrency bulkheads for action templates and providers.
+ * Template limits come from {@link io.appform.statesman.model.action.template.ActionTemplate#getLimit()} and are
+ * rebuilt when the template's limit changes; provider limits come from the app config. A caller that does not get a
+ * permit within the configured wait gets a {@link ResponseCode#ACTION_THROTTLED} error, which the callers turn into a
+ * deferred retry. Providers that are out of permits, or have turned callers away recently, are reported as saturated
+ * so that provider selection can route around them.
+ */
+@Slf4j
+@Singleton
+public class ActionLimiter {
+    private static final long SATURATION_WINDOW_MS = 1_000;
+    private static final String TEMPLATE_PREFIX = "template.";
+    private static final String PROVIDER_PREFIX = "provider.";
+
+    private final Map<String, ActionLimit> providerLimits;
+    private final MetricRegistry metricRegistry;
+    private final ConcurrentHashMap<String, Limiter> limiters = new ConcurrentHashMap<>();
+
+    @Inject
+    public ActionLimiter(
+            @Named("providerLimits") Map<String, ActionLimit> providerLimits,
+            MetricRegistry metricRegistry) {
+        this.providerLimits = providerLimits;
+        this.metricRegistry = metricRegistry;
+    }
+
+    /**
+     * Waits for a permit to run the given template. The permit must be closed once the execution completes.
+     */
+    public Permit acquire(String templateId, ActionLimit limit) {
+        if (null == limit) {
+            return Permit.NONE;
+        }
+        return limiter(TEMPLATE_PREFIX + templateId, limit).acquire();
+    }
+
+    /**
+     * Waits for a permit to call the given provider. The permit must be closed once the call completes.
+     */
+    public Permit acquireProvider(String providerId) {
+        val limit = providerLimits.get(providerId);
+        if (null == limit) {
+            return Permit.NONE;
+        }
+        return limiter(PROVIDER_PREFIX + providerId, limit).acquire();
+    }
+
+    public boolean isProviderSaturated(String providerId) {
+        val limiter = limiters.get(PROVIDER_PREFIX + providerId);
+        return null != limiter && limiter.saturated();
+    }
+
+    public static boolean isThrottled(Throwable error) {
+        return error instanceof StatesmanError
+                && ((StatesmanError) error).getResponseCode() == ResponseCode.ACTION_THROTTLED;
+    }
+
+    private Limiter limiter(String key, ActionLimit limit) {
+        val existing = limiters.get(key);
+        if (null != existing && existing.limit.equals(limit)) {
+            return existing;
+        }
+        return limiters.compute(key, (name, current) -> {
+            if (null != current && current.limit.equals(limit)) {
+                return current;
+            }
+            if (null != current) {
+                log.info("Limit for {} changed from {} to {}", name, current.limit, limit);
+            }
+            return newLimiter(name, limit);
+        });
+    }
+
+    private Limiter newLimiter(String key, ActionLimit limit) {
+        val limiter = new Limiter(key,
+                                  limit,
+                                  metricRegistry.meter(MetricRegistry.name(ActionLimiter.class, key, "rejected")));
+        metricRegistry.removeMatching((name, metric) -> name.startsWith(MetricRegistry.name(ActionLimiter.class, key) + ".")
+                && !name.endsWith(".rejected"));
+        metricRegistry.register(MetricRegistry.name(ActionLimiter.class, key, "waiting"),
+                                (Gauge<Integer>) limiter.waiting::get);
+        metricRegistry.register(MetricRegistry.name(ActionLimiter.class, key, "inFlight"),
+                                (Gauge<Integer>) limiter::inFlight);
+        metricRegistry.register(MetricRegistry.name(ActionLimiter.class, key, "saturated"),
+                                (Gauge<Integer>) () -> limiter.saturated() ? 1 : 0);
+        return limiter;
+    }
+
+    /**
+     * Held for the duration of a limited call.
+     */
+    public interface Permit extends AutoCloseable {
+        Permit NONE = () -> {};
+
+        @Override
+        void close();
+    }
+
+    private static final class Limiter {
+        private final String key;
+        private final ActionLimit limit;
+        private final RateLimiter rateLimiter;
+        private final Semaphore semaphore;
+        private final Meter rejected;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private volatile long lastRejectedAt;
+
+        private Limiter(String key, ActionLimit limit, Meter rejected) {
+            this.key = key;
+            this.limit = limit;
+            this.rateLimiter = limit.getPermitsPerSecond() > 0
+                               ? RateLimiter.create(limit.getPermitsPerSecond())
+                               : null;
+            this.semaphore = limit.getMaxConcurrent() > 0
+                             ? new Semaphore(limit.getMaxConcurrent())
+                             : null;
+            this.rejected = rejected;
+        }
+
+        Permit acquire() {
+            if (null == rateLimiter && null == semaphore) {
+                return Permit.NONE;
+            }
+            if (waiting.incrementAndGet() > limit.getMaxQueued() + 1) {
+                waiting.decrementAndGet();
+                throw reject("too many callers waiting");
+            }
+            val deadline = System.currentTimeMillis() + limit.getMaxWaitMs();
+            try {
+                if (null != semaphore && !semaphore.tryAcquire(limit.getMaxWaitMs(), TimeUnit.MILLISECONDS)) {
+                    throw reject("no free slot");
+                }
+                if (null != rateLimiter
+                        && !rateLimiter.tryAcquire(1, Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) {
+                    release();
+                    throw reject("rate exceeded");
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject("interrupted");
+            }
+            finally {
+                waiting.decrementAndGet();
+            }
+            return null == semaphore
+                   ? Permit.NONE
+                   : this::release;
+        }
+
+        int inFlight() {
+            return null == semaphore
+                   ? 0
+                   : limit.getMaxConcurrent() - semaphore.availablePermits();
+        }
+
+        boolean saturated() {
+            return (null != semaphore && semaphore.availablePermits() == 0)
+                    || System.currentTimeMillis() - lastRejectedAt < SATURATION_WINDOW_MS;
+        }
+
+        private void release() {
+            if (null != semaphore) {
+                semaphore.release();
+            }
+        }
+
+        private StatesmanError reject(String reason) {
+            lastRejectedAt = System.currentTimeMillis();
+            rejected.mark();
+            return new StatesmanError("Limit reached for " + key + ": " + reason, ResponseCode.ACTION_THROTTLED);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package io.appform.statesman.engine.action;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.appform.statesman.engine.ActionTemplateStore;
+import io.appform.statesman.engine.FailedActionStore;
+import io.appform.statesman.engine.WorkflowMailbox;
+import io.appform.statesman.engine.WorkflowProvider;
+import io.appform.statesman.model.DataUpdate;
+import io.appform.statesman.model.Workflow;
+import io.appform.statesman.model.action.ActionRetryPolicy;
+import io.appform.statesman.model.action.FailedAction;
+import io.appform.statesman.model.action.FailedActionStatus;
+import io.appform.statesman.model.action.template.ActionTemplate;
+import io.appform.statesman.model.dataaction.impl.MergeDataAction;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retries failed actions from the {@link FailedActionStore}.
+ * A failed execution is recorded instead of being retried on the calling thread. {@link #retryDue(int)} is polled by
+ * a scheduler and re-runs the actions whose backoff has elapsed against the latest copy of the workflow. Retries of
+ * actions that run in the background are settled once they complete. A successful response is merged into the
+ * workflow as a follow-up data update. Actions that run out of attempts, as per the template's
+ * {@link ActionRetryPolicy}, are parked in the dead letter set until they are replayed.
+ */
+@Slf4j
+@Singleton
+public class ActionRetryQueue {
+    private static final ActionRetryPolicy DEFAULT_POLICY = new ActionRetryPolicy();
+    private static final long CLAIM_LEASE_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private final Provider<FailedActionStore> failedActionStore;
+    private final Provider<WorkflowProvider> workflowProvider;
+    private final Provider<ActionTemplateStore> actionTemplateStore;
+    private final Provider<ActionRegistry> actionRegistry;
+    private final Provider<WorkflowMailbox> workflowMailbox;
+    private final Provider<ActionLimiter> actionLimiter;
+    private final Meter recorded;
+    private final Meter deferred;
+    private final Meter succeeded;
+    private final Meter failed;
+    private final Meter deadLettered;
+
+    @Inject
+    public ActionRetryQueue(
+            Provider<FailedActionStore> failedActionStore,
+            Provider<WorkflowProvider> workflowProvider,
+            Provider<ActionTemplateStore> actionTemplateStore,
+            Provider<ActionRegistry> actionRegistry,
+            Provider<WorkflowMailbox> workflowMailbox,
+            Provider<ActionLimiter> actionLimiter,
+            MetricRegistry metricRegistry) {
+        this.failedActionStore = failedActionStore;
+        this.workflowProvider = workflowProvider;
+        this.actionTemplateStore = actionTemplateStore;
+        this.actionRegistry = actionRegistry;
+        this.workflowMailbox = workflowMailbox;
+        this.actionLimiter = actionLimiter;
+        this.recorded = metricRegistry.meter(MetricRegistry.name(ActionRetryQueue.class, "recorded"));
+        this.deferred = metricRegistry.meter(MetricRegistry.name(ActionRetryQueue.class, "deferred"));
+        this.succeeded = metricRegistry.meter(MetricRegistry.name(ActionRetryQueue.class, "succeeded"));
+        this.failed = metricRegistry.meter(MetricRegistry.name(ActionRetryQueue.class, "failed"));
+        this.deadLettered = metricRegistry.meter(MetricRegistry.name(ActionRetryQueue.class, "deadLettered"));
+    }
+
+    /**
+     * Records the first failed execution of an action.
+     */
+    public void record(ActionTemplate actionTemplate, String workflowId, Throwable error) {
+        val failedAction = newFailedAction(actionTemplate, workflowId, 1);
+        applyFailure(failedAction, policy(actionTemplate), error, System.currentTimeMillis());
+        save(failedAction, recorded);
+    }
+
+    /**
+     * Queues an action that was not executed at all, e.g. because it was throttled. Deferrals don't count as attempts,
+     * so the action still gets every attempt its policy allows.
+     */
+    public void defer(ActionTemplate actionTemplate, String workflowId, Throwable reason) {
+        val failedAction = newFailedAction(actionTemplate, workflowId, 0);
+        failedAction.setStatus(FailedActionStatus.PENDING);
+        failedAction.setLastError(errorMessage(reason));
+        failedAction.setNextAttemptAt(new Date(System.currentTimeMillis() + policy(actionTemplate).delayAfterAttempt(1)));
+        save(failedAction, deferred);
+    }
+
+    /**
+     * Retries pending actions whose next attempt is due.
+     *
+     * @return number of actions retried
+     */
+    public int retryDue(int limit) {
+        val now = new Date();
+        int retried = 0;
+        for (FailedAction failedAction : failedActionStore.get().due(now, limit)) {
+            if (!failedActionStore.get().claim(failedAction, new Date(now.getTime() + CLAIM_LEASE_MS))) {
+                continue;
+            }
+            retry(failedAction);
+            retried++;
+        }
+        return retried;
+    }
+
+    /**
+     * Moves dead lettered actions back to the pending set with a fresh set of attempts.
+     *
+     * @return the actions that were requeued
+     */
+    public int replayDeadLetters(int limit) {
+        val now = new Date();
+        int replayed = 0;
+        for (FailedAction failedAction : failedActionStore.get().deadLetters(limit)) {
+            failedAction.setStatus(FailedActionStatus.PENDING);
+            failedAction.setAttempts(0);
+            failedAction.setNextAttemptAt(now);
+            failedActionStore.get().update(failedAction);
+            replayed++;
+        }
+        log.info("Requeued {} dead lettered actions", replayed);
+        return replayed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void retry(FailedAction failedAction) {
+        val workflowId = failedAction.getWorkflowId();
+        val templateId = failedAction.getActionTemplateId();
+        final Optional<ActionTemplate> actionTemplate = actionTemplateStore.get().get(templateId);
+        final Optional<Workflow> workflow = workflowProvider.get().getWorkflow(workflowId);
+        if (!actionTemplate.isPresent() || !workflow.isPresent()) {
+            log.warn("Dropping retry of action {} for workflow {} as the template or workflow is missing",
+                     templateId, workflowId);
+            failedAction.setStatus(FailedActionStatus.DEAD_LETTER);
+            failedAction.setLastError("Missing action template or workflow");
+            failedActionStore.get().update(failedAction);
+            deadLettered.mark();
+            return;
+        }
+        val template = actionTemplate.get();
+        failedAction.setAttempts(failedAction.getAttempts() + 1);
+        final CompletableFuture<JsonNode> response;
+        try {
+            final BaseAction<ActionTemplate> action = (BaseAction<ActionTemplate>) actionRegistry.get()
+                    .get(template.getType().name())
+                    .filter(registered -> registered instanceof BaseAction)
+                    .orElseThrow(() -> new IllegalStateException("No action registered for " + template.getType()));
+            val permit = actionLimiter.get().acquire(templateId, template.getLimit());
+            try {
+                response = action.attempt(template, workflow.get());
+            }
+            catch (RuntimeException e) {
+                permit.close();
+                throw e;
+            }
+            response.whenComplete((result, error) -> permit.close());
+        }
+        catch (Exception e) {
+            settle(failedAction, template, null, e);
+            return;
+        }
+        //Async actions settle once their call completes, within the claim lease
+        response.whenComplete((result, error) -> settle(failedAction, template, result, error));
+    }
+
+    private void settle(FailedAction failedAction, ActionTemplate template, JsonNode response, Throwable error) {
+        val workflowId = failedAction.getWorkflowId();
+        val templateId = failedAction.getActionTemplateId();
+        try {
+            val cause = error instanceof CompletionException && null != error.getCause()
+                        ? error.getCause()
+                        : error;
+            if (null == cause) {
+                merge(workflowId, response);
+                failedAction.setStatus(FailedActionStatus.SUCCEEDED);
+                failedAction.setLastError(null);
+                succeeded.mark();
+                log.info("Retry {} of action {} for workflow {} succeeded",
+                         failedAction.getAttempts(), templateId, workflowId);
+            }
+            else if (ActionLimiter.isThrottled(cause) || CircuitBreakers.isCircuitOpen(cause)) {
+                //Throttled or short circuited retries don't count against the policy
+                log.debug("Retry of action {} for workflow {} deferred: {}", templateId, workflowId, cause.getMessage());
+                failedAction.setAttempts(failedAction.getAttempts() - 1);
+                failedAction.setNextAttemptAt(new Date(System.currentTimeMillis()
+                                                               + policy(template).delayAfterAttempt(1)));
+            }
+            else {
+                log.error("Retry " + failedAction.getAttempts() + " of action " + templateId
+                                  + " for workflow " + workflowId + " failed", cause);
+                applyFailure(failedAction, policy(template), cause, System.currentTimeMillis());
+            }
+            failedActionStore.get().update(failedAction);
+        }
+        catch (Exception e) {
+            log.error("Could not update retry of action " + templateId + " for workflow " + workflowId
+                              + ". It will be picked up again once its claim expires", e);
+        }
+    }
+
+    private static FailedAction newFailedAction(ActionTemplate actionTemplate, String workflowId, int attempts) {
+        return FailedAction.builder()
+                .id(UUID.randomUUID().toString())
+                .workflowId(workflowId)
+                .actionTemplateId(actionTemplate.getTemplateId())
+                .attempts(attempts)
+                .build();
+    }
+
+    private void save(FailedAction failedAction, Meter meter) {
+        try {
+            failedActionStore.get().save(failedAction);
+            meter.mark();
+        }
+        catch (Exception e) {
+            log.error("Could not record failed action " + failedAction.getActionTemplateId()
+                              + " for workflow " + failedAction.getWorkflowId() + ". It will not be retried", e);
+        }
+    }
+
+    private void applyFailure(FailedAction failedAction, ActionRetryPolicy policy, Throwable error, long now) {
+        failedAction.setLastError(errorMessage(error));
+        if (failedAction.getAttempts() >= policy.getMaxAttempts()) {
+            failedAction.setStatus(FailedActionStatus.DEAD_LETTER);
+            deadLettered.mark();
+            return;
+        }
+        failedAction.setStatus(FailedActionStatus.PENDING);
+        failedAction.setNextAttemptAt(new Date(now + policy.delayAfterAttempt(failedAction.getAttempts())));
+        failed.mark();
+    }
+
+    private void merge(String workflowId, JsonNode response) {
+        if (null == response || !response.isObject() || response.size() == 0) {
+            return;
+        }
+        workflowMailbox.get()
+                .enqueue(new DataUpdate(workflowId, response, new MergeDataAction()))
+                .whenComplete((transitions, error) -> {
+                    if (null != error) {
+                        log.error("Error merging retried action response into workflow " + workflowId, error);
+                    }
+                });
+    }
+
+    private static ActionRetryPolicy policy(ActionTemplate actionTemplate) {
+        return null == actionTemplate.getRetryPolicy()
+               ? DEFAULT_POLICY
+               : actionTemplate.getRetryPolicy();
+    }
+
+    private static String errorMessage(Throwable error) {
+        val message = null == error
+                      ? "unknown"
+                      : error.getClass().getSimpleName() + ": " + error.getMessage();
+        return message.length() > MAX_ERROR_LENGTH
+               ? message.substring(0, MAX_ERROR_LENGTH)
+               : message;
+    }
+}
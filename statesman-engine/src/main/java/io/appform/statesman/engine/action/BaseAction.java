@@ -3,25 +3,23 @@ package io.appform.statesman.engine.action;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.NullNode;
-import com.github.rholder.retry.Retryer;
-import com.github.rholder.retry.RetryerBuilder;
-import com.github.rholder.retry.StopStrategies;
-import com.github.rholder.retry.WaitStrategies;
-import io.appform.eventingester.client.EventPublisher;
 import io.appform.eventingester.models.Event;
 import io.appform.statesman.engine.Constants;
 import io.appform.statesman.engine.events.ActionExecutedEvent;
 import io.appform.statesman.engine.events.EngineEventType;
+import io.appform.statesman.engine.events.SpoolingEventPublisher;
 import io.appform.statesman.model.Action;
 import io.appform.statesman.model.Workflow;
 import io.appform.statesman.model.action.template.ActionTemplate;
-import io.appform.statesman.model.exception.StatesmanError;
 import lombok.extern.slf4j.Slf4j;
+import lombok.val;
 
+import javax.inject.Provider;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 
 @Slf4j
@@ -29,47 +27,132 @@ public abstract class BaseAction<T extends ActionTemplate> implements Action<T>
 
     private static final String FAILED = "FAILED";
     private static final String SUCCESS = "SUCCESS";
-    private final EventPublisher publisher;
+    private final SpoolingEventPublisher publisher;
     protected final ObjectMapper mapper;
-    private final Retryer<JsonNode> retryer;
+    protected final Provider<ActionRetryQueue> retryQueue;
 
-    protected BaseAction(EventPublisher publisher, ObjectMapper mapper) {
+    protected BaseAction(SpoolingEventPublisher publisher, ObjectMapper mapper, Provider<ActionRetryQueue> retryQueue) {
         this.publisher = publisher;
         this.mapper = mapper;
-        retryer = RetryerBuilder.<JsonNode>newBuilder()
-                .retryIfException()
-                .withWaitStrategy(WaitStrategies.exponentialWait(100, 5, TimeUnit.SECONDS))
-                .withStopStrategy(StopStrategies.stopAfterAttempt(5))
-                .build();
+        this.retryQueue = retryQueue;
     }
 
     protected abstract JsonNode execute(T actionTemplate, Workflow workflow);
 
+    /**
+     * Precompile whatever the action would otherwise compile on first execution. No-op by default.
+     */
+    public void warmup(T actionTemplate) {
+    }
+
+    /**
+     * Executes the action once. A failure is handed over to the {@link ActionRetryQueue} to be retried later, instead
+     * of holding up the caller. Actions that run in the background return a null node right away.
+     */
     @Override
     public JsonNode apply(T actionTemplate, Workflow workflow) {
-        String status = SUCCESS;
-        JsonNode response = null;
+        return responseOf(applyAsync(actionTemplate, workflow));
+    }
+
+    /**
+     * Same as {@link #apply(ActionTemplate, Workflow)}, but completes once the action does, which for actions that run
+     * in the background is after this returns. The execution is reported, and a failure recorded for retry, only then.
+     * An action turned away by the {@link ActionLimiter} is deferred instead, so that it doesn't use up an attempt.
+     * Never completes exceptionally.
+     */
+    public CompletableFuture<JsonNode> applyAsync(T actionTemplate, Workflow workflow) {
+        CompletableFuture<JsonNode> execution;
         try {
-            response = retryer.call(() -> execute(actionTemplate, workflow));
-        } catch (Exception e) {
-            status = FAILED;
-            log.error("Error while executing action", e);
+            execution = start(actionTemplate, workflow);
+        }
+        catch (Exception e) {
+            execution = CompletableFuture.failedFuture(e);
         }
-        publish(actionExecutedEvent(actionTemplate, workflow, status));
-        return null == response
-                ? NullNode.getInstance()
-                : response;
+        return execution.handle((response, error) -> {
+            if (null != error) {
+                val cause = unwrap(error);
+                if (ActionLimiter.isThrottled(cause)) {
+                    log.warn("Deferring action {} for workflow {}: {}",
+                             actionTemplate.getTemplateId(), workflow.getId(), cause.getMessage());
+                    retryQueue.get().defer(actionTemplate, workflow.getId(), cause);
+                }
+                else {
+                    log.error("Error while executing action", cause);
+                    retryQueue.get().record(actionTemplate, workflow.getId(), cause);
+                }
+                publish(actionExecutedEvent(actionTemplate, workflow, FAILED));
+                return NullNode.getInstance();
+            }
+            publish(actionExecutedEvent(actionTemplate, workflow, SUCCESS));
+            return null == response
+                   ? NullNode.getInstance()
+                   : response;
+        });
     }
 
+    /**
+     * Executes the action once on behalf of the {@link ActionRetryQueue}. Unlike {@link #apply(ActionTemplate, Workflow)}
+     * failures are handed back to the caller instead of being recorded again.
+     *
+     * @return completes once the action does, which for actions that run in the background is after this returns
+     */
+    public CompletableFuture<JsonNode> attempt(T actionTemplate, Workflow workflow) {
+        return executeAsync(actionTemplate, workflow)
+                .handle((response, error) -> {
+                    publish(actionExecutedEvent(actionTemplate, workflow, null == error ? SUCCESS : FAILED));
+                    if (null != error) {
+                        throw error instanceof CompletionException
+                              ? (CompletionException) error
+                              : new CompletionException(error);
+                    }
+                    return null == response
+                           ? NullNode.getInstance()
+                           : response;
+                });
+    }
 
-    private void publish(final List<Event> eventList) {
+    /**
+     * Completes when the action does. Runs {@link #execute(ActionTemplate, Workflow)} on the caller by default; actions
+     * that hand their work off to the background override this so that retries are not settled early.
+     */
+    protected CompletableFuture<JsonNode> executeAsync(T actionTemplate, Workflow workflow) {
         try {
-            if (null != eventList && !eventList.isEmpty()) {
-                this.publisher.publish(eventList);
-            }
-        } catch (final Exception e) {
-            log.error("Unable to send event", e);
-            throw StatesmanError.propagate(e);
+            return CompletableFuture.completedFuture(execute(actionTemplate, workflow));
+        }
+        catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Starts the action for {@link #applyAsync(ActionTemplate, Workflow)}. Same as
+     * {@link #executeAsync(ActionTemplate, Workflow)} by default; actions that run in the background override this to
+     * return as soon as the work is handed off, completing once it is done.
+     */
+    protected CompletableFuture<JsonNode> start(T actionTemplate, Workflow workflow) {
+        return executeAsync(actionTemplate, workflow);
+    }
+
+    /**
+     * Response of an {@link #applyAsync(ActionTemplate, Workflow)} execution as returned by
+     * {@link #apply(ActionTemplate, Workflow)}: a null node while it is still running in the background.
+     */
+    static JsonNode responseOf(CompletableFuture<JsonNode> execution) {
+        return execution.isDone()
+               ? execution.join()
+               : NullNode.getInstance();
+    }
+
+    protected static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && null != error.getCause()
+               ? error.getCause()
+               : error;
+    }
+
+
+    private void publish(final List<Event> eventList) {
+        if (null != publisher) {
+            publisher.publish(eventList);
         }
     }
 
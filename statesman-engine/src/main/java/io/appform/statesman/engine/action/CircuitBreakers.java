@@ -0,0 +1,233 @@
+package io.appform.statesman.engine.action;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Strings;
+import io.appform.statesman.model.action.CircuitBreakerConfig;
+import io.appform.statesman.model.exception.ResponseCode;
+import io.appform.statesman.model.exception.StatesmanError;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Circuit breakers for outbound calls, one per action template and one per target host.
+ * A call has to get through both breakers; its outcome is recorded against both. Template breakers use the template's
+ * {@link CircuitBreakerConfig} if it has one, host breakers always use the app wide defaults. State of every breaker
+ * is exported as a gauge (0 closed, 1 half open, 2 open).
+ */
+@Slf4j
+@Singleton
+public class CircuitBreakers {
+    private static final String TEMPLATE_PREFIX = "template.";
+    private static final String HOST_PREFIX = "host.";
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final CircuitBreakerConfig defaults;
+    private final MetricRegistry metricRegistry;
+    private final ConcurrentHashMap<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+    @Inject
+    public CircuitBreakers(
+            @Named("circuitBreakerDefaults") CircuitBreakerConfig defaults,
+            MetricRegistry metricRegistry) {
+        this.defaults = defaults;
+        this.metricRegistry = metricRegistry;
+    }
+
+    /**
+     * Lets a call through, or fails fast with {@link ResponseCode#CIRCUIT_OPEN}. Every call let through must be
+     * followed by {@link #record(String, CircuitBreakerConfig, String, boolean)}.
+     */
+    public void acquire(String templateId, CircuitBreakerConfig templateConfig, String host) {
+        val hostBreaker = hostBreaker(host);
+        if (null != hostBreaker && !hostBreaker.tryAcquire()) {
+            throw open(HOST_PREFIX + host);
+        }
+        val templateBreaker = templateBreaker(templateId, templateConfig);
+        if (null != templateBreaker && !templateBreaker.tryAcquire()) {
+            if (null != hostBreaker) {
+                hostBreaker.release();
+            }
+            throw open(TEMPLATE_PREFIX + templateId);
+        }
+    }
+
+    public void record(String templateId, CircuitBreakerConfig templateConfig, String host, boolean success) {
+        val hostBreaker = hostBreaker(host);
+        if (null != hostBreaker) {
+            hostBreaker.record(success);
+        }
+        val templateBreaker = templateBreaker(templateId, templateConfig);
+        if (null != templateBreaker) {
+            templateBreaker.record(success);
+        }
+    }
+
+    /**
+     * True if the template's breaker is open and not yet due for a trial call.
+     */
+    public boolean isOpen(String templateId) {
+        val breaker = null == templateId ? null : breakers.get(TEMPLATE_PREFIX + templateId);
+        return null != breaker && breaker.rejecting();
+    }
+
+    public static boolean isCircuitOpen(Throwable error) {
+        return error instanceof StatesmanError
+                && ((StatesmanError) error).getResponseCode() == ResponseCode.CIRCUIT_OPEN;
+    }
+
+    private Breaker hostBreaker(String host) {
+        if (Strings.isNullOrEmpty(host) || !defaults.isEnabled()) {
+            return null;
+        }
+        return breaker(HOST_PREFIX + host, defaults);
+    }
+
+    private Breaker templateBreaker(String templateId, CircuitBreakerConfig templateConfig) {
+        val config = null == templateConfig ? defaults : templateConfig;
+        if (Strings.isNullOrEmpty(templateId) || !config.isEnabled()) {
+            return null;
+        }
+        return breaker(TEMPLATE_PREFIX + templateId, config);
+    }
+
+    private Breaker breaker(String key, CircuitBreakerConfig config) {
+        val existing = breakers.get(key);
+        if (null != existing && existing.config.equals(config)) {
+            return existing;
+        }
+        return breakers.compute(key, (name, current) -> {
+            if (null != current && current.config.equals(config)) {
+                return current;
+            }
+            val breaker = new Breaker(name, config);
+            val gaugeName = MetricRegistry.name(CircuitBreakers.class, name, "state");
+            metricRegistry.remove(gaugeName);
+            metricRegistry.register(gaugeName, (Gauge<Integer>) () -> breaker.state().ordinal());
+            return breaker;
+        });
+    }
+
+    private static StatesmanError open(String key) {
+        return new StatesmanError("Circuit open for " + key, ResponseCode.CIRCUIT_OPEN);
+    }
+
+    private static final class Breaker {
+        private final String key;
+        private final CircuitBreakerConfig config;
+        private final boolean[] outcomes;
+        private int position;
+        private int calls;
+        private int failures;
+        private State state = State.CLOSED;
+        private long openedAt;
+        private int trialsInFlight;
+        private int trialSuccesses;
+
+        private Breaker(String key, CircuitBreakerConfig config) {
+            this.key = key;
+            this.config = config;
+            this.outcomes = new boolean[config.getWindowSize()];
+        }
+
+        synchronized boolean tryAcquire() {
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (System.currentTimeMillis() - openedAt < config.getOpenDurationMs()) {
+                        return false;
+                    }
+                    transition(State.HALF_OPEN);
+                    trialsInFlight = 0;
+                    trialSuccesses = 0;
+                    //Fall through to take a trial slot
+                case HALF_OPEN:
+                default:
+                    if (trialsInFlight + trialSuccesses >= config.getHalfOpenCalls()) {
+                        return false;
+                    }
+                    trialsInFlight++;
+                    return true;
+            }
+        }
+
+        synchronized void release() {
+            if (state == State.HALF_OPEN && trialsInFlight > 0) {
+                trialsInFlight--;
+            }
+        }
+
+        synchronized void record(boolean success) {
+            switch (state) {
+                case HALF_OPEN:
+                    trialsInFlight = Math.max(0, trialsInFlight - 1);
+                    if (!success) {
+                        open();
+                        return;
+                    }
+                    if (++trialSuccesses >= config.getHalfOpenCalls()) {
+                        reset();
+                        transition(State.CLOSED);
+                    }
+                    return;
+                case CLOSED:
+                    if (calls == outcomes.length) {
+                        failures -= outcomes[position] ? 0 : 1;
+                    }
+                    else {
+                        calls++;
+                    }
+                    outcomes[position] = success;
+                    failures += success ? 0 : 1;
+                    position = (position + 1) % outcomes.length;
+                    if (failures > 0
+                            && calls >= Math.min(config.getMinimumCalls(), outcomes.length)
+                            && failures >= config.getFailureRateThreshold() * calls) {
+                        open();
+                    }
+                    return;
+                case OPEN:
+                default:
+                    //Late outcome of a call let through before the breaker opened
+            }
+        }
+
+        synchronized State state() {
+            return state;
+        }
+
+        synchronized boolean rejecting() {
+            return state == State.OPEN && System.currentTimeMillis() - openedAt < config.getOpenDurationMs();
+        }
+
+        private void open() {
+            openedAt = System.currentTimeMillis();
+            reset();
+            transition(State.OPEN);
+        }
+
+        private void reset() {
+            position = 0;
+            calls = 0;
+            failures = 0;
+        }
+
+        private void transition(State next) {
+            if (state != next) {
+                log.warn("Circuit breaker {} moved from {} to {}", key, state, next);
+                state = next;
+            }
+        }
+    }
+}
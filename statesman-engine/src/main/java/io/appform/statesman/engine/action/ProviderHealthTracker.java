@@ -0,0 +1,86 @@
+package io.appform.statesman.engine.action;
+
+import com.google.common.base.Strings;
+import lombok.val;
+
+import javax.inject.Singleton;
+import java.time.Clock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exponentially weighted error rate and latency of action templates, as observed by the actions executing them.
+ * Routing uses {@link #healthFactor(String)} to scale down the share of providers whose templates are failing or slow.
+ * Templates without any observations are considered fully healthy. Observations lose half their weight for every 30
+ * seconds without a new sample, so a demoted provider that hardly gets any calls still recovers.
+ */
+@Singleton
+public class ProviderHealthTracker {
+    private static final double ALPHA = 0.1;
+    private static final double LATENCY_SCALE_MS = 1_000.0;
+    private static final double MIN_FACTOR = 0.05;
+    private static final long HALF_LIFE_MS = TimeUnit.SECONDS.toMillis(30);
+
+    private final Clock clock;
+    private final ConcurrentHashMap<String, Health> health = new ConcurrentHashMap<>();
+
+    public ProviderHealthTracker() {
+        this(Clock.systemUTC());
+    }
+
+    public ProviderHealthTracker(Clock clock) {
+        this.clock = clock;
+    }
+
+    public void record(String templateId, long latencyNanos, boolean success) {
+        if (Strings.isNullOrEmpty(templateId)) {
+            return;
+        }
+        health.computeIfAbsent(templateId, id -> new Health())
+                .update((double) TimeUnit.NANOSECONDS.toMicros(latencyNanos) / 1_000.0, success, clock.millis());
+    }
+
+    /**
+     * Multiplier in <code>(0, 1]</code> for the routing weight of a template. Falls with the error rate, and halves as
+     * the average latency approaches a second. Drifts back to 1 while no new samples come in.
+     */
+    public double healthFactor(String templateId) {
+        val templateHealth = null == templateId ? null : health.get(templateId);
+        if (null == templateHealth) {
+            return 1.0;
+        }
+        return Math.max(MIN_FACTOR, templateHealth.factor(clock.millis()));
+    }
+
+    private static final class Health {
+        private double errorRate;
+        private double latencyMs;
+        private long lastSampleAt;
+        private boolean initialized;
+
+        //Error rate starts from a healthy prior, latency from the first sample after the old ones have decayed
+        synchronized void update(double latencyMs, boolean success, long now) {
+            val weight = weight(now);
+            this.errorRate *= weight;
+            this.errorRate += ALPHA * ((success ? 0.0 : 1.0) - this.errorRate);
+            this.lastSampleAt = now;
+            if (!initialized) {
+                this.latencyMs = latencyMs;
+                this.initialized = true;
+                return;
+            }
+            this.latencyMs += (1.0 - weight) * (latencyMs - this.latencyMs);
+            this.latencyMs += ALPHA * (latencyMs - this.latencyMs);
+        }
+
+        synchronized double factor(long now) {
+            val weight = weight(now);
+            val latencyPenalty = weight * latencyMs / (LATENCY_SCALE_MS + latencyMs);
+            return (1.0 - weight * errorRate) * (1.0 - latencyPenalty);
+        }
+
+        private double weight(long now) {
+            return Math.pow(0.5, (double) Math.max(0, now - lastSampleAt) / HALF_LIFE_MS);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package io.appform.statesman.engine.action;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.appform.statesman.model.State;
+import io.appform.statesman.model.Workflow;
+import lombok.AllArgsConstructor;
+import lombok.val;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Tree view of a {@link Workflow} shared by the actions run in one engine pass.
+ * Templated actions render against <code>mapper.valueToTree(workflow)</code>; converting the workflow once per action
+ * means a compound action with several children converts the same workflow several times. Trees are memoized per
+ * workflow instance (weakly, by identity) and reused as long as the data and state the tree was built from are still
+ * current. The engine replaces the data node whenever data changes, so an identity check is enough to detect it.
+ * Returned trees are shared and must be treated as read-only.
+ */
+@Singleton
+public class WorkflowTreeCache {
+
+    private final ObjectMapper mapper;
+    private final Cache<Workflow, WorkflowTree> trees = Caffeine.newBuilder()
+            .weakKeys()
+            .build();
+
+    @Inject
+    public WorkflowTreeCache(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    public JsonNode tree(Workflow workflow) {
+        val dataObject = workflow.getDataObject();
+        if (null == dataObject) {
+            return mapper.valueToTree(workflow);
+        }
+        val data = dataObject.getData();
+        val state = dataObject.getCurrentState();
+        val cached = trees.getIfPresent(workflow);
+        if (null != cached && cached.data == data && cached.state == state) {
+            return cached.tree;
+        }
+        final JsonNode tree = mapper.valueToTree(workflow);
+        trees.put(workflow, new WorkflowTree(data, state, tree));
+        return tree;
+    }
+
+    @AllArgsConstructor
+    private static final class WorkflowTree {
+        private final JsonNode data;
+        private final State state;
+        private final JsonNode tree;
+    }
+}
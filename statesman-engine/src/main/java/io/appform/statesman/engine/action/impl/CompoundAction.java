@@ -2,10 +2,10 @@ package io.appform.statesman.engine.action.impl;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.inject.name.Named;
-import io.appform.eventingester.client.EventPublisher;
 import io.appform.statesman.engine.action.ActionHelper;
+import io.appform.statesman.engine.action.ActionRetryQueue;
 import io.appform.statesman.engine.action.BaseAction;
+import io.appform.statesman.engine.events.SpoolingEventPublisher;
 import io.appform.statesman.model.ActionImplementation;
 import io.appform.statesman.model.Workflow;
 import io.appform.statesman.model.action.ActionType;
@@ -14,6 +14,7 @@ import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import javax.inject.Singleton;
 
 
@@ -27,10 +28,11 @@ public class CompoundAction extends BaseAction<CompoundActionTemplate> {
 
     @Inject
     public CompoundAction(
-            @Named("eventPublisher") final EventPublisher publisher,
+            final SpoolingEventPublisher publisher,
             ObjectMapper mapper,
-            ActionHelper actionHelper) {
-        super(publisher, mapper);
+            ActionHelper actionHelper,
+            Provider<ActionRetryQueue> retryQueue) {
+        super(publisher, mapper, retryQueue);
         this.actionHelper = actionHelper;
     }
 
@@ -46,6 +48,11 @@ public class CompoundAction extends BaseAction<CompoundActionTemplate> {
         log.debug("Compound Action triggered with Template: {} and Workflow: {}",
                 compoundActionTemplate, workflow);
 
+        if (compoundActionTemplate.isParallel()) {
+            return actionHelper.executeActionsInParallel(compoundActionTemplate.getActionTemplates(),
+                                                         workflow,
+                                                         compoundActionTemplate.getBranchTimeoutMs());
+        }
         return actionHelper.executeActions(compoundActionTemplate.getActionTemplates(), workflow);
     }
 
@@ -2,17 +2,17 @@ package io.appform.statesman.engine.action.impl;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.base.Preconditions;
-import com.google.inject.name.Named;
-import io.appform.eventingester.client.EventPublisher;
 import io.appform.hope.core.Evaluatable;
 import io.appform.hope.core.exceptions.errorstrategy.InjectValueErrorHandlingStrategy;
 import io.appform.hope.lang.HopeLangEngine;
+import io.appform.statesman.engine.EvaluationContext;
 import io.appform.statesman.engine.action.ActionHelper;
+import io.appform.statesman.engine.action.ActionRetryQueue;
 import io.appform.statesman.engine.action.BaseAction;
+import io.appform.statesman.engine.events.SpoolingEventPublisher;
 import io.appform.statesman.model.ActionImplementation;
 import io.appform.statesman.model.DataObject;
 import io.appform.statesman.model.Workflow;
@@ -24,6 +24,7 @@ import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import javax.inject.Singleton;
 
 @Slf4j
@@ -44,10 +45,11 @@ public class EvaluatedAction extends BaseAction<EvaluatedActionTemplate> {
 
     @Inject
     public EvaluatedAction(
-            @Named("eventPublisher") final EventPublisher publisher,
+            final SpoolingEventPublisher publisher,
             ObjectMapper mapper,
-            ActionHelper actionHelper) {
-        super(publisher, mapper);
+            ActionHelper actionHelper,
+            Provider<ActionRetryQueue> retryQueue) {
+        super(publisher, mapper, retryQueue);
         this.actionHelper = actionHelper;
     }
 
@@ -64,8 +66,7 @@ public class EvaluatedAction extends BaseAction<EvaluatedActionTemplate> {
 
         Preconditions.checkNotNull(workflow);
         final DataObject dataObject = workflow.getDataObject();
-        val evalNode = mapper.createObjectNode();
-        evalNode.putObject("data").setAll((ObjectNode) dataObject.getData());
+        val evalNode = EvaluationContext.of(dataObject.getData()).node();
 
         val selectedAction = evaluatedActionTemplate.getRuleBasedTemplates().stream()
                 .filter(template -> template.getType().equals(RuleBasedTemplate.Type.EVALUATED))
@@ -82,6 +83,16 @@ public class EvaluatedAction extends BaseAction<EvaluatedActionTemplate> {
         return actionHelper.executeActions(selectedAction.getActions(), workflow);
     }
 
+    @Override
+    public void warmup(EvaluatedActionTemplate evaluatedActionTemplate) {
+        if (null == evaluatedActionTemplate.getRuleBasedTemplates()) {
+            return;
+        }
+        evaluatedActionTemplate.getRuleBasedTemplates().stream()
+                .filter(template -> template.getType().equals(RuleBasedTemplate.Type.EVALUATED))
+                .forEach(template -> evalCache.get(template.getRule()));
+    }
+
     private RuleBasedTemplate defaultAction(EvaluatedActionTemplate evaluatedActionTemplate) {
         return evaluatedActionTemplate.getRuleBasedTemplates().stream()
                 .filter(template -> template.getType().equals(RuleBasedTemplate.Type.DEFAULT))
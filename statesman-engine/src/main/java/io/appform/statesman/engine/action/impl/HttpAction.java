@@ -5,25 +5,38 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.NullNode;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
-import io.appform.eventingester.client.EventPublisher;
+import io.appform.statesman.engine.WorkflowMailbox;
+import io.appform.statesman.engine.action.ActionRetryQueue;
 import io.appform.statesman.engine.action.BaseAction;
+import io.appform.statesman.engine.action.CircuitBreakers;
+import io.appform.statesman.engine.action.ProviderHealthTracker;
+import io.appform.statesman.engine.action.WorkflowTreeCache;
+import io.appform.statesman.engine.events.SpoolingEventPublisher;
 import io.appform.statesman.engine.handlebars.HandleBarsService;
 import io.appform.statesman.engine.http.HttpClient;
+import io.appform.statesman.engine.http.HttpClientRegistry;
 import io.appform.statesman.engine.http.HttpUtil;
 import io.appform.statesman.model.ActionImplementation;
+import io.appform.statesman.model.DataUpdate;
 import io.appform.statesman.model.Workflow;
 import io.appform.statesman.model.action.ActionType;
 import io.appform.statesman.model.action.template.HttpActionTemplate;
+import io.appform.statesman.model.dataaction.impl.MergeDataAction;
 import io.appform.statesman.model.exception.StatesmanError;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
 import okhttp3.Response;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Provider;
 import javax.inject.Singleton;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -33,18 +46,37 @@ import java.util.stream.Collectors;
 public class HttpAction extends BaseAction<HttpActionTemplate> {
 
     private static final String APPLICATION_JSON = "application/json";
+    private static final int MAX_ASYNC_ATTEMPTS = 5;
+    private static final long ASYNC_RETRY_BASE_WAIT_MS = 100;
+    private static final long ASYNC_RETRY_MAX_WAIT_MS = 5_000;
     private HandleBarsService handleBarsService;
-    private Provider<HttpClient> client;
+    private Provider<HttpClientRegistry> httpClientRegistry;
+    private WorkflowTreeCache workflowTreeCache;
+    private Provider<WorkflowMailbox> workflowMailbox;
+    private ScheduledExecutorService asyncActionExecutor;
+    private ProviderHealthTracker healthTracker;
+    private CircuitBreakers circuitBreakers;
 
     @Inject
     public HttpAction(
             HandleBarsService handleBarsService,
-            Provider<HttpClient> client,
-            @Named("eventPublisher") final EventPublisher publisher,
-            ObjectMapper mapper) {
-        super(publisher, mapper);
-        this.client = client;
+            Provider<HttpClientRegistry> httpClientRegistry,
+            final SpoolingEventPublisher publisher,
+            ObjectMapper mapper,
+            WorkflowTreeCache workflowTreeCache,
+            Provider<WorkflowMailbox> workflowMailbox,
+            @Named("asyncActionExecutor") ScheduledExecutorService asyncActionExecutor,
+            Provider<ActionRetryQueue> retryQueue,
+            ProviderHealthTracker healthTracker,
+            CircuitBreakers circuitBreakers) {
+        super(publisher, mapper, retryQueue);
+        this.httpClientRegistry = httpClientRegistry;
         this.handleBarsService = handleBarsService;
+        this.workflowTreeCache = workflowTreeCache;
+        this.workflowMailbox = workflowMailbox;
+        this.asyncActionExecutor = asyncActionExecutor;
+        this.healthTracker = healthTracker;
+        this.circuitBreakers = circuitBreakers;
     }
 
     @Override
@@ -67,35 +99,183 @@ public class HttpAction extends BaseAction<HttpActionTemplate> {
             return actionTemplate.getNoopResponse();
         }
 
-        JsonNode httpResponse = handle(httpActionData);
+        final JsonNode httpResponse;
+        val host = host(httpActionData.getUrl());
+        circuitBreakers.acquire(actionTemplate.getTemplateId(), actionTemplate.getCircuitBreaker(), host);
+        val start = System.nanoTime();
+        try {
+            httpResponse = handle(httpActionData);
+        }
+        catch (RuntimeException e) {
+            recordOutcome(actionTemplate, host, start, false);
+            throw e;
+        }
+        recordOutcome(actionTemplate, host, start, true);
         if (httpResponse != null && !Strings.isNullOrEmpty(responseTranslator)) {
-            return toJsonNode(handleBarsService.transform(responseTranslator, httpResponse));
+            return translateResponse(responseTranslator, httpResponse);
         }
         return null;
     }
 
     private JsonNode handle(HttpActionData actionData) {
         try(Response httpResponse = executeRequest(actionData) ) {
-            val responseBodyStr = HttpUtil.body(httpResponse);
-            if (Strings.isNullOrEmpty(responseBodyStr)) {
-                return NullNode.getInstance();
-            }
-            log.debug("HTTP Response: {}", responseBodyStr);
-            List<String> contentType = Arrays.stream(
-                                                httpResponse.header("Content-Type",APPLICATION_JSON)
-                                                .split(";"))
-                                                .collect(Collectors.toList());
-            if (contentType.stream()
-                    .anyMatch(value -> value.equalsIgnoreCase(APPLICATION_JSON))) {
-                return toJsonNode(responseBodyStr);
-            }
-            return mapper.createObjectNode()
-                    .put("payload", responseBodyStr);
+            return readResponse(httpResponse);
         } catch (final Exception e) {
             throw StatesmanError.propagate(e);
         }
     }
 
+    /**
+     * Async templates complete when their call does, after a single attempt. The {@link ActionRetryQueue} owns the
+     * retries in this case, so it only settles the retry once the response is in.
+     */
+    @Override
+    protected CompletableFuture<JsonNode> executeAsync(HttpActionTemplate actionTemplate, Workflow workflow) {
+        if (!actionTemplate.isAsync() || actionTemplate.isNoop()) {
+            return super.executeAsync(actionTemplate, workflow);
+        }
+        try {
+            return call(actionTemplate, transformPayload(workflow, actionTemplate))
+                    .thenApplyAsync(httpResponse -> translate(actionTemplate, httpResponse), asyncActionExecutor);
+        }
+        catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Async templates return right after the call is sent. The returned future completes once the call, along with its
+     * in-memory retries, is done, so that the execution is only reported then. The response is merged through the
+     * {@link WorkflowMailbox}, so the future completes empty.
+     */
+    @Override
+    protected CompletableFuture<JsonNode> start(HttpActionTemplate actionTemplate, Workflow workflow) {
+        if (!actionTemplate.isAsync() || actionTemplate.isNoop()) {
+            return super.start(actionTemplate, workflow);
+        }
+        val completion = new CompletableFuture<JsonNode>();
+        dispatch(actionTemplate, workflow.getId(), transformPayload(workflow, actionTemplate), 1, completion);
+        return completion;
+    }
+
+    /**
+     * Sends the call without blocking the caller. Failures are retried on the async executor with exponential
+     * backoff, without holding a thread while waiting. Calls that still fail complete the execution with the error,
+     * which hands them to the {@link ActionRetryQueue}.
+     */
+    private void dispatch(
+            HttpActionTemplate actionTemplate,
+            String workflowId,
+            HttpActionData actionData,
+            int attempt,
+            CompletableFuture<JsonNode> completion) {
+        final CompletableFuture<JsonNode> call;
+        try {
+            call = call(actionTemplate, actionData);
+        }
+        catch (RuntimeException e) {
+            if (attempt == 1) {
+                throw e;
+            }
+            log.warn("Async http action {} for workflow {} could not be sent on attempt {}: {}. Handing it to the retry queue",
+                     actionTemplate.getTemplateId(), workflowId, attempt, e.getMessage());
+            completion.completeExceptionally(e);
+            return;
+        }
+        call.whenCompleteAsync((httpResponse, error) -> {
+            if (null == error) {
+                try {
+                    mergeResponse(actionTemplate, workflowId, httpResponse);
+                    completion.complete(null);
+                }
+                catch (RuntimeException e) {
+                    completion.completeExceptionally(e);
+                }
+                return;
+            }
+            if (attempt >= MAX_ASYNC_ATTEMPTS) {
+                log.error("Async http action " + actionTemplate.getTemplateId() + " for workflow " + workflowId
+                                  + " failed " + attempt + " times. Handing it to the retry queue", error);
+                completion.completeExceptionally(unwrap(error));
+                return;
+            }
+            final long waitMs = Math.min(ASYNC_RETRY_MAX_WAIT_MS, ASYNC_RETRY_BASE_WAIT_MS << attempt);
+            log.warn("Async http action {} for workflow {} failed on attempt {}. Retrying in {} ms",
+                     actionTemplate.getTemplateId(), workflowId, attempt, waitMs);
+            asyncActionExecutor.schedule(
+                    () -> dispatch(actionTemplate, workflowId, actionData, attempt + 1, completion),
+                    waitMs, TimeUnit.MILLISECONDS);
+        }, asyncActionExecutor);
+    }
+
+    /**
+     * Makes the call through the circuit breakers. Fails fast if a breaker is open.
+     */
+    private CompletableFuture<JsonNode> call(HttpActionTemplate actionTemplate, HttpActionData actionData) {
+        val host = host(actionData.getUrl());
+        circuitBreakers.acquire(actionTemplate.getTemplateId(), actionTemplate.getCircuitBreaker(), host);
+        val start = System.nanoTime();
+        return executeRequestAsync(actionData)
+                .thenApply(response -> {
+                    try (Response httpResponse = response) {
+                        if (!isSuccessful(httpResponse, actionData)) {
+                            log.error("unable to do async {} action, actionData: {} Response: {}",
+                                      actionData.getMethod(), actionData, HttpUtil.body(httpResponse));
+                            throw new StatesmanError();
+                        }
+                        return readResponse(httpResponse);
+                    }
+                })
+                .whenComplete((httpResponse, error) -> recordOutcome(actionTemplate, host, start, null == error));
+    }
+
+    private void mergeResponse(HttpActionTemplate actionTemplate, String workflowId, JsonNode httpResponse) {
+        val translated = translate(actionTemplate, httpResponse);
+        if (null == translated) {
+            return;
+        }
+        if (!translated.isObject()) {
+            log.warn("Empty/Non object async response for action {} for workflow {}",
+                     actionTemplate.getTemplateId(), workflowId);
+            return;
+        }
+        //Queued, so that the engine pass doesn't hold up the async executor
+        workflowMailbox.get()
+                .enqueue(new DataUpdate(workflowId, translated, new MergeDataAction()))
+                .whenComplete((transitions, error) -> {
+                    if (null != error) {
+                        log.error("Error merging async response of action " + actionTemplate.getTemplateId()
+                                          + " into workflow " + workflowId, error);
+                    }
+                });
+    }
+
+    private JsonNode translate(HttpActionTemplate actionTemplate, JsonNode httpResponse) {
+        val responseTranslator = actionTemplate.getResponseTranslator();
+        if (null == httpResponse || Strings.isNullOrEmpty(responseTranslator)) {
+            return null;
+        }
+        return translateResponse(responseTranslator, httpResponse);
+    }
+
+    private JsonNode readResponse(Response httpResponse) {
+        val responseBodyStr = HttpUtil.body(httpResponse);
+        if (Strings.isNullOrEmpty(responseBodyStr)) {
+            return NullNode.getInstance();
+        }
+        log.debug("HTTP Response: {}", responseBodyStr);
+        List<String> contentType = Arrays.stream(
+                                            httpResponse.header("Content-Type",APPLICATION_JSON)
+                                            .split(";"))
+                                            .collect(Collectors.toList());
+        if (contentType.stream()
+                .anyMatch(value -> value.equalsIgnoreCase(APPLICATION_JSON))) {
+            return toJsonNode(responseBodyStr);
+        }
+        return mapper.createObjectNode()
+                .put("payload", responseBodyStr);
+    }
+
     @SneakyThrows
     private Response executeRequest(HttpActionData actionData) {
         return actionData.getMethod().visit(new HttpMethod.MethodTypeVisitor<Response>() {
@@ -106,7 +286,7 @@ public class HttpAction extends BaseAction<HttpActionTemplate> {
             public Response visitPost() throws Exception {
                 log.info("HTTP_ACTION POST Call url:{}", url);
                 val payload = actionData.getPayload();
-                Response response = client.get().post(url, payload, headers);
+                Response response = client(actionData).post(url, payload, headers);
                 if (!isSuccessful(response, actionData)) {
                     log.error("unable to do post action, actionData: {} Response: {}",
                               actionData, HttpUtil.body(response));
@@ -119,7 +299,7 @@ public class HttpAction extends BaseAction<HttpActionTemplate> {
             public Response visitGet() throws Exception {
                 log.info("HTTP_ACTION GET Call url:{}", url);
                 Response response = null;
-                response = client.get().get(url, headers);
+                response = client(actionData).get(url, headers);
                 if (!isSuccessful(response, actionData)) {
                     log.error("unable to do get action, actionData: {} Response: {}",
                             actionData, HttpUtil.body(response));
@@ -130,6 +310,38 @@ public class HttpAction extends BaseAction<HttpActionTemplate> {
         });
     }
 
+    @SneakyThrows
+    private CompletableFuture<Response> executeRequestAsync(HttpActionData actionData) {
+        return actionData.getMethod().visit(new HttpMethod.MethodTypeVisitor<CompletableFuture<Response>>() {
+            @Override
+            public CompletableFuture<Response> visitPost() {
+                log.info("HTTP_ACTION async POST Call url:{}", actionData.getUrl());
+                return client(actionData)
+                        .postAsync(actionData.getUrl(), actionData.getPayload(), actionData.getHeaders());
+            }
+
+            @Override
+            public CompletableFuture<Response> visitGet() {
+                log.info("HTTP_ACTION async GET Call url:{}", actionData.getUrl());
+                return client(actionData).getAsync(actionData.getUrl(), actionData.getHeaders());
+            }
+        });
+    }
+
+    private void recordOutcome(HttpActionTemplate actionTemplate, String host, long start, boolean success) {
+        healthTracker.record(actionTemplate.getTemplateId(), System.nanoTime() - start, success);
+        circuitBreakers.record(actionTemplate.getTemplateId(), actionTemplate.getCircuitBreaker(), host, success);
+    }
+
+    private static String host(String url) {
+        val httpUrl = null == url ? null : HttpUrl.parse(url);
+        return null == httpUrl ? null : httpUrl.host();
+    }
+
+    private HttpClient client(HttpActionData actionData) {
+        return httpClientRegistry.get().client(actionData.getClientProfile());
+    }
+
     private boolean isSuccessful(Response response, HttpActionData actionData) {
         return (actionData.getAcceptableCodes() != null
                 && actionData.getAcceptableCodes().contains(response.code()))
@@ -145,14 +357,33 @@ public class HttpAction extends BaseAction<HttpActionTemplate> {
         }
     }
 
+    private JsonNode translateResponse(String responseTranslator, JsonNode httpResponse) {
+        try {
+            return handleBarsService.transformToNode(responseTranslator, httpResponse);
+        } catch (IOException e) {
+            log.error("Error while converting to json:"
+                              + handleBarsService.transform(responseTranslator, httpResponse), e);
+            return null;
+        }
+    }
+
+    @Override
+    public void warmup(HttpActionTemplate actionTemplate) {
+        handleBarsService.precompile(actionTemplate.getUrl());
+        handleBarsService.precompile(actionTemplate.getPayload());
+        handleBarsService.precompile(actionTemplate.getHeaders());
+        handleBarsService.precompile(actionTemplate.getResponseTranslator());
+    }
+
     private HttpActionData transformPayload(Workflow workflow, HttpActionTemplate actionTemplate) {
-        JsonNode jsonNode = mapper.valueToTree(workflow);
+        JsonNode jsonNode = workflowTreeCache.tree(workflow);
         return HttpActionData.builder()
                 .method(HttpMethod.valueOf(actionTemplate.getMethod()))
                 .url(handleBarsService.transform(actionTemplate.getUrl(), jsonNode))
                 .headers(getheaders(jsonNode, actionTemplate.getHeaders()))
                 .payload(handleBarsService.transform(actionTemplate.getPayload(), jsonNode))
                 .acceptableCodes(actionTemplate.getAcceptableCodes())
+                .clientProfile(actionTemplate.getClientProfile())
                 .build();
     }
 
@@ -179,6 +410,7 @@ public class HttpAction extends BaseAction<HttpActionTemplate> {
         private String payload;
         private Map<String, String> headers;
         private Set<Integer> acceptableCodes;
+        private String clientProfile;
 
     }
 
@@ -4,11 +4,12 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.NullNode;
 import com.google.common.base.Strings;
-import com.google.inject.name.Named;
-import io.appform.eventingester.client.EventPublisher;
 import io.appform.statesman.engine.ProviderSelector;
 import io.appform.statesman.engine.action.ActionExecutor;
+import io.appform.statesman.engine.action.ActionLimiter;
+import io.appform.statesman.engine.action.ActionRetryQueue;
 import io.appform.statesman.engine.action.BaseAction;
+import io.appform.statesman.engine.events.SpoolingEventPublisher;
 import io.appform.statesman.model.ActionImplementation;
 import io.appform.statesman.model.Workflow;
 import io.appform.statesman.model.action.ActionType;
@@ -30,15 +31,19 @@ import javax.inject.Singleton;
 public class RoutedAction extends BaseAction<RoutedActionTemplate> {
 
     private final ProviderSelector providerSelector;
+    private final ActionLimiter actionLimiter;
     private Provider<ActionExecutor> actionExecutor;
 
     @Inject
     public RoutedAction(Provider<ActionExecutor> actionExecutor,
-                        @Named("eventPublisher") final EventPublisher publisher,
+                        final SpoolingEventPublisher publisher,
                         ProviderSelector providerSelector,
-                        ObjectMapper mapper) {
-        super(publisher, mapper);
+                        ObjectMapper mapper,
+                        Provider<ActionRetryQueue> retryQueue,
+                        ActionLimiter actionLimiter) {
+        super(publisher, mapper, retryQueue);
         this.providerSelector = providerSelector;
+        this.actionLimiter = actionLimiter;
         this.actionExecutor = actionExecutor;
     }
 
@@ -55,7 +60,7 @@ public class RoutedAction extends BaseAction<RoutedActionTemplate> {
         log.debug("Routed Action triggered with Template: {} and Workflow: {}",
             routedActionTemplate, workflow);
 
-        String provider = providerSelector.provider(routedActionTemplate.getUseCase(), routedActionTemplate.getProviderTemplates().keySet(), workflow);
+        String provider = providerSelector.provider(routedActionTemplate.getUseCase(), routedActionTemplate.getProviderTemplates(), workflow);
 
         if (Strings.isNullOrEmpty(provider)) {
             throw new StatesmanError("No provider found for action:" + routedActionTemplate.getTemplateId(),
@@ -64,7 +69,9 @@ public class RoutedAction extends BaseAction<RoutedActionTemplate> {
 
         log.debug("Selected provider: {}", provider);
 
-        return actionExecutor.get().execute(routedActionTemplate.getProviderTemplates().get(provider), workflow)
-                .orElse(NullNode.getInstance());
+        try (ActionLimiter.Permit ignored = actionLimiter.acquireProvider(provider)) {
+            return actionExecutor.get().execute(routedActionTemplate.getProviderTemplates().get(provider), workflow)
+                    .orElse(NullNode.getInstance());
+        }
     }
 }
@@ -2,9 +2,10 @@ package io.appform.statesman.engine.action.impl;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.inject.name.Named;
-import io.appform.eventingester.client.EventPublisher;
+import io.appform.statesman.engine.action.ActionRetryQueue;
 import io.appform.statesman.engine.action.BaseAction;
+import io.appform.statesman.engine.action.WorkflowTreeCache;
+import io.appform.statesman.engine.events.SpoolingEventPublisher;
 import io.appform.statesman.engine.handlebars.HandleBarsService;
 import io.appform.statesman.model.ActionImplementation;
 import io.appform.statesman.model.Workflow;
@@ -14,7 +15,9 @@ import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import javax.inject.Singleton;
+import java.io.IOException;
 
 @Slf4j
 @Data
@@ -23,13 +26,17 @@ import javax.inject.Singleton;
 public class TranslatorAction extends BaseAction<TranslatorActionTemplate> {
 
     private HandleBarsService handleBarsService;
+    private WorkflowTreeCache workflowTreeCache;
 
     @Inject
     public TranslatorAction(HandleBarsService handleBarsService,
                             ObjectMapper mapper,
-                            @Named("eventPublisher") final EventPublisher publisher) {
-        super(publisher, mapper);
+                            final SpoolingEventPublisher publisher,
+                            WorkflowTreeCache workflowTreeCache,
+                            Provider<ActionRetryQueue> retryQueue) {
+        super(publisher, mapper, retryQueue);
         this.handleBarsService = handleBarsService;
+        this.workflowTreeCache = workflowTreeCache;
     }
 
     @Override
@@ -39,24 +46,29 @@ public class TranslatorAction extends BaseAction<TranslatorActionTemplate> {
             actionTemplate, workflow);
 
         String translator = actionTemplate.getTranslator();
-        JsonNode workflowNode = mapper.valueToTree(workflow);
-        JsonNode response = toJsonNode(handleBarsService.transform(translator, workflowNode));
+        JsonNode workflowNode = workflowTreeCache.tree(workflow);
+        JsonNode response = toJsonNode(translator, workflowNode);
 
         log.debug("Translation output: {}", response);
 
         return response;
     }
 
+    @Override
+    public void warmup(TranslatorActionTemplate actionTemplate) {
+        handleBarsService.precompile(actionTemplate.getTranslator());
+    }
+
     @Override
     public ActionType getType() {
         return ActionType.TRANSLATOR;
     }
 
-    private JsonNode toJsonNode(String responseBodyStr) {
+    private JsonNode toJsonNode(String translator, JsonNode workflowNode) {
         try {
-            return mapper.readTree(responseBodyStr);
-        } catch (Exception e) {
-            log.error("Error while converting to json:" + responseBodyStr, e);
+            return handleBarsService.transformToNode(translator, workflowNode);
+        } catch (IOException e) {
+            log.error("Error while converting to json:" + handleBarsService.transform(translator, workflowNode), e);
             return null;
         }
     }
@@ -0,0 +1,274 @@
+package io.appform.statesman.engine.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append only, memory mapped spool of opaque records, read back in the order they were written.
+ * Records go into fixed size segment files (<code>segment-N.spool</code>) as <code>[length][timestamp][bytes]</code>.
+ * The length is written last, so a record only becomes visible once it is complete, and a zero length marks the end of
+ * the written part of a segment. How far the spool has been consumed is kept in a small mapped <code>cursor</code>
+ * file; fully consumed segments are deleted. Both files live in the page cache, so appends don't wait for the disk
+ * and survive a process restart; on restart the write position is recovered by scanning the last segment.
+ */
+@Slf4j
+public class EventSpool implements Closeable {
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+    private static final int CURSOR_BYTES = Long.BYTES + Integer.BYTES;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String CURSOR_FILE = "cursor";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final MappedByteBuffer cursor;
+
+    private long writeSegment;
+    private int writePosition;
+    private MappedByteBuffer writeBuffer;
+
+    private long readSegment;
+    private int readPosition;
+    private long mappedReadSegment = -1;
+    private MappedByteBuffer readBuffer;
+
+    //Kept up to date on append and commit, so that monitoring can read it without taking the lock
+    private volatile long oldestTimestamp;
+
+    public EventSpool(Path directory, int segmentSize, int maxSegments) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(directory);
+        this.cursor = map(directory.resolve(CURSOR_FILE), CURSOR_BYTES);
+        this.readSegment = cursor.getLong(0);
+        this.readPosition = cursor.getInt(Long.BYTES);
+        this.writeSegment = Math.max(readSegment, lastSegment());
+        this.writeBuffer = map(segment(writeSegment), segmentSize);
+        this.writePosition = writeSegment == readSegment ? readPosition : 0;
+        while (hasRecord(writeBuffer, writePosition)) {
+            writePosition += HEADER_BYTES + writeBuffer.getInt(writePosition);
+        }
+        deleteSegmentsBefore(readSegment);
+        this.oldestTimestamp = timestampAt(readSegment, readPosition);
+        log.info("Opened event spool at {}. Read position {}:{}, write position {}:{}",
+                 directory, readSegment, readPosition, writeSegment, writePosition);
+    }
+
+    /**
+     * @return false if the record does not fit, either in a segment or in the spool
+     */
+    public synchronized boolean append(byte[] record) throws IOException {
+        if (HEADER_BYTES + record.length > segmentSize) {
+            return false;
+        }
+        final boolean wasEmpty = isEmpty();
+        if (writePosition + HEADER_BYTES + record.length > segmentSize) {
+            if (writeSegment - readSegment + 1 >= maxSegments) {
+                return false;
+            }
+            writeSegment++;
+            writePosition = 0;
+            writeBuffer = map(segment(writeSegment), segmentSize);
+        }
+        final MappedByteBuffer buffer = writeBuffer;
+        final long now = System.currentTimeMillis();
+        buffer.position(writePosition + HEADER_BYTES);
+        buffer.put(record);
+        buffer.putLong(writePosition + Integer.BYTES, now);
+        buffer.putInt(writePosition, record.length);
+        writePosition += HEADER_BYTES + record.length;
+        if (wasEmpty) {
+            oldestTimestamp = now;
+        }
+        return true;
+    }
+
+    /**
+     * Reads up to <code>maxRecords</code> records from the read position. Nothing is consumed until the batch is
+     * {@link #commit(Batch) committed}.
+     */
+    public synchronized Batch read(int maxRecords) throws IOException {
+        final List<byte[]> records = new ArrayList<>();
+        long segment = readSegment;
+        int position = readPosition;
+        long oldest = 0;
+        while (records.size() < maxRecords) {
+            final MappedByteBuffer buffer = readBuffer(segment);
+            if (!hasRecord(buffer, position)) {
+                if (segment >= writeSegment) {
+                    break;
+                }
+                segment++;
+                position = 0;
+                continue;
+            }
+            final int length = buffer.getInt(position);
+            if (oldest == 0) {
+                oldest = buffer.getLong(position + Integer.BYTES);
+            }
+            final byte[] record = new byte[length];
+            final ByteBuffer view = buffer.duplicate();
+            view.position(position + HEADER_BYTES);
+            view.get(record);
+            records.add(record);
+            position += HEADER_BYTES + length;
+        }
+        return new Batch(Collections.unmodifiableList(records), segment, position, oldest);
+    }
+
+    public synchronized void commit(Batch batch) {
+        readSegment = batch.segment;
+        readPosition = batch.position;
+        cursor.putLong(0, readSegment);
+        cursor.putInt(Long.BYTES, readPosition);
+        deleteSegmentsBefore(readSegment);
+        try {
+            oldestTimestamp = timestampAt(readSegment, readPosition);
+        }
+        catch (IOException e) {
+            log.warn("Could not read the timestamp of the next spooled record", e);
+            oldestTimestamp = 0;
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        return readSegment == writeSegment && readPosition == writePosition;
+    }
+
+    /**
+     * Approximate size of the records not yet consumed.
+     */
+    public synchronized long pendingBytes() {
+        return (writeSegment - readSegment) * segmentSize + writePosition - readPosition;
+    }
+
+    /**
+     * Time at which the oldest pending record was written, 0 if there is none.
+     */
+    public long oldestTimestamp() {
+        return oldestTimestamp;
+    }
+
+    @Override
+    public synchronized void close() {
+        writeBuffer.force();
+        cursor.force();
+    }
+
+    //Write time from the header of the first record at or after the given position, 0 if there is none
+    private long timestampAt(long segment, int position) throws IOException {
+        while (true) {
+            final MappedByteBuffer buffer = readBuffer(segment);
+            if (hasRecord(buffer, position)) {
+                return buffer.getLong(position + Integer.BYTES);
+            }
+            if (segment >= writeSegment) {
+                return 0;
+            }
+            segment++;
+            position = 0;
+        }
+    }
+
+    private MappedByteBuffer readBuffer(long segment) throws IOException {
+        if (segment == writeSegment) {
+            return writeBuffer;
+        }
+        if (segment != mappedReadSegment) {
+            readBuffer = map(segment(segment), segmentSize);
+            mappedReadSegment = segment;
+        }
+        return readBuffer;
+    }
+
+    private boolean hasRecord(MappedByteBuffer buffer, int position) {
+        return position + HEADER_BYTES <= segmentSize && buffer.getInt(position) > 0;
+    }
+
+    private void deleteSegmentsBefore(long segment) {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> {
+                final long index = segmentIndex(file);
+                return index >= 0 && index < segment;
+            }).forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                }
+                catch (IOException e) {
+                    log.warn("Could not delete spool segment {}", file, e);
+                }
+            });
+        }
+        catch (IOException e) {
+            log.warn("Could not list spool directory {}", directory, e);
+        }
+        if (mappedReadSegment >= 0 && mappedReadSegment < segment) {
+            readBuffer = null;
+            mappedReadSegment = -1;
+        }
+    }
+
+    private long lastSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(EventSpool::segmentIndex).max().orElse(0);
+        }
+    }
+
+    private Path segment(long index) {
+        return directory.resolve(SEGMENT_PREFIX + index + SEGMENT_SUFFIX);
+    }
+
+    private static long segmentIndex(Path file) {
+        final String name = file.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        }
+        catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            if (raf.length() < size) {
+                raf.setLength(size);
+            }
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * Records read from the spool, along with the position right after them.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Batch {
+        private final List<byte[]> records;
+        private final long segment;
+        private final int position;
+        private final long oldestTimestamp;
+
+        public boolean isEmpty() {
+            return records.isEmpty();
+        }
+    }
+}
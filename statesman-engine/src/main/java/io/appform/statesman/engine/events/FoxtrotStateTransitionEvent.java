@@ -16,8 +16,23 @@ public class FoxtrotStateTransitionEvent {
     String oldState;
     String newState;
     boolean terminal;
+    /**
+     * FULL, DIFF or PROJECTION. See {@link io.appform.statesman.model.EventPayloadConfig.Mode}.
+     */
+    String payloadMode;
     JsonNode data;
     JsonNode update;
+    JsonNode patch;
+    /**
+     * Workflow version the transition was applied on, and its hop within that version.
+     */
+    long version;
+    int hop;
+    /**
+     * Version and hop of the payload a DIFF patch applies to. Null for full payloads.
+     */
+    Long baseVersion;
+    Integer baseHop;
     long elapseTime;
     String appliedAction;
 }
@@ -0,0 +1,171 @@
+package io.appform.statesman.engine.events;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.appform.eventingester.client.EventPublisher;
+import io.appform.eventingester.models.Event;
+import io.appform.statesman.model.EventSpoolConfig;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Publishes reporting events without ever failing or blocking the caller.
+ * Events are sent from a small bounded executor, so a slow publisher never holds up a transition. Events that can't
+ * be published right away are appended to the local {@link EventSpool}. While the spool has a backlog, new events are
+ * appended behind it as well, so that reporting sees events in the order they happened; {@link #drain(int)} replays
+ * the spool one batch at a time and is driven by a background drainer. If the spool is disabled or can't be opened,
+ * failed events are logged and dropped.
+ */
+@Slf4j
+@Singleton
+public class SpoolingEventPublisher {
+    private static final TypeReference<List<Event>> EVENT_LIST = new TypeReference<List<Event>>() {};
+
+    private final EventPublisher publisher;
+    private final ObjectMapper mapper;
+    private final ExecutorService executorService;
+    private final EventSpool spool;
+    private final Meter spooled;
+    private final Meter dropped;
+    private final Meter replayed;
+
+    @Inject
+    public SpoolingEventPublisher(
+            @Named("eventPublisher") EventPublisher publisher,
+            EventSpoolConfig config,
+            ObjectMapper mapper,
+            MetricRegistry metricRegistry,
+            @Named("eventPublishExecutor") ExecutorService executorService) {
+        this.publisher = publisher;
+        this.mapper = mapper;
+        this.executorService = executorService;
+        this.spool = openSpool(config);
+        this.spooled = metricRegistry.meter(MetricRegistry.name(SpoolingEventPublisher.class, "spooled"));
+        this.dropped = metricRegistry.meter(MetricRegistry.name(SpoolingEventPublisher.class, "dropped"));
+        this.replayed = metricRegistry.meter(MetricRegistry.name(SpoolingEventPublisher.class, "replayed"));
+        metricRegistry.register(MetricRegistry.name(SpoolingEventPublisher.class, "spool", "pendingBytes"),
+                                (Gauge<Long>) () -> null == spool ? 0 : spool.pendingBytes());
+        metricRegistry.register(MetricRegistry.name(SpoolingEventPublisher.class, "spool", "lagMs"),
+                                (Gauge<Long>) this::lagMs);
+    }
+
+    /**
+     * Hands the events to the publish executor and returns right away. Events go to the spool instead if it has a
+     * backlog, or if the executor is saturated.
+     */
+    public void publish(final List<Event> events) {
+        if (null == events || events.isEmpty()) {
+            return;
+        }
+        if (null != spool && !spool.isEmpty()) {
+            spool(events);
+            return;
+        }
+        try {
+            executorService.execute(() -> send(events));
+        }
+        catch (RejectedExecutionException e) {
+            log.warn("Event publish executor saturated, spooling {} events", events.size());
+            spool(events);
+        }
+    }
+
+    /**
+     * Publishes up to <code>maxRecords</code> spooled records as one batch and consumes them on success.
+     *
+     * @return the number of records replayed
+     * @throws Exception if publishing fails; the records stay in the spool
+     */
+    public int drain(int maxRecords) throws Exception {
+        if (null == spool) {
+            return 0;
+        }
+        val batch = spool.read(maxRecords);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        final List<Event> events = new ArrayList<>();
+        for (byte[] record : batch.getRecords()) {
+            try {
+                events.addAll(mapper.readValue(record, EVENT_LIST));
+            }
+            catch (Exception e) {
+                log.error("Skipping unreadable spool record of {} bytes", record.length, e);
+                dropped.mark();
+            }
+        }
+        if (!events.isEmpty()) {
+            publisher.publish(events);
+        }
+        spool.commit(batch);
+        replayed.mark(events.size());
+        return batch.getRecords().size();
+    }
+
+    public void close() {
+        if (null != spool) {
+            spool.close();
+        }
+    }
+
+    private void send(List<Event> events) {
+        try {
+            publisher.publish(events);
+        }
+        catch (Exception e) {
+            log.warn("Unable to send {} events, spooling them: {}", events.size(), e.getMessage());
+            spool(events);
+        }
+    }
+
+    private void spool(List<Event> events) {
+        if (null == spool) {
+            dropped.mark(events.size());
+            return;
+        }
+        try {
+            if (spool.append(mapper.writeValueAsBytes(events))) {
+                spooled.mark(events.size());
+                return;
+            }
+            log.error("Event spool is full, dropping {} events", events.size());
+        }
+        catch (Exception e) {
+            log.error("Unable to spool " + events.size() + " events, dropping them", e);
+        }
+        dropped.mark(events.size());
+    }
+
+    private long lagMs() {
+        val oldest = null == spool ? 0 : spool.oldestTimestamp();
+        return oldest == 0 ? 0 : System.currentTimeMillis() - oldest;
+    }
+
+    private static EventSpool openSpool(EventSpoolConfig config) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        try {
+            return new EventSpool(Paths.get(config.getDirectory()),
+                                  config.getSegmentSizeMb() << 20,
+                                  config.getMaxSegments());
+        }
+        catch (Exception e) {
+            log.error("Unable to open event spool at " + config.getDirectory()
+                              + ". Events that fail to publish will be dropped", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package io.appform.statesman.engine.events;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.appform.statesman.engine.observer.events.StateTransitionEvent;
+import io.appform.statesman.engine.utils.JsonDiff;
+import io.appform.statesman.model.EventPayloadConfig;
+import lombok.Value;
+import lombok.val;
+
+import javax.inject.Singleton;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shapes the data carried by state change events as per the {@link EventPayloadConfig} of the workflow's template.
+ * Transitions since the last full snapshot, and the data last emitted, are tracked per workflow on this node. Patches
+ * are computed against the data last emitted, not the data the transition started from, so changes that emitted no
+ * event of their own (like a default action merging its response) are carried by the next patch. A workflow this node
+ * hasn't seen recently, or one that has reached a terminal state, gets a full snapshot.
+ * <p>
+ * Every payload is stamped with the workflow version the transition was applied on, and with the hop of the
+ * transition within that version (one update can make several hops). A patch also carries the stamp of the payload it
+ * applies to, so that consumers can tell when they missed one, or got them out of order, and wait for a snapshot.
+ */
+@Singleton
+public class TransitionEventPayloads {
+
+    @Value
+    public static class Payload {
+        EventPayloadConfig.Mode mode;
+        JsonNode data;
+        JsonNode update;
+        JsonNode patch;
+        long version;
+        int hop;
+        /**
+         * Version of the payload the patch applies to. Null for anything but patches.
+         */
+        Long baseVersion;
+        /**
+         * Hop of the payload the patch applies to. Null for anything but patches.
+         */
+        Integer baseHop;
+    }
+
+    /**
+     * Last payload emitted for a workflow. Data nodes are replaced, never mutated, by the engine, so holding on to
+     * the reference is enough.
+     */
+    private static final class Emitted {
+        private int transitionsSinceSnapshot;
+        private JsonNode data;
+        private long version;
+        private int hop;
+    }
+
+    private final Cache<String, Emitted> emitted = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .build();
+
+    public Payload payload(StateTransitionEvent event) {
+        val config = null == event.getTemplate() ? null : event.getTemplate().getEventPayload();
+        val data = event.getWorkflow().getDataObject().getData();
+        val update = null == event.getUpdate() ? null : event.getUpdate().getData();
+        val version = event.getWorkflow().getVersion();
+        if (null == config) {
+            return full(data, update, version, 0);
+        }
+        switch (config.getMode()) {
+            case DIFF:
+                return diff(event, config, data, update);
+            case PROJECTION:
+                return new Payload(EventPayloadConfig.Mode.PROJECTION,
+                                   project(data, config.getFields()),
+                                   project(update, config.getFields()),
+                                   null,
+                                   version,
+                                   0,
+                                   null,
+                                   null);
+            case FULL:
+            default:
+                return full(data, update, version, 0);
+        }
+    }
+
+    private Payload diff(StateTransitionEvent event, EventPayloadConfig config, JsonNode data, JsonNode update) {
+        val workflow = event.getWorkflow();
+        val previousData = event.getPreviousData();
+        val version = workflow.getVersion();
+        val terminal = workflow.getDataObject().getCurrentState().isTerminal();
+        if (terminal) {
+            emitted.invalidate(workflow.getId());
+            return full(data, update, version, 0);
+        }
+        val last = emitted.get(workflow.getId(), id -> new Emitted());
+        synchronized (last) {
+            val lastData = last.data;
+            val baseVersion = last.version;
+            val baseHop = last.hop;
+            last.hop = null != lastData && baseVersion == version ? baseHop + 1 : 0;
+            last.version = version;
+            last.data = data;
+            if (null == previousData
+                    || null == lastData
+                    || ++last.transitionsSinceSnapshot >= config.getSnapshotEvery()) {
+                last.transitionsSinceSnapshot = 0;
+                return full(data, update, version, last.hop);
+            }
+            return new Payload(EventPayloadConfig.Mode.DIFF,
+                               null,
+                               null,
+                               JsonDiff.diff(lastData, data),
+                               version,
+                               last.hop,
+                               baseVersion,
+                               baseHop);
+        }
+    }
+
+    private static Payload full(JsonNode data, JsonNode update, long version, int hop) {
+        return new Payload(EventPayloadConfig.Mode.FULL, data, update, null, version, hop, null, null);
+    }
+
+    private static JsonNode project(JsonNode node, List<String> fields) {
+        if (null == node || !node.isObject()) {
+            return node;
+        }
+        final ObjectNode projection = JsonNodeFactory.instance.objectNode();
+        for (String field : fields) {
+            val pointer = JsonPointer.compile(field.startsWith("/") ? field : "/" + field);
+            val value = node.at(pointer);
+            if (!value.isMissingNode()) {
+                put(projection, pointer, value);
+            }
+        }
+        return projection;
+    }
+
+    private static void put(ObjectNode target, JsonPointer pointer, JsonNode value) {
+        ObjectNode parent = target;
+        JsonPointer current = pointer;
+        while (!current.tail().matches()) {
+            val existing = parent.get(current.getMatchingProperty());
+            parent = null != existing && existing.isObject()
+                     ? (ObjectNode) existing
+                     : parent.putObject(current.getMatchingProperty());
+            current = current.tail();
+        }
+        parent.set(current.getMatchingProperty(), value);
+    }
+}
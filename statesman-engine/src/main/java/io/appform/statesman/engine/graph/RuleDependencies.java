@@ -0,0 +1,59 @@
+package io.appform.statesman.engine.graph;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.google.common.base.Splitter;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.regex.Pattern;
+
+/**
+ * Static extraction of the document paths a HopeLang rule reads.
+ * Paths in rules are quoted literals such as <code>"$.update.Q1"</code> or <code>"/data/language"</code>. Only simple
+ * dotted paths are understood; a rule using wildcards, filters or array indices is reported as not analysable so that
+ * it is always evaluated. So is a rule that calls a function, since a function can read the document in ways the
+ * literals don't show, and a rule that reads no path at all.
+ */
+public final class RuleDependencies {
+    private static final Pattern LITERAL = Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\"|'((?:[^'\\\\]|\\\\.)*)'");
+    private static final Pattern SIMPLE_PATH = Pattern.compile("\\$(\\.[A-Za-z_][A-Za-z0-9_\\-]*)+");
+    private static final Pattern FUNCTION_CALL = Pattern.compile("[A-Za-z_][A-Za-z0-9_.]*\\s*\\(");
+    private static final Pattern SIMPLE_POINTER = Pattern.compile("(/[A-Za-z_][A-Za-z0-9_\\-]*)+");
+    private static final Splitter PATH_SPLITTER = Splitter.on('.').omitEmptyStrings();
+
+    private RuleDependencies() {
+    }
+
+    /**
+     * @return pointers to every node the rule reads, or null if the rule could not be analysed
+     */
+    public static JsonPointer[] extract(String rule) {
+        if (FUNCTION_CALL.matcher(LITERAL.matcher(rule).replaceAll("\"\"")).find()) {
+            return null;
+        }
+        val dependencies = new ArrayList<JsonPointer>();
+        val matcher = LITERAL.matcher(rule);
+        while (matcher.find()) {
+            val literal = null != matcher.group(1) ? matcher.group(1) : matcher.group(2);
+            if (literal.startsWith("$")) {
+                if (!SIMPLE_PATH.matcher(literal).matches()) {
+                    return null;
+                }
+                dependencies.add(JsonPointer.compile(toPointer(literal)));
+            }
+            else if (literal.startsWith("/")) {
+                if (!SIMPLE_POINTER.matcher(literal).matches()) {
+                    return null;
+                }
+                dependencies.add(JsonPointer.compile(literal));
+            }
+        }
+        return dependencies.isEmpty() ? null : dependencies.toArray(new JsonPointer[0]);
+    }
+
+    private static String toPointer(String path) {
+        val pointer = new StringBuilder();
+        PATH_SPLITTER.split(path.substring(1)).forEach(segment -> pointer.append('/').append(segment));
+        return pointer.toString();
+    }
+}
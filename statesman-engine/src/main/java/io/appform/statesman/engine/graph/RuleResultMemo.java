@@ -0,0 +1,73 @@
+package io.appform.statesman.engine.graph;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.val;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Last evaluation result of every rule of a {@link TransitionGraph} for one workflow, along with the values the rule
+ * read at the time. A rule whose inputs are unchanged can reuse its previous result instead of being evaluated again.
+ * Only scalar inputs are remembered, so an entry never holds on to a subtree of the workflow data.
+ */
+public final class RuleResultMemo {
+    private final TransitionGraph graph;
+    private final AtomicReferenceArray<Entry> entries;
+
+    public RuleResultMemo(TransitionGraph graph) {
+        this.graph = graph;
+        this.entries = new AtomicReferenceArray<>(graph.getTransitionCount());
+    }
+
+    public boolean isFor(TransitionGraph graph) {
+        return this.graph == graph;
+    }
+
+    /**
+     * Values the transition's rule depends on, read from the evaluation document.
+     * Returns null if the rule cannot be memoized, or if any of the values is an object or an array.
+     */
+    public static JsonNode[] inputs(TransitionGraph.CompiledTransition transition, JsonNode evalNode) {
+        final JsonPointer[] dependencies = transition.getDependencies();
+        if (null == dependencies) {
+            return null;
+        }
+        val inputs = new JsonNode[dependencies.length];
+        for (int i = 0; i < dependencies.length; i++) {
+            inputs[i] = evalNode.at(dependencies[i]);
+            if (inputs[i].isContainerNode()) {
+                return null;
+            }
+        }
+        return inputs;
+    }
+
+    /**
+     * @return the previous result if the rule was evaluated against the same inputs, null otherwise
+     */
+    public Boolean result(TransitionGraph.CompiledTransition transition, JsonNode[] inputs) {
+        val entry = entries.get(transition.getIndex());
+        if (null == entry || entry.inputs.length != inputs.length) {
+            return null;
+        }
+        for (int i = 0; i < inputs.length; i++) {
+            if (!Objects.equals(entry.inputs[i], inputs[i])) {
+                return null;
+            }
+        }
+        return entry.result;
+    }
+
+    public void record(TransitionGraph.CompiledTransition transition, JsonNode[] inputs, boolean result) {
+        entries.set(transition.getIndex(), new Entry(inputs, result));
+    }
+
+    @AllArgsConstructor
+    private static final class Entry {
+        private final JsonNode[] inputs;
+        private final boolean result;
+    }
+}
@@ -0,0 +1,126 @@
+package io.appform.statesman.engine.graph;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import io.appform.hope.core.Evaluatable;
+import io.appform.hope.lang.HopeLangEngine;
+import io.appform.statesman.model.StateTransition;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, compiled view of all active transitions of a workflow template.
+ * Transitions are grouped by source state in store order, with their rules parsed up front. Every transition gets a
+ * dense index within the graph so that callers can track visited transitions without hashing ids.
+ */
+@Slf4j
+public final class TransitionGraph {
+    private static final CompiledTransition[] NO_TRANSITIONS = new CompiledTransition[0];
+    private static final Node EMPTY_NODE = new Node(NO_TRANSITIONS, NO_TRANSITIONS);
+
+    @Getter
+    private final String workflowTemplateId;
+    @Getter
+    private final int transitionCount;
+    private final Map<String, Node> nodes;
+
+    private TransitionGraph(String workflowTemplateId, int transitionCount, Map<String, Node> nodes) {
+        this.workflowTemplateId = workflowTemplateId;
+        this.transitionCount = transitionCount;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Outgoing transitions for a state. Never null.
+     */
+    public Node node(String state) {
+        return nodes.getOrDefault(state, EMPTY_NODE);
+    }
+
+    public static TransitionGraph compile(
+            String workflowTemplateId,
+            List<StateTransition> transitions,
+            HopeLangEngine hopeLangEngine) {
+        val evaluated = new LinkedHashMap<String, List<CompiledTransition>>();
+        val defaults = new LinkedHashMap<String, List<CompiledTransition>>();
+        int index = 0;
+        for (val transition : transitions) {
+            if (!transition.isActive()) {
+                continue;
+            }
+            if (transition.getType() == StateTransition.Type.DEFAULT) {
+                defaults.computeIfAbsent(transition.getFromState(), state -> new ArrayList<>())
+                        .add(new CompiledTransition(index++, transition, null, null));
+                continue;
+            }
+            val rule = parse(workflowTemplateId, transition, hopeLangEngine);
+            if (null != rule) {
+                evaluated.computeIfAbsent(transition.getFromState(), state -> new ArrayList<>())
+                        .add(new CompiledTransition(index++,
+                                                    transition,
+                                                    rule,
+                                                    RuleDependencies.extract(transition.getRule())));
+            }
+        }
+        val nodes = ImmutableMap.<String, Node>builder();
+        val states = new ArrayList<String>(evaluated.keySet());
+        defaults.keySet().stream().filter(state -> !evaluated.containsKey(state)).forEach(states::add);
+        for (val state : states) {
+            nodes.put(state, new Node(toArray(evaluated.get(state)), toArray(defaults.get(state))));
+        }
+        return new TransitionGraph(workflowTemplateId, index, nodes.build());
+    }
+
+    private static Evaluatable parse(
+            String workflowTemplateId,
+            StateTransition transition,
+            HopeLangEngine hopeLangEngine) {
+        if (Strings.isNullOrEmpty(transition.getRule())) {
+            log.warn("Ignoring transition {} of template {} as it has no rule",
+                     transition.getId(), workflowTemplateId);
+            return null;
+        }
+        try {
+            return hopeLangEngine.parse(transition.getRule());
+        }
+        catch (Exception e) {
+            log.error("Ignoring transition " + transition.getId() + " of template " + workflowTemplateId
+                              + " as rule could not be parsed: " + transition.getRule(), e);
+            return null;
+        }
+    }
+
+    private static CompiledTransition[] toArray(List<CompiledTransition> transitions) {
+        return null == transitions ? NO_TRANSITIONS : transitions.toArray(NO_TRANSITIONS);
+    }
+
+    /**
+     * Outgoing transitions of a state, in the order they are to be tried.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Node {
+        private final CompiledTransition[] evaluated;
+        private final CompiledTransition[] defaults;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class CompiledTransition {
+        private final int index;
+        private final StateTransition transition;
+        private final Evaluatable rule;
+        /**
+         * Nodes the rule reads from the evaluation document. Null if unknown.
+         */
+        private final JsonPointer[] dependencies;
+    }
+}
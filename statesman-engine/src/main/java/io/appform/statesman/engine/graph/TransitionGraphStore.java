@@ -0,0 +1,59 @@
+package io.appform.statesman.engine.graph;
+
+import io.appform.hope.core.exceptions.errorstrategy.InjectValueErrorHandlingStrategy;
+import io.appform.hope.lang.HopeLangEngine;
+import io.appform.statesman.engine.TransitionStore;
+import io.appform.statesman.model.StateTransition;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the compiled {@link TransitionGraph} of every workflow template in use.
+ * Graphs are compiled by {@link #rebuild(Map)} while a config snapshot is loaded, and swapped in whole, so readers
+ * always see a consistent set of graphs and never compile on the request path. A template that isn't part of the
+ * last rebuild is compiled on first use.
+ */
+@Singleton
+@Slf4j
+public class TransitionGraphStore {
+    private final Provider<TransitionStore> transitionStore;
+    private final HopeLangEngine hopeLangEngine = HopeLangEngine.builder()
+            .errorHandlingStrategy(new InjectValueErrorHandlingStrategy())
+            .build();
+    private volatile ConcurrentHashMap<String, TransitionGraph> graphs = new ConcurrentHashMap<>();
+
+    @Inject
+    public TransitionGraphStore(Provider<TransitionStore> transitionStore) {
+        this.transitionStore = transitionStore;
+    }
+
+    public TransitionGraph get(String workflowTemplateId) {
+        return graphs.computeIfAbsent(workflowTemplateId,
+                                      id -> compile(id, transitionStore.get().getAllTransitions(id)));
+    }
+
+    /**
+     * Compiles the graphs of all the given templates and replaces the current set with them in one go.
+     */
+    public void rebuild(Map<String, List<StateTransition>> transitionsByTemplate) {
+        final ConcurrentHashMap<String, TransitionGraph> compiled = new ConcurrentHashMap<>();
+        transitionsByTemplate.forEach((templateId, transitions) -> compiled.put(templateId,
+                                                                                compile(templateId, transitions)));
+        this.graphs = compiled;
+        log.info("Rebuilt transition graphs for {} templates", compiled.size());
+    }
+
+    private TransitionGraph compile(String workflowTemplateId, List<StateTransition> transitions) {
+        log.debug("Compiling transition graph for template: {}", workflowTemplateId);
+        return TransitionGraph.compile(workflowTemplateId,
+                                       null == transitions ? Collections.<StateTransition>emptyList() : transitions,
+                                       hopeLangEngine);
+    }
+}
@@ -1,16 +1,17 @@
 package io.appform.statesman.engine.handlebars;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.NullNode;
 import com.fasterxml.jackson.databind.node.TextNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.jknack.handlebars.Handlebars;
 import com.github.jknack.handlebars.Helper;
 import com.github.jknack.handlebars.Options;
 import com.github.jknack.handlebars.internal.lang3.math.NumberUtils;
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Strings;
-import com.google.common.collect.Maps;
 import io.appform.statesman.engine.utils.DateUtils;
 import io.appform.statesman.engine.utils.StringUtils;
 import io.appform.statesman.model.exception.ResponseCode;
@@ -33,6 +34,7 @@ import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -43,16 +45,38 @@ import java.util.stream.StreamSupport;
 public class HandleBarsHelperRegistry {
 
     private static final String DEFAULT_TIME_ZONE = "IST";
-    private static final DecimalFormat decimalFormat = new DecimalFormat("######.##");
+    private static final String DEFAULT_DECIMAL_FORMAT = "######.##";
+    private static final int MAX_DECIMAL_FORMATS_PER_THREAD = 64;
     private static final ObjectMapper MAPPER = Jackson.newObjectMapper();
     private static final String EMPTY_STRING = "";
     private static final String POINTER = "pointer";
-    private static final SimpleDateFormat SIMPLE_DATE_FORMAT = new SimpleDateFormat("dd-MM-yyyy");
+    private static final String EMPTY_ARRAY_JSON = "[]";
+    private static final int MAX_OPTION_TABLES = 10_000;
+    private static final DateTimeFormatter INC_DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MMM d, yyyy");
+    private static final CharMatcher DIGITS = CharMatcher.inRange('0', '9');
     private static final Hex hex = new Hex();
 
+    //DecimalFormat is not thread safe, so every thread keeps its own instance per pattern
+    private static final ThreadLocal<Map<String, DecimalFormat>> DECIMAL_FORMATS = ThreadLocal.withInitial(
+            () -> new LinkedHashMap<String, DecimalFormat>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, DecimalFormat> eldest) {
+                    return size() > MAX_DECIMAL_FORMATS_PER_THREAD;
+                }
+            });
+
     private final Handlebars handlebars;
     private final Clock clock;
 
+    //Lookup helper options by call site. Handlebars doesn't expose the call site itself, but the option names handed
+    //to a helper are the instances held by the compiled template, so the first name stands in for it. Weak keys
+    //compare by identity and go away with the template.
+    private final Cache<String, HelperOptionTable> optionTables = Caffeine.newBuilder()
+            .weakKeys()
+            .maximumSize(MAX_OPTION_TABLES)
+            .build();
+
     private HandleBarsHelperRegistry(Handlebars handlebars, Clock clock) {
         this.handlebars = handlebars;
         this.clock = clock;
@@ -288,7 +312,7 @@ public class HandleBarsHelperRegistry {
                 if (null == options.params || options.params.length < 1) {
                     return 0;
                 }
-                SimpleDateFormat sdf = new SimpleDateFormat(dateFormat);
+                SimpleDateFormat sdf = DateUtils.dateFormat(dateFormat, TimeZone.getDefault());
                 val fromData = options.param(0);
                 Date fromDate = null;
                 if (fromData instanceof String) {
@@ -393,8 +417,7 @@ public class HandleBarsHelperRegistry {
     }
 
     private long getEpochTimestamp(String date, String dateFormat, String timeZone) {
-        SimpleDateFormat sdf = new SimpleDateFormat(dateFormat);
-        sdf.setTimeZone(TimeZone.getTimeZone(timeZone));
+        SimpleDateFormat sdf = DateUtils.dateFormat(dateFormat, DateUtils.timeZone(timeZone));
         try {
             return sdf.parse(date).getTime();
         } catch (ParseException e) {
@@ -492,12 +515,11 @@ public class HandleBarsHelperRegistry {
         handlebars.registerHelper("dateFormat", (Long context, Options options) -> {
             try {
                 if (null != context) {
-                    SimpleDateFormat sdf = new SimpleDateFormat(options.param(0));
                     String timeZone =
                             options.params.length < 2
                             ? DEFAULT_TIME_ZONE
                             : options.param(1);
-                    sdf.setTimeZone(TimeZone.getTimeZone(timeZone));
+                    SimpleDateFormat sdf = DateUtils.dateFormat(options.param(0), DateUtils.timeZone(timeZone));
                     return sdf.format(context);
                 }
             }
@@ -563,33 +585,32 @@ public class HandleBarsHelperRegistry {
 
     private void registerDate() {
         handlebars.registerHelper("date", (Long context, Options options) -> {
-            SimpleDateFormat sdf = new SimpleDateFormat("MMM d, yyyy");
             try {
                 if (null != context) {
-                    return sdf.format(new Date(context));
+                    return DATE_FORMAT.format(Instant.ofEpochMilli(context).atZone(ZoneId.systemDefault()));
                 }
             }
             catch (Exception e) {
                 log.error("Error converting date", e);
             }
-            return sdf.format(new Date());
+            return DATE_FORMAT.format(ZonedDateTime.now(ZoneId.systemDefault()));
         });
     }
 
     private void registerIncDate() {
         handlebars.registerHelper("incDate", (Integer context, Options options) -> {
             val amountToAdd = context != null ? context : 1;
-            return SIMPLE_DATE_FORMAT.format(Date.from(Instant.now().plus(amountToAdd, ChronoUnit.DAYS)).getTime());
+            return INC_DATE_FORMAT.format(Instant.now().plus(amountToAdd, ChronoUnit.DAYS).atZone(ZoneId.systemDefault()));
         });
     }
 
     private void registerDecimalFormat() {
         handlebars.registerHelper("decimalFormat", (Number aNumber, Options options) -> {
-            DecimalFormat decimalFormatReqd =
+            String pattern =
                     (options.params.length > 0 && !Strings.isNullOrEmpty(options.param(0)))
-                    ? new DecimalFormat(options.param(0))
-                    : decimalFormat;
-            return decimalFormatReqd.format(aNumber.doubleValue());
+                    ? options.param(0)
+                    : DEFAULT_DECIMAL_FORMAT;
+            return decimalFormat(pattern).format(aNumber.doubleValue());
         });
     }
 
@@ -616,7 +637,7 @@ public class HandleBarsHelperRegistry {
             if (aNumber instanceof Double) {
                 value = aNumber.doubleValue();
             }
-            return decimalFormat.format(value / 100.0);
+            return decimalFormat(DEFAULT_DECIMAL_FORMAT).format(value / 100.0);
         });
     }
 
@@ -624,25 +645,25 @@ public class HandleBarsHelperRegistry {
         handlebars.registerHelper("map_lookup", new Helper<JsonNode>() {
             @Override
             public CharSequence apply(JsonNode node, Options options) throws IOException {
-                final String key = options.hash(POINTER);
-                final int lastIndex = lastIndex(options);
+                val table = optionTable(options);
+                final String key = table.value(POINTER);
+                final int lastIndex = table.lastIndex();
                 int value = lastIndex;
                 if (!Strings.isNullOrEmpty(key)) {
-                    value = readString(node, key, lastIndex);
+                    value = readString(table.at(node, POINTER), lastIndex);
                 }
-                return singleElement(options, value);
-            }
-
-            private CharSequence singleElement(Options options, int value) throws JsonProcessingException {
-                return MAPPER.writeValueAsString(options.hash("op_" + value));
+                return table.indexedJson(value, MAPPER);
             }
 
         });
     }
 
     private int readString(JsonNode node, String key, int lastIndex) {
+        return readString(node.at(key), lastIndex);
+    }
+
+    private int readString(JsonNode keyNode, int lastIndex) {
         int value = lastIndex;
-        val keyNode = node.at(key);
         if (keyNode.isTextual()) {
             value = extractOptionValue(keyNode, lastIndex);
         }
@@ -656,15 +677,16 @@ public class HandleBarsHelperRegistry {
         handlebars.registerHelper("map_lookup_arr", new Helper<JsonNode>() {
             @Override
             public CharSequence apply(JsonNode node, Options options) throws IOException {
-                final String key = options.hash(POINTER);
-                final int lastIndex = lastIndex(options);
+                val table = optionTable(options);
+                final String key = table.value(POINTER);
+                final int lastIndex = table.lastIndex();
                 List<Integer> indices = new ArrayList<>();
                 if (Strings.isNullOrEmpty(key)) {
                     log.warn("Invalid json node. Defaulting to array of last index: {} for empty key", lastIndex);
                     indices.add(lastIndex);
                 }
                 else {
-                    val keyNode = node.at(key);
+                    val keyNode = table.at(node, POINTER);
                     if (!keyNode.isArray()) {
                         readNode(lastIndex, indices, keyNode);
                     }
@@ -674,12 +696,18 @@ public class HandleBarsHelperRegistry {
                                 .forEach(childNode -> readNode(lastIndex, indices, childNode));
                     }
                 }                //Array of options
-                return MAPPER.writeValueAsString(
-                        indices.stream()
-                                .map(i -> options.hash("op_" + i))
-                                .filter(Objects::nonNull)
-                                .distinct()
-                                .collect(Collectors.toList()));
+                val selected = new LinkedHashMap<Object, Integer>();
+                indices.forEach(i -> {
+                    final Object value = table.indexed(i);
+                    if (null != value) {
+                        selected.putIfAbsent(value, i);
+                    }
+                });
+                val json = new StringJoiner(",", "[", "]");
+                for (int index : selected.values()) {
+                    json.add(table.indexedJson(index, MAPPER));
+                }
+                return json.toString();
             }
 
             private void readNode(int lastIndex, List<Integer> indices, JsonNode keyNode) {
@@ -722,35 +750,31 @@ public class HandleBarsHelperRegistry {
             @Override
             public CharSequence apply(JsonNode node, Options options) throws IOException {
 
-                final String key = options.hash("array");
-                if (Strings.isNullOrEmpty(key)) {
+                val table = optionTable(options);
+                String[] res = table.csv("array");
+                if (null == res) {
                     return empty();
                 }
-
-                String[] res = key.split(",");
                 if (res.length == 1) {
                     return res[0];
                 }
 
-                final String key1 = options.hash("key1");
-                val key1Data = node.at(key1);
+                val key1Data = table.at(node, "key1");
                 if (null == key1Data || key1Data.isNull() || !key1Data.isTextual()) {
                     return res[0];
                 }
                 String key1String = key1Data.asText();
 
-                final String key2 = options.hash("key2");
-                val key2Value = node.at(key2);
+                val key2Value = table.at(node, "key2");
                 if (null == key2Value || key2Value.isNull()) {
                     return res[0];
                 }
 
-                final String arrayOrderCsv = options.hash("op_" + key1String);
-                if ( null == arrayOrderCsv || arrayOrderCsv.isEmpty() ) {
+                String[] arrayOrder = table.csv("op_" + key1String);
+                if (null == arrayOrder) {
                     return res[0];
                 }
 
-                String[] arrayOrder = arrayOrderCsv.split(",");
                 if (key2Value.asInt() > 0 && key2Value.asInt() <= arrayOrder.length) {
                     String arrayLookupIndexStr = arrayOrder[key2Value.asInt() - 1];
                     int arrayLookupIndex = Integer.parseInt(arrayLookupIndexStr);
@@ -779,36 +803,25 @@ public class HandleBarsHelperRegistry {
             @Override
             public CharSequence apply(JsonNode node, Options options) throws IOException {
 
-                String defFeched = options.hash("default");
+                val table = optionTable(options);
+                String defFeched = table.value("default");
                 final String defaultValue = ( null == defFeched || defFeched.isEmpty() ) ? EMPTY_STRING
                     : defFeched;
 
-                final String key1 = options.hash("key1");
+                final String key1 = table.value("key1");
                 if ( null == key1 || key1.isEmpty() ) return defaultValue;
-                val key1Data = node.at(key1);
+                val key1Data = table.at(node, "key1");
                 if (null == key1Data || key1Data.isNull() || !key1Data.isTextual()) return defaultValue;
                 String key1String = normalizedKey(key1Data.asText());
 
-                final String key2 = options.hash("key2");
+                final String key2 = table.value("key2");
                 if ( null == key2 || key2.isEmpty() ) return defaultValue;
-                val key2Data = node.at(key2);
+                val key2Data = table.at(node, "key2");
                 if (null == key2Data || key2Data.isNull() ) return defaultValue;
                 String key2String = key2Data.asText();
 
-                Map<String,String> kvMap = Maps.newHashMap();
-                {
-                    final String kvPairs = options.hash(key1String);
-                    if (null == kvPairs || kvPairs.isEmpty()) return defaultValue;
-
-                    String[] pairs = kvPairs.split(",");
-
-                    for (String pair : pairs) {
-                        String[] tuple = pair.split(":");
-                        if (tuple.length == 2) {
-                            kvMap.put(tuple[0], tuple[1]);
-                        }
-                    }
-                }
+                val kvMap = table.pairs(key1String);
+                if (null == kvMap) return defaultValue;
 
                 if ( kvMap.containsKey(key2String) ) {
                     return kvMap.get(key2String);
@@ -824,11 +837,12 @@ public class HandleBarsHelperRegistry {
             @Override
             public CharSequence apply(JsonNode node, Options options) throws IOException {
 
-                final String key = options.hash(POINTER);
+                val table = optionTable(options);
+                final String key = table.value(POINTER);
                 if (Strings.isNullOrEmpty(key)) {
                     return empty();
                 }
-                val dataNode = node.at(key);
+                val dataNode = table.at(node, POINTER);
                 if (null == dataNode || dataNode.isNull() || dataNode.isMissingNode() || !dataNode.isValueNode()) {
                     return empty();
                 }
@@ -836,15 +850,15 @@ public class HandleBarsHelperRegistry {
                 if (Strings.isNullOrEmpty(lookupKey)) {
                     return empty();
                 }
-                val lookupValue = options.hash(normalizedKey(lookupKey));
-                if (null == lookupValue) {
+                val lookupName = normalizedKey(lookupKey);
+                if (null == table.value(lookupName)) {
                     return empty();
                 }
-                return MAPPER.writeValueAsString(lookupValue);
+                return table.json(lookupName, MAPPER);
             }
 
-            private CharSequence empty() throws JsonProcessingException {
-                return MAPPER.writeValueAsString(NullNode.getInstance());
+            private CharSequence empty() {
+                return HelperOptionTable.NULL_JSON;
             }
         });
     }
@@ -854,11 +868,12 @@ public class HandleBarsHelperRegistry {
             @Override
             public CharSequence apply(JsonNode node, Options options) throws IOException {
 
-                final String key = options.hash(POINTER);
+                val table = optionTable(options);
+                final String key = table.value(POINTER);
                 if (Strings.isNullOrEmpty(key)) {
                     return empty();
                 }
-                val dataNode = node.at(key);
+                val dataNode = table.at(node, POINTER);
                 if (null == dataNode || dataNode.isNull() || dataNode.isMissingNode()
                         || (!dataNode.isValueNode() && !dataNode.isArray())) {
                     return empty();
@@ -880,19 +895,15 @@ public class HandleBarsHelperRegistry {
                                               .collect(Collectors.toList()));
 
                 }
-                return MAPPER.writeValueAsString(lookupKeys.stream()
-                                                         .map(lookupKey -> {
-                                                             val value = options.hash(normalizedKey(lookupKey));
-                                                             return null == value
-                                                                    ? NullNode.getInstance()
-                                                                    : value;
-                                                         })
-                                                         .filter(Objects::nonNull)
-                                                         .collect(Collectors.toList()));
+                val json = new StringJoiner(",", "[", "]");
+                for (String lookupKey : lookupKeys) {
+                    json.add(table.json(normalizedKey(lookupKey), MAPPER));
+                }
+                return json.toString();
             }
 
-            private CharSequence empty() throws JsonProcessingException {
-                return MAPPER.writeValueAsString(MAPPER.createArrayNode());
+            private CharSequence empty() {
+                return EMPTY_ARRAY_JSON;
             }
         });
     }
@@ -902,11 +913,12 @@ public class HandleBarsHelperRegistry {
             @Override
             public CharSequence apply(JsonNode node, Options options) throws IOException {
 
-                final String key = options.hash(POINTER);
+                val table = optionTable(options);
+                final String key = table.value(POINTER);
                 if (Strings.isNullOrEmpty(key)) {
                     return empty();
                 }
-                val dataNode = node.at(key);
+                val dataNode = table.at(node, POINTER);
                 if (null == dataNode || dataNode.isNull() || dataNode.isMissingNode() || !dataNode.isValueNode()) {
                     return empty();
                 }
@@ -914,7 +926,7 @@ public class HandleBarsHelperRegistry {
                 if (Strings.isNullOrEmpty(lookupKey)) {
                     return empty();
                 }
-                val lookupValue = options.hash(normalizedKey(lookupKey));
+                final Object lookupValue = table.value(normalizedKey(lookupKey));
                 if (null == lookupValue) {
                     return empty();
                 }
@@ -932,11 +944,12 @@ public class HandleBarsHelperRegistry {
             @Override
             public CharSequence apply(JsonNode node, Options options) throws IOException {
 
-                final String key = options.hash(POINTER);
+                val table = optionTable(options);
+                final String key = table.value(POINTER);
                 if (Strings.isNullOrEmpty(key)) {
                     return empty();
                 }
-                val dataNode = node.at(key);
+                val dataNode = table.at(node, POINTER);
                 if (null == dataNode || dataNode.isNull() || dataNode.isMissingNode()
                         || (!dataNode.isValueNode() && !dataNode.isArray())) {
                     return empty();
@@ -960,7 +973,7 @@ public class HandleBarsHelperRegistry {
                 }
                 return lookupKeys.stream()
                         .map(lookupKey -> {
-                            val value = options.hash(normalizedKey(lookupKey));
+                            final Object value = table.value(normalizedKey(lookupKey));
                             return null == value
                                    ? null
                                    : value.toString();
@@ -1148,11 +1161,12 @@ public class HandleBarsHelperRegistry {
             @Override
             public CharSequence apply(String tz, Options options) throws IOException {
                 ZonedDateTime now = ZonedDateTime.now(ZoneId.of(tz));
-                return MAPPER.writeValueAsString(MAPPER.createObjectNode()
-                                                         .set("localTime", MAPPER.createObjectNode()
-                                                                 .put("hour", now.getHour())
-                                                                 .put("minutes", now.getMinute())
-                                                                 .put("seconds", now.getSecond())));
+                return new StringBuilder(48)
+                        .append("{\"localTime\":{\"hour\":").append(now.getHour())
+                        .append(",\"minutes\":").append(now.getMinute())
+                        .append(",\"seconds\":").append(now.getSecond())
+                        .append("}}")
+                        .toString();
             }
         });
     }
@@ -1221,7 +1235,41 @@ public class HandleBarsHelperRegistry {
     }
 
     private String numericStr(String context) {
-        return context.replaceAll("[^\\p{Digit}]", EMPTY_STRING);
+        return DIGITS.retainFrom(context);
+    }
+
+    private static DecimalFormat decimalFormat(String pattern) {
+        val formats = DECIMAL_FORMATS.get();
+        DecimalFormat format = formats.get(pattern);
+        if (null == format) {
+            format = new DecimalFormat(pattern);
+            formats.put(pattern, format);
+        }
+        return format;
+    }
+
+    /**
+     * Option table of the helper call site. Built once if all options are literals, which Handlebars hands over as
+     * the same instances on every call. A call site that passes a value resolved from the context gets a fresh table
+     * on every call instead.
+     */
+    private HelperOptionTable optionTable(Options options) {
+        if (options.hash.isEmpty()) {
+            return HelperOptionTable.EMPTY;
+        }
+        val callSite = options.hash.keySet().iterator().next();
+        val table = optionTables.getIfPresent(callSite);
+        if (null != table && table.isFor(options.hash)) {
+            return table;
+        }
+        val built = HelperOptionTable.of(options.hash, MAPPER);
+        if (null == table) {
+            optionTables.put(callSite, built);
+        }
+        else if (table != HelperOptionTable.NOT_LITERAL) {
+            optionTables.put(callSite, HelperOptionTable.NOT_LITERAL);
+        }
+        return built;
     }
 
     private int lastIndex(Options options) {
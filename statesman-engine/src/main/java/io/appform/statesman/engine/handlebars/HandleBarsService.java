@@ -1,23 +1,37 @@
 package io.appform.statesman.engine.handlebars;
 
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.jknack.handlebars.*;
 import com.github.jknack.handlebars.context.FieldValueResolver;
 import com.github.jknack.handlebars.context.JavaBeanValueResolver;
 import com.github.jknack.handlebars.context.MapValueResolver;
 import com.github.jknack.handlebars.context.MethodValueResolver;
 import com.google.common.base.Strings;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import io.appform.statesman.engine.utils.DateUtils;
+import io.appform.statesman.engine.utils.MetricsStatsCounter;
 import io.appform.statesman.model.exception.ResponseCode;
 import io.appform.statesman.model.exception.StatesmanError;
 import lombok.extern.slf4j.Slf4j;
+import lombok.val;
 import org.apache.commons.codec.binary.Hex;
 
 import javax.annotation.Nullable;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Clock;
 import java.time.ZoneId;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Singleton
@@ -31,8 +45,16 @@ public class HandleBarsService {
             MethodValueResolver.INSTANCE
     };
 
+    //Total template text, in chars, kept compiled
+    private static final long MAX_CACHED_TEMPLATE_CHARS = 16L * 1024 * 1024;
+    private static final HashFunction TEMPLATE_HASH = Hashing.murmur3_128();
+    //Render buffers larger than this are not kept around for reuse
+    private static final int MAX_RETAINED_BUFFER_CHARS = 64 * 1024;
+    private static final ThreadLocal<RenderBuffer> RENDER_BUFFER = ThreadLocal.withInitial(RenderBuffer::new);
+
     private Handlebars handlebars;
-    private Map<String, Template> compiledTemplates;
+    private Cache<HashCode, Template> compiledTemplates;
+    private final ObjectMapper mapper;
 
 
     public HandleBarsService() {
@@ -40,9 +62,32 @@ public class HandleBarsService {
     }
 
     public HandleBarsService(Clock clock) {
+        this(clock, new MetricRegistry());
+    }
+
+    public HandleBarsService(MetricRegistry metricRegistry) {
+        this(Clock.system(ZoneId.of(DateUtils.getLocalZone())), metricRegistry);
+    }
+
+    @Inject
+    public HandleBarsService(ObjectMapper mapper, MetricRegistry metricRegistry) {
+        this(Clock.system(ZoneId.of(DateUtils.getLocalZone())), mapper, metricRegistry);
+    }
+
+    public HandleBarsService(Clock clock, MetricRegistry metricRegistry) {
+        this(clock, new ObjectMapper(), metricRegistry);
+    }
+
+    public HandleBarsService(Clock clock, ObjectMapper mapper, MetricRegistry metricRegistry) {
+        this.mapper = mapper;
         handlebars = new Handlebars();
         registerHelpers(handlebars, clock);
-        compiledTemplates = new ConcurrentHashMap<>();
+        compiledTemplates = Caffeine.newBuilder()
+                .maximumWeight(MAX_CACHED_TEMPLATE_CHARS)
+                .weigher((HashCode key, Template template) -> template.text().length())
+                .recordStats(() -> new MetricsStatsCounter(metricRegistry,
+                                                           MetricRegistry.name(HandleBarsService.class, "templates")))
+                .build();
     }
 
     @Nullable
@@ -51,10 +96,7 @@ public class HandleBarsService {
             if(Strings.isNullOrEmpty(template)) {
                 return null;
             }
-            if (!compiledTemplates.containsKey(template)) {
-                addTemplate(template);
-            }
-            return compiledTemplates.get(template).apply(Context.newBuilder(data)
+            return compiled(template).apply(Context.newBuilder(data)
                     .resolver(NOTIFY_VALUE_RESOLVERS)
                     .build());
         } catch (Exception e) {
@@ -67,10 +109,7 @@ public class HandleBarsService {
             if(Strings.isNullOrEmpty(template)) {
                 return null;
             }
-            if (!compiledTemplates.containsKey(template)) {
-                addTemplate(template);
-            }
-            return compiledTemplates.get(template).apply(Context.newBuilder(data)
+            return compiled(template).apply(Context.newBuilder(data)
                     .resolver(resolver)
                     .build());
         } catch (Exception e) {
@@ -78,13 +117,97 @@ public class HandleBarsService {
         }
     }
 
+    /**
+     * Renders a template that produces JSON and returns the parsed tree.
+     * The output is rendered into a per-thread buffer and parsed from there, skipping the intermediate String.
+     * Returns null for an empty template and {@link MissingNode} if the template renders nothing. Rendering errors
+     * are thrown as {@link StatesmanError}, unparseable output as {@link IOException}, as a render followed by
+     * {@link ObjectMapper#readTree(String)} would.
+     */
+    @Nullable
+    public JsonNode transformToNode(String template, Object data) throws IOException {
+        return transformToNode(NOTIFY_VALUE_RESOLVERS, template, data);
+    }
+
+    @Nullable
+    public JsonNode transformToNode(ValueResolver resolver, String template, Object data) throws IOException {
+        return transformToNode(new ValueResolver[]{resolver}, template, data);
+    }
+
+    private JsonNode transformToNode(ValueResolver[] resolvers, String template, Object data) throws IOException {
+        if (Strings.isNullOrEmpty(template)) {
+            return null;
+        }
+        val buffer = RENDER_BUFFER.get();
+        //Nested render on the same thread, don't clobber the outer buffer
+        val output = buffer.inUse ? new RenderBuffer() : buffer;
+        output.inUse = true;
+        try {
+            try {
+                compiled(template).apply(Context.newBuilder(data)
+                                                 .resolver(resolvers)
+                                                 .build(), output);
+            } catch (Exception e) {
+                throw StatesmanError.propagate(e, ResponseCode.TRANSFORMATION_ERROR);
+            }
+            if (output.size() == 0) {
+                return MissingNode.getInstance();
+            }
+            try (final JsonParser parser = mapper.getFactory().createParser(output.chars(), 0, output.size())) {
+                final JsonNode node = mapper.readTree(parser);
+                return null == node ? MissingNode.getInstance() : node;
+            }
+        } finally {
+            output.release();
+        }
+    }
+
+    /**
+     * Compiles and caches the template without applying it.
+     */
+    public void precompile(String template) {
+        try {
+            if (!Strings.isNullOrEmpty(template)) {
+                compiled(template);
+            }
+        } catch (Exception e) {
+            throw StatesmanError.propagate(e, ResponseCode.TRANSFORMATION_ERROR);
+        }
+    }
+
     private void registerHelpers(Handlebars handlebars, Clock clock) {
         HandleBarsHelperRegistry.newInstance(handlebars, clock).register();
     }
 
-    private synchronized void addTemplate(String template) throws Exception {
-        if (!compiledTemplates.containsKey(template)) {
-            compiledTemplates.put(template, handlebars.compileInline(template));
+    //Keyed on a 128 bit hash so that the cache does not hold on to a second copy of every template text.
+    //Compilation happens at most once per key, without blocking compilation of other templates.
+    private Template compiled(String template) {
+        return compiledTemplates.get(TEMPLATE_HASH.hashString(template, StandardCharsets.UTF_8), key -> {
+            try {
+                return handlebars.compileInline(template);
+            } catch (Exception e) {
+                throw StatesmanError.propagate(e, ResponseCode.TRANSFORMATION_ERROR);
+            }
+        });
+    }
+
+    private static final class RenderBuffer extends CharArrayWriter {
+        private boolean inUse;
+
+        private RenderBuffer() {
+            super(1024);
+        }
+
+        private char[] chars() {
+            return buf;
+        }
+
+        private void release() {
+            inUse = false;
+            reset();
+            if (buf.length > MAX_RETAINED_BUFFER_CHARS) {
+                buf = new char[1024];
+            }
         }
     }
-}
\ No newline at end of file
+}
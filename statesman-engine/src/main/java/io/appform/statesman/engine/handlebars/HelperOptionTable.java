@@ -0,0 +1,168 @@
+package io.appform.statesman.engine.handlebars;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Strings;
+import lombok.val;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable view of the hash options of a lookup helper call site (map_lookup, translate etc).
+ * Handlebars hands the options over as a fresh map on every call, but for a given template the literals never change.
+ * The table parses pointers, indexes the <code>op_N</code> options and serializes every option value once, so that a
+ * helper call only resolves its pointer against the payload and reads the prepared output.
+ * Split forms of csv and <code>key:value</code> options are derived lazily, as only some helpers use them.
+ */
+final class HelperOptionTable {
+    static final String NULL_JSON = "null";
+    static final HelperOptionTable EMPTY = of(Collections.emptyMap(), null);
+    //Marks a call site whose options change between calls, it never matches any options
+    static final HelperOptionTable NOT_LITERAL = of(Collections.emptyMap(), null);
+
+    private static final String OPTION_PREFIX = "op_";
+
+    private final Map<String, Object> values;
+    private final Map<String, String> json;
+    private final Map<String, JsonPointer> pointers;
+    private final Object[] indexed;
+    private final ConcurrentHashMap<String, String[]> csvs = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Map<String, String>> pairs = new ConcurrentHashMap<>();
+
+    private HelperOptionTable(
+            Map<String, Object> values,
+            Map<String, String> json,
+            Map<String, JsonPointer> pointers,
+            Object[] indexed) {
+        this.values = values;
+        this.json = json;
+        this.pointers = pointers;
+        this.indexed = indexed;
+    }
+
+    static HelperOptionTable of(Map<String, Object> options, ObjectMapper mapper) {
+        val values = new HashMap<String, Object>(options.size() * 2);
+        val json = new HashMap<String, String>(options.size() * 2);
+        val pointers = new HashMap<String, JsonPointer>();
+        options.forEach((name, value) -> {
+            values.put(name, value);
+            try {
+                json.put(name, null == value ? NULL_JSON : mapper.writeValueAsString(value));
+            }
+            catch (JsonProcessingException e) {
+                //Left out, serialized again (and failed) only if the helper actually picks this value
+            }
+            if (value instanceof String) {
+                try {
+                    pointers.put(name, JsonPointer.compile((String) value));
+                }
+                catch (IllegalArgumentException e) {
+                    //Not a pointer
+                }
+            }
+        });
+        //op_N options are looked up by computed index; the helpers treat the option count as the index bound
+        val indexed = new Object[options.size()];
+        for (int i = 0; i < indexed.length; i++) {
+            indexed[i] = values.get(OPTION_PREFIX + i);
+        }
+        return new HelperOptionTable(Collections.unmodifiableMap(values),
+                                     Collections.unmodifiableMap(json),
+                                     Collections.unmodifiableMap(pointers),
+                                     indexed);
+    }
+
+    /**
+     * Whether the table was built from these very option values. Literal options are the same instances on every
+     * call from a call site, so this is an identity check and never compares contents.
+     */
+    boolean isFor(Map<String, Object> options) {
+        if (this == NOT_LITERAL || options.size() != values.size()) {
+            return false;
+        }
+        for (Map.Entry<String, Object> option : options.entrySet()) {
+            if (values.get(option.getKey()) != option.getValue() || !values.containsKey(option.getKey())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int lastIndex() {
+        return indexed.length - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T value(String name) {
+        return (T) values.get(name);
+    }
+
+    /**
+     * Value of the <code>op_index</code> option, or null if there is none.
+     */
+    Object indexed(int index) {
+        return index >= 0 && index < indexed.length
+               ? indexed[index]
+               : null;
+    }
+
+    /**
+     * Serialized value of the named option. {@link #NULL_JSON} if the option is missing.
+     */
+    String json(String name, ObjectMapper mapper) throws JsonProcessingException {
+        val serialized = json.get(name);
+        if (null != serialized) {
+            return serialized;
+        }
+        val value = values.get(name);
+        return null == value ? NULL_JSON : mapper.writeValueAsString(value);
+    }
+
+    String indexedJson(int index, ObjectMapper mapper) throws JsonProcessingException {
+        return json(OPTION_PREFIX + index, mapper);
+    }
+
+    /**
+     * Resolves the pointer held in the named option. Same as {@link JsonNode#at(String)} with the option value.
+     */
+    JsonNode at(JsonNode node, String name) {
+        val pointer = pointers.get(name);
+        return null != pointer
+               ? node.at(pointer)
+               : node.at(this.<String>value(name));
+    }
+
+    /**
+     * Named option split on commas, or null if the option is missing or empty.
+     */
+    String[] csv(String name) {
+        final String value = value(name);
+        if (Strings.isNullOrEmpty(value)) {
+            return null;
+        }
+        return csvs.computeIfAbsent(name, key -> value.split(","));
+    }
+
+    /**
+     * Named option of the form <code>k1:v1,k2:v2</code> as a map, or null if the option is missing or empty.
+     */
+    Map<String, String> pairs(String name) {
+        final String value = value(name);
+        if (Strings.isNullOrEmpty(value)) {
+            return null;
+        }
+        return pairs.computeIfAbsent(name, key -> {
+            val kvMap = new HashMap<String, String>();
+            for (String pair : value.split(",")) {
+                String[] tuple = pair.split(":");
+                if (tuple.length == 2) {
+                    kvMap.put(tuple[0], tuple[1]);
+                }
+            }
+            return Collections.unmodifiableMap(kvMap);
+        });
+    }
+}
@@ -7,6 +7,7 @@ import okhttp3.*;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author shashank.g
@@ -23,6 +24,46 @@ public class HttpClient {
     public Response post(String url,
                          final Object payload,
                          final Map<String, String> headers) throws IOException {
+        return client.newCall(postRequest(url, payload, headers)).execute();
+    }
+
+    public Response get(final String url,
+                        final Map<String, String> headers) throws IOException {
+        return client.newCall(getRequest(url, headers)).execute();
+    }
+
+    /**
+     * Same as {@link #post(String, Object, Map)}, but queued on the client's dispatcher instead of blocking the caller.
+     * The returned future completes on an OkHttp thread; the caller must close the response.
+     */
+    public CompletableFuture<Response> postAsync(String url,
+                                                 final Object payload,
+                                                 final Map<String, String> headers) {
+        try {
+            return enqueue(postRequest(url, payload, headers));
+        }
+        catch (Exception e) {
+            return failed(e);
+        }
+    }
+
+    /**
+     * Same as {@link #get(String, Map)}, but queued on the client's dispatcher instead of blocking the caller.
+     * The returned future completes on an OkHttp thread; the caller must close the response.
+     */
+    public CompletableFuture<Response> getAsync(final String url,
+                                                final Map<String, String> headers) {
+        try {
+            return enqueue(getRequest(url, headers));
+        }
+        catch (Exception e) {
+            return failed(e);
+        }
+    }
+
+    private Request postRequest(String url,
+                                final Object payload,
+                                final Map<String, String> headers) throws IOException {
         final HttpUrl httpUrl = HttpUrl.get(url);
         Request.Builder postBuilder;
         if(payload instanceof String) {
@@ -38,12 +79,11 @@ public class HttpClient {
         if (headers != null) {
             headers.forEach(postBuilder::addHeader);
         }
-        final Request request = postBuilder.build();
-        return client.newCall(request).execute();
+        return postBuilder.build();
     }
 
-    public Response get(final String url,
-                        final Map<String, String> headers) throws IOException {
+    private Request getRequest(final String url,
+                               final Map<String, String> headers) {
         final HttpUrl httpUrl = HttpUrl.get(url);
         final Request.Builder getBuilder = new Request.Builder()
                 .url(httpUrl)
@@ -51,7 +91,30 @@ public class HttpClient {
         if (headers != null) {
             headers.forEach(getBuilder::addHeader);
         }
-        final Request request = getBuilder.build();
-        return client.newCall(request).execute();
+        return getBuilder.build();
+    }
+
+    private CompletableFuture<Response> enqueue(Request request) {
+        final CompletableFuture<Response> future = new CompletableFuture<>();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                if (!future.complete(response)) {
+                    response.close();
+                }
+            }
+        });
+        return future;
+    }
+
+    private static CompletableFuture<Response> failed(Exception e) {
+        final CompletableFuture<Response> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
     }
 }
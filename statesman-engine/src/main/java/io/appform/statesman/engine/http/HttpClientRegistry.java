@@ -0,0 +1,59 @@
+package io.appform.statesman.engine.http;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Strings;
+import io.appform.statesman.model.HttpClientConfiguration;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Http clients for the configured client profiles.
+ * Every profile gets its own connection pool, dispatcher limits, timeouts and metrics, so a slow endpoint can only
+ * exhaust its own profile. Metrics of a profile client are named after the profile. Clients are built on first use
+ * and kept for the lifetime of the app. Calls without a profile, or with one that is not configured, go through the
+ * default client.
+ */
+@Slf4j
+@Singleton
+public class HttpClientRegistry {
+    private final Provider<HttpClient> defaultClient;
+    private final Map<String, HttpClientConfiguration> profiles;
+    private final ObjectMapper mapper;
+    private final MetricRegistry metricRegistry;
+    private final ConcurrentHashMap<String, HttpClient> clients = new ConcurrentHashMap<>();
+
+    @Inject
+    public HttpClientRegistry(
+            Provider<HttpClient> defaultClient,
+            @Named("httpClientProfiles") Map<String, HttpClientConfiguration> profiles,
+            ObjectMapper mapper,
+            MetricRegistry metricRegistry) {
+        this.defaultClient = defaultClient;
+        this.profiles = profiles;
+        this.mapper = mapper;
+        this.metricRegistry = metricRegistry;
+    }
+
+    public HttpClient client(String profile) {
+        if (Strings.isNullOrEmpty(profile)) {
+            return defaultClient.get();
+        }
+        val configuration = profiles.get(profile);
+        if (null == configuration) {
+            log.warn("No http client profile named {}. Using default client", profile);
+            return defaultClient.get();
+        }
+        return clients.computeIfAbsent(profile, name -> {
+            log.info("Creating http client for profile {}", name);
+            return new HttpClient(mapper, HttpUtil.namedClient("http-profile-" + name, metricRegistry, configuration));
+        });
+    }
+}
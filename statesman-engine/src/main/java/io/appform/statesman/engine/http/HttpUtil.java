@@ -24,6 +24,22 @@ public class HttpUtil {
     public static OkHttpClient defaultClient(final String clientName,
                                              final MetricRegistry registry,
                                              final HttpClientConfiguration configuration) {
+        return client(clientName + System.currentTimeMillis(), registry, configuration);
+    }
+
+    /**
+     * Same as {@link #defaultClient(String, MetricRegistry, HttpClientConfiguration)}, but the metrics are registered
+     * under exactly the given name, so it has to be unique in the registry.
+     */
+    public static OkHttpClient namedClient(final String clientName,
+                                           final MetricRegistry registry,
+                                           final HttpClientConfiguration configuration) {
+        return client(clientName, registry, configuration);
+    }
+
+    private static OkHttpClient client(final String metricName,
+                                       final MetricRegistry registry,
+                                       final HttpClientConfiguration configuration) {
 
         int connections = configuration.getConnections();
         connections = connections == 0 ? 10 : connections;
@@ -37,9 +53,12 @@ public class HttpUtil {
         int opTimeout = configuration.getOpTimeoutMs();
         opTimeout = opTimeout == 0 ? 10000 : opTimeout;
 
+        int maxRequestsPerHost = configuration.getMaxRequestsPerHost();
+        maxRequestsPerHost = maxRequestsPerHost == 0 ? connections : maxRequestsPerHost;
+
         final Dispatcher dispatcher = new Dispatcher();
         dispatcher.setMaxRequests(connections);
-        dispatcher.setMaxRequestsPerHost(connections);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
 
         final OkHttpClient.Builder clientBuilder = (new OkHttpClient.Builder())
                 .connectionPool(new ConnectionPool(connections, (long) idleTimeOutSeconds, TimeUnit.SECONDS))
@@ -50,7 +69,7 @@ public class HttpUtil {
 
         return registry != null
                ? InstrumentedOkHttpClients.create(
-                       registry, clientBuilder.build(), clientName + System.currentTimeMillis())
+                       registry, clientBuilder.build(), metricName)
                : clientBuilder.build();
     }
 
@@ -0,0 +1,217 @@
+package io.appform.statesman.engine.observer;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import io.appform.statesman.model.EventBusConfig;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Event bus that takes publishing off the request thread.
+ * Events go into a bounded lock free ring and are handed to the subscriber in batches by dedicated consumer threads.
+ * A batch is cut when it reaches {@link EventBusConfig#getBatchSize()} or when its first event has waited for
+ * {@link EventBusConfig#getMaxBatchDelayMs()}. What happens when the ring is full is decided by the configured
+ * {@link EventBusConfig.OverflowPolicy}. Idle consumers park until a publisher hands them an event, so an idle bus
+ * costs no wakeups. Needs {@link #start()} and {@link #stop()} to be tied to the app lifecycle; queued events are
+ * drained on stop.
+ */
+@Slf4j
+@Singleton
+public class BatchingObservableEventBus implements ObservableEventBus {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long STOP_TIMEOUT_SECONDS = 10;
+
+    private final ObservableEventBusSubscriber subscriber;
+    private final EventBusConfig config;
+    private final EventRingBuffer<ObservableEvent> ring;
+    private final ExecutorService consumers;
+    private final Queue<Thread> idleConsumers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger blocked = new AtomicInteger();
+    private final Meter published;
+    private final Meter dropped;
+    private final Meter spilled;
+    private final Meter batches;
+    private volatile boolean running;
+
+    @Inject
+    public BatchingObservableEventBus(
+            @Named("foxtrotEventSender") final ObservableEventBusSubscriber subscriber,
+            EventBusConfig config,
+            MetricRegistry metricRegistry) {
+        this.subscriber = subscriber;
+        this.config = config;
+        this.ring = new EventRingBuffer<>(config.getQueueSize());
+        val threadCount = new AtomicInteger();
+        this.consumers = Executors.newFixedThreadPool(config.getConsumerThreads(), runnable -> {
+            val thread = new Thread(runnable, "event-bus-consumer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.published = metricRegistry.meter(MetricRegistry.name(BatchingObservableEventBus.class, "published"));
+        this.dropped = metricRegistry.meter(MetricRegistry.name(BatchingObservableEventBus.class, "dropped"));
+        this.spilled = metricRegistry.meter(MetricRegistry.name(BatchingObservableEventBus.class, "spilled"));
+        this.batches = metricRegistry.meter(MetricRegistry.name(BatchingObservableEventBus.class, "batches"));
+        metricRegistry.register(MetricRegistry.name(BatchingObservableEventBus.class, "depth"),
+                                (Gauge<Integer>) ring::size);
+        metricRegistry.register(MetricRegistry.name(BatchingObservableEventBus.class, "capacity"),
+                                (Gauge<Integer>) ring::capacity);
+        metricRegistry.register(MetricRegistry.name(BatchingObservableEventBus.class, "blockedPublishers"),
+                                (Gauge<Integer>) blocked::get);
+    }
+
+    public void start() {
+        running = true;
+        for (int i = 0; i < config.getConsumerThreads(); i++) {
+            consumers.submit(this::consume);
+        }
+        log.info("Started batching event bus with {} consumers, queue size {} and overflow policy {}",
+                 config.getConsumerThreads(), ring.capacity(), config.getOverflowPolicy());
+    }
+
+    public void stop() throws InterruptedException {
+        running = false;
+        idleConsumers.forEach(LockSupport::unpark);
+        consumers.shutdown();
+        if (!consumers.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Event bus consumers did not stop in time, {} events left undelivered", ring.size());
+            consumers.shutdownNow();
+        }
+    }
+
+    @Override
+    public void publish(ObservableEvent event) {
+        published.mark();
+        if (ring.offer(event)) {
+            wakeConsumer();
+            return;
+        }
+        switch (config.getOverflowPolicy()) {
+            case BLOCK:
+                blocked.incrementAndGet();
+                try {
+                    while (!ring.offer(event)) {
+                        if (!running) {
+                            spill(event);
+                            return;
+                        }
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                    wakeConsumer();
+                }
+                finally {
+                    blocked.decrementAndGet();
+                }
+                return;
+            case DROP_OLDEST:
+                while (!ring.offer(event)) {
+                    if (null != ring.poll()) {
+                        dropped.mark();
+                    }
+                }
+                wakeConsumer();
+                return;
+            case SPILL:
+            default:
+                spill(event);
+        }
+    }
+
+    private void spill(ObservableEvent event) {
+        spilled.mark();
+        subscriber.handle(event);
+    }
+
+    private void consume() {
+        val batchSize = config.getBatchSize();
+        val maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(config.getMaxBatchDelayMs());
+        final List<ObservableEvent> batch = new ArrayList<>(batchSize);
+        long batchStart = 0;
+        while (true) {
+            val event = ring.poll();
+            if (null != event) {
+                if (batch.isEmpty()) {
+                    batchStart = System.nanoTime();
+                }
+                batch.add(event);
+                if (batch.size() >= batchSize) {
+                    deliver(batch);
+                }
+                continue;
+            }
+            if (!running) {
+                deliver(batch);
+                return;
+            }
+            if (batch.isEmpty()) {
+                awaitEvent(0);
+                continue;
+            }
+            val waited = System.nanoTime() - batchStart;
+            if (waited >= maxDelayNanos) {
+                deliver(batch);
+            }
+            else {
+                awaitEvent(maxDelayNanos - waited);
+            }
+        }
+    }
+
+    /**
+     * Parks the consumer until a publisher hands over an event, the bus is stopped, or the timeout runs out. A timeout
+     * of zero waits indefinitely. The consumer registers before checking the ring, so a publish can't slip in between.
+     */
+    private void awaitEvent(long timeoutNanos) {
+        val consumer = Thread.currentThread();
+        idleConsumers.add(consumer);
+        try {
+            if (running && ring.size() == 0) {
+                if (timeoutNanos > 0) {
+                    LockSupport.parkNanos(this, timeoutNanos);
+                }
+                else {
+                    LockSupport.park(this);
+                }
+            }
+        }
+        finally {
+            idleConsumers.remove(consumer);
+        }
+    }
+
+    private void wakeConsumer() {
+        val consumer = idleConsumers.poll();
+        if (null != consumer) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private void deliver(List<ObservableEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            subscriber.handleBatch(batch);
+            batches.mark();
+        }
+        catch (Exception e) {
+            log.error("Error delivering batch of " + batch.size() + " events", e);
+        }
+        finally {
+            batch.clear();
+        }
+    }
+}
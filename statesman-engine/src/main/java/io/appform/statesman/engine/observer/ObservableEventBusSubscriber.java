@@ -2,6 +2,8 @@ package io.appform.statesman.engine.observer;
 
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.List;
+
 /**
  *
  */
@@ -24,5 +26,29 @@ public abstract class ObservableEventBusSubscriber {
         }
     }
 
+    public final void handleBatch(List<ObservableEvent> events) {
+        try {
+            handleEvents(events);
+        } catch (Exception e) {
+            log.error("Event handler error", e);
+        }
+        if(null != next) {
+            next.handleBatch(events);
+        }
+    }
+
     protected abstract void handleEvent(ObservableEvent event);
+
+    /**
+     * Handles a batch of events. Handles them one at a time unless overridden.
+     */
+    protected void handleEvents(List<ObservableEvent> events) {
+        events.forEach(event -> {
+            try {
+                handleEvent(event);
+            } catch (Exception e) {
+                log.error("Event handler error", e);
+            }
+        });
+    }
 }
@@ -1,5 +1,6 @@
 package io.appform.statesman.engine.observer.events;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import io.appform.statesman.engine.observer.ObservableEvent;
 import io.appform.statesman.engine.observer.ObservableEventType;
 import io.appform.statesman.engine.observer.ObservableEventVisitor;
@@ -21,18 +22,34 @@ public class StateTransitionEvent extends ObservableEvent {
     State oldState;
     String appliedAction;
 
+    /**
+     * Workflow data as it was before this transition, if known.
+     */
+    JsonNode previousData;
+
     public StateTransitionEvent(
             WorkflowTemplate template,
             Workflow workflow,
             DataUpdate update,
             State oldState,
             String appliedAction) {
+        this(template, workflow, update, oldState, appliedAction, null);
+    }
+
+    public StateTransitionEvent(
+            WorkflowTemplate template,
+            Workflow workflow,
+            DataUpdate update,
+            State oldState,
+            String appliedAction,
+            JsonNode previousData) {
         super(ObservableEventType.STATE_TRANSITION);
         this.template = template;
         this.workflow = workflow;
         this.update = update;
         this.oldState = oldState;
         this.appliedAction = appliedAction;
+        this.previousData = previousData;
     }
 
     @Override
@@ -2,12 +2,12 @@ package io.appform.statesman.engine.observer.observers;
 
 import com.google.common.base.Strings;
 import com.google.inject.Inject;
-import com.google.inject.name.Named;
-import io.appform.eventingester.client.EventPublisher;
 import io.appform.eventingester.models.Event;
 import io.appform.statesman.engine.Constants;
 import io.appform.statesman.engine.events.EngineEventType;
 import io.appform.statesman.engine.events.FoxtrotStateTransitionEvent;
+import io.appform.statesman.engine.events.SpoolingEventPublisher;
+import io.appform.statesman.engine.events.TransitionEventPayloads;
 import io.appform.statesman.engine.observer.ObservableEvent;
 import io.appform.statesman.engine.observer.ObservableEventBusSubscriber;
 import io.appform.statesman.engine.observer.ObservableEventVisitor;
@@ -15,10 +15,11 @@ import io.appform.statesman.engine.observer.events.IngressCallbackEvent;
 import io.appform.statesman.engine.observer.events.StateTransitionEvent;
 import io.appform.statesman.engine.observer.events.WorkflowInitEvent;
 import io.appform.statesman.model.Workflow;
-import io.appform.statesman.model.exception.StatesmanError;
 import lombok.extern.slf4j.Slf4j;
+import lombok.val;
 
 import javax.inject.Singleton;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -31,56 +32,52 @@ import java.util.UUID;
 @Singleton
 public class FoxtrotEventSender extends ObservableEventBusSubscriber {
 
-
-    private static final EventTranslator EVENT_TRANSLATOR = new EventTranslator();
-
-    private final EventPublisher publisher;
+    private final SpoolingEventPublisher publisher;
+    private final EventTranslator eventTranslator;
 
     @Inject
-    public FoxtrotEventSender(@Named("eventPublisher") final EventPublisher publisher) {
+    public FoxtrotEventSender(final SpoolingEventPublisher publisher, final TransitionEventPayloads payloads) {
         super(null);
         this.publisher = publisher;
+        this.eventTranslator = new EventTranslator(payloads);
     }
 
     @Override
     protected void handleEvent(ObservableEvent event) {
-        final List<Event> eventList = event.accept(new ObservableEventVisitor<List<Event>>() {
-            @Override
-            public List<Event> visit(StateTransitionEvent stateTransitionEvent) {
-
-                return stateTransitionEvent.accept(EVENT_TRANSLATOR);
-            }
-
-            @Override
-            public List<Event> visit(WorkflowInitEvent workflowInitEvent) {
-                return workflowInitEvent.accept(EVENT_TRANSLATOR);
-            }
+        //publish
+        publish(event.accept(eventTranslator));
+    }
 
-            @Override
-            public List<Event> visit(IngressCallbackEvent ingressCallbackEvent) {
-                return ingressCallbackEvent.accept(EVENT_TRANSLATOR);
+    /**
+     * Translates the whole batch and sends it in a single publish call.
+     */
+    @Override
+    protected void handleEvents(List<ObservableEvent> events) {
+        final List<Event> eventList = new ArrayList<>(events.size());
+        for (ObservableEvent event : events) {
+            try {
+                eventList.addAll(event.accept(eventTranslator));
+            } catch (Exception e) {
+                log.error("Error translating event of type " + event.getEventType(), e);
             }
-        });
-
-        //publish
+        }
         publish(eventList);
     }
 
     private void publish(final List<Event> eventList) {
-        try {
-            if (null != eventList && !eventList.isEmpty()) {
-                publisher.publish(eventList);
-            }
-        } catch (final Exception e) {
-            log.error("unable to send event", e);
-            throw StatesmanError.propagate(e);
-        }
+        publisher.publish(eventList);
     }
 
     private static final class EventTranslator implements ObservableEventVisitor<List<Event>> {
+        private final TransitionEventPayloads payloads;
+
+        private EventTranslator(TransitionEventPayloads payloads) {
+            this.payloads = payloads;
+        }
 
         @Override
         public List<Event> visit(StateTransitionEvent stateTransitionEvent) {
+            val payload = payloads.payload(stateTransitionEvent);
             return Collections.singletonList(
                     Event.builder()
                             .id(UUID.randomUUID().toString())
@@ -98,8 +95,14 @@ public class FoxtrotEventSender extends ObservableEventBusSubscriber {
                                     .oldState(null != stateTransitionEvent.getOldState() ? stateTransitionEvent.getOldState().getName() : null)
                                     .newState(stateTransitionEvent.getWorkflow().getDataObject().getCurrentState().getName())
                                     .terminal(stateTransitionEvent.getWorkflow().getDataObject().getCurrentState().isTerminal())
-                                    .data(stateTransitionEvent.getWorkflow().getDataObject().getData())
-                                    .update(stateTransitionEvent.getUpdate().getData())
+                                    .payloadMode(payload.getMode().name())
+                                    .data(payload.getData())
+                                    .update(payload.getUpdate())
+                                    .patch(payload.getPatch())
+                                    .version(payload.getVersion())
+                                    .hop(payload.getHop())
+                                    .baseVersion(payload.getBaseVersion())
+                                    .baseHop(payload.getBaseHop())
                                     .appliedAction(stateTransitionEvent.getAppliedAction())
                                     .elapseTime(System.currentTimeMillis() - stateTransitionEvent.getWorkflow().getCreated().getTime())
                                     .build())
@@ -1,14 +1,36 @@
 package io.appform.statesman.engine.utils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
+import lombok.val;
 
+import java.text.SimpleDateFormat;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.temporal.IsoFields;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimeZone;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class DateUtils {
+    private static final int MAX_FORMATS_PER_THREAD = 64;
+
+    private static final Cache<String, TimeZone> TIME_ZONES = Caffeine.newBuilder()
+            .maximumSize(1_024)
+            .build();
+
+    //SimpleDateFormat is not thread safe, so every thread keeps its own instance per pattern
+    private static final ThreadLocal<Map<String, SimpleDateFormat>> DATE_FORMATS = ThreadLocal.withInitial(
+            () -> new LinkedHashMap<String, SimpleDateFormat>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SimpleDateFormat> eldest) {
+                    return size() > MAX_FORMATS_PER_THREAD;
+                }
+            });
+
     public static String getLocalZone() {
         return "Asia/Calcutta";
     }
@@ -18,4 +40,27 @@ public class DateUtils {
         ZonedDateTime now = ZonedDateTime.now(zoneId);
         return now.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
     }
+
+    /**
+     * Same as {@link TimeZone#getTimeZone(String)}, without cloning the zone on every call.
+     * The returned zone is shared and must not be modified.
+     */
+    public static TimeZone timeZone(String id) {
+        return TIME_ZONES.get(id, TimeZone::getTimeZone);
+    }
+
+    /**
+     * Formatter for the pattern, set to the given zone. The instance belongs to the calling thread and must not be
+     * handed over to other threads or held on to across calls.
+     */
+    public static SimpleDateFormat dateFormat(String pattern, TimeZone timeZone) {
+        val formats = DATE_FORMATS.get();
+        SimpleDateFormat format = formats.get(pattern);
+        if (null == format) {
+            format = new SimpleDateFormat(pattern);
+            formats.put(pattern, format);
+        }
+        format.setTimeZone(timeZone);
+        return format;
+    }
 }
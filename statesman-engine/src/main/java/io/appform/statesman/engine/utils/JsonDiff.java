@@ -0,0 +1,70 @@
+package io.appform.statesman.engine.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Computes JSON patches (RFC 6902) between two documents.
+ * Objects are compared field by field; arrays and values that differ are replaced as a whole.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class JsonDiff {
+
+    /**
+     * @return the operations that turn <code>source</code> into <code>target</code>, empty if they are equal
+     */
+    public static ArrayNode diff(JsonNode source, JsonNode target) {
+        final ArrayNode patch = JsonNodeFactory.instance.arrayNode();
+        diff("", source, target, patch);
+        return patch;
+    }
+
+    private static void diff(String path, JsonNode source, JsonNode target, ArrayNode patch) {
+        if (null == target || target.isMissingNode()) {
+            if (null != source && !source.isMissingNode()) {
+                patch.add(operation("remove", path));
+            }
+            return;
+        }
+        if (null == source || source.isMissingNode()) {
+            patch.add(operation("add", path).set("value", target));
+            return;
+        }
+        if (source.equals(target)) {
+            return;
+        }
+        if (!source.isObject() || !target.isObject()) {
+            patch.add(operation("replace", path).set("value", target));
+            return;
+        }
+        final Iterator<Map.Entry<String, JsonNode>> sourceFields = source.fields();
+        while (sourceFields.hasNext()) {
+            final Map.Entry<String, JsonNode> field = sourceFields.next();
+            diff(path + "/" + escape(field.getKey()), field.getValue(), target.get(field.getKey()), patch);
+        }
+        final Iterator<Map.Entry<String, JsonNode>> targetFields = target.fields();
+        while (targetFields.hasNext()) {
+            final Map.Entry<String, JsonNode> field = targetFields.next();
+            if (!source.has(field.getKey())) {
+                patch.add(operation("add", path + "/" + escape(field.getKey())).set("value", field.getValue()));
+            }
+        }
+    }
+
+    private static ObjectNode operation(String op, String path) {
+        return JsonNodeFactory.instance.objectNode()
+                .put("op", op)
+                .put("path", path);
+    }
+
+    private static String escape(String key) {
+        return key.replace("~", "~0").replace("/", "~1");
+    }
+}
@@ -0,0 +1,78 @@
+package io.appform.statesman.engine.utils;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports Caffeine cache statistics as Dropwizard metrics under the given prefix.
+ */
+public class MetricsStatsCounter implements StatsCounter {
+    private final Meter hits;
+    private final Meter misses;
+    private final Timer loadSuccess;
+    private final Meter loadFailure;
+    private final Counter totalLoadTime;
+    private final Meter evictions;
+    private final Counter evictionWeight;
+
+    public MetricsStatsCounter(MetricRegistry metricRegistry, String prefix) {
+        this.hits = metricRegistry.meter(MetricRegistry.name(prefix, "hits"));
+        this.misses = metricRegistry.meter(MetricRegistry.name(prefix, "misses"));
+        this.loadSuccess = metricRegistry.timer(MetricRegistry.name(prefix, "loads"));
+        this.loadFailure = metricRegistry.meter(MetricRegistry.name(prefix, "load.failures"));
+        this.totalLoadTime = metricRegistry.counter(MetricRegistry.name(prefix, "load.nanos"));
+        this.evictions = metricRegistry.meter(MetricRegistry.name(prefix, "evictions"));
+        this.evictionWeight = metricRegistry.counter(MetricRegistry.name(prefix, "evictions.weight"));
+    }
+
+    @Override
+    public void recordHits(int count) {
+        hits.mark(count);
+    }
+
+    @Override
+    public void recordMisses(int count) {
+        misses.mark(count);
+    }
+
+    @Override
+    public void recordLoadSuccess(long loadTime) {
+        loadSuccess.update(loadTime, TimeUnit.NANOSECONDS);
+        totalLoadTime.inc(loadTime);
+    }
+
+    @Override
+    public void recordLoadFailure(long loadTime) {
+        loadFailure.mark();
+        totalLoadTime.inc(loadTime);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void recordEviction() {
+        evictions.mark();
+    }
+
+    @Override
+    public void recordEviction(int weight) {
+        evictions.mark();
+        evictionWeight.inc(weight);
+    }
+
+    @Override
+    public CacheStats snapshot() {
+        return new CacheStats(hits.getCount(),
+                              misses.getCount(),
+                              loadSuccess.getCount(),
+                              loadFailure.getCount(),
+                              totalLoadTime.getCount(),
+                              evictions.getCount(),
+                              evictionWeight.getCount());
+    }
+}
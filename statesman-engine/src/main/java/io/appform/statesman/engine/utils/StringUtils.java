@@ -5,18 +5,24 @@ import com.google.common.base.Strings;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 
+import java.util.regex.Pattern;
+
 /**
  *
  */
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class StringUtils {
+    private static final Pattern SPECIAL_CHARS = Pattern.compile("[^ \\s\\w]+");
+    private static final Pattern REPEATED_SPACES = Pattern.compile("\\s{2,}");
+    private static final Pattern SPACES_AND_UNDERSCORES = Pattern.compile("[_\\s]+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s\\s*");
 
     public static String alphaNumeric(String s) {
         if(Strings.isNullOrEmpty(s)) {
             return "";
         }
-        return s.replaceAll("[^ \\s\\w]+", " ")
-                .replaceAll("\\s{2,}", " ")
+        return REPEATED_SPACES.matcher(SPECIAL_CHARS.matcher(s).replaceAll(" "))
+                .replaceAll(" ")
                 .trim();
     }    
 
@@ -24,9 +30,8 @@ public class StringUtils {
         if(Strings.isNullOrEmpty(s)) {
             return "";
         }
-        return s.toLowerCase()
-                .replaceAll("[^ \\s\\w]+", " ")
-                .replaceAll("[_\\s]+", "_");
+        return SPACES_AND_UNDERSCORES.matcher(SPECIAL_CHARS.matcher(s.toLowerCase()).replaceAll(" "))
+                .replaceAll("_");
     }
 
     public static String normalizeInitCap(String s) {
@@ -40,6 +45,6 @@ public class StringUtils {
         if(Strings.isNullOrEmpty(s)) {
             return "";
         }
-        return s.replaceAll("\\s\\s*", " ");
+        return WHITESPACE.matcher(s).replaceAll(" ");
     }
 }
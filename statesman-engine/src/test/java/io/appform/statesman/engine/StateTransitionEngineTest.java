@@ -1,14 +1,18 @@
 package io.appform.statesman.engine;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import io.appform.statesman.engine.action.ActionExecutor;
+import io.appform.statesman.engine.graph.TransitionGraphStore;
 import io.appform.statesman.engine.observer.ObservableEvent;
 import io.appform.statesman.engine.observer.ObservableEventBus;
 import io.appform.statesman.model.*;
 import io.appform.statesman.model.dataaction.impl.MergeDataAction;
 import io.appform.statesman.model.dataaction.impl.MergeSelectedDataAction;
+import io.appform.statesman.model.exception.ResponseCode;
+import io.appform.statesman.model.exception.StatesmanError;
 import lombok.SneakyThrows;
 import lombok.val;
 import org.junit.Assert;
@@ -20,9 +24,13 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -34,6 +42,9 @@ public class StateTransitionEngineTest {
     private static final String WF_ID = "wf1";
     private static final ObjectMapper MAPPER = new ObjectMapper();
     private Provider<WorkflowProvider> workflowProvider;
+    private final AtomicReference<Workflow> storedWorkflow = new AtomicReference<>();
+    private final AtomicInteger pendingConflicts = new AtomicInteger();
+    private ActionExecutor actionExecutor;
 
     private interface States {
         State A = new State("A", false);
@@ -84,12 +95,22 @@ public class StateTransitionEngineTest {
                               new DataObject(MAPPER.createObjectNode(), wft.getStartState(), new Date(), new Date()),
                               new Date(),
                               new Date());
+        storedWorkflow.set(wf);
+        pendingConflicts.set(0);
         workflowProvider = () -> {
             val provider = mock(WorkflowProvider.class);
             when(provider.getTemplate(anyString()))
                     .thenReturn(Optional.of(wft));
             when(provider.getWorkflow(anyString()))
-                    .thenReturn(Optional.of(wf));
+                    .thenAnswer(invocation -> Optional.of(copy(storedWorkflow.get())));
+            when(provider.compareAndUpdateWorkflow(any(Workflow.class)))
+                    .thenAnswer(invocation -> {
+                        if (pendingConflicts.getAndDecrement() > 0) {
+                            return false;
+                        }
+                        storedWorkflow.set(copy((Workflow) invocation.getArguments()[0]));
+                        return true;
+                    });
             return provider;
         };
         final Provider<TransitionStore> transitionStore = () -> {
@@ -102,7 +123,10 @@ public class StateTransitionEngineTest {
 
                 @Override
                 public List<StateTransition> getAllTransitions(String workflowTemplateId) {
-                    return null;
+                    return transitions.values()
+                            .stream()
+                            .flatMap(List::stream)
+                            .collect(Collectors.toList());
                 }
 
                 @Override
@@ -124,15 +148,16 @@ public class StateTransitionEngineTest {
         };
         final ObservableEventBus eventBus = mock(ObservableEventBus.class);
         doNothing().when(eventBus).publish(any(ObservableEvent.class));
-        ActionExecutor actionExecutor = mock(ActionExecutor.class);
+        actionExecutor = mock(ActionExecutor.class);
         when(actionExecutor.execute(anyString(), any(Workflow.class)))
             .thenReturn(Optional.of(MAPPER.createObjectNode().put("message", "Test")));
         engine = new StateTransitionEngine(workflowProvider,
-                                           transitionStore,
+                                           new TransitionGraphStore(transitionStore),
                                            MAPPER,
                                            new DataActionExecutor(MAPPER),
                                            eventBus,
-                                           () -> actionExecutor);
+                                           () -> actionExecutor,
+                                           new MetricRegistry());
     }
 
     @Test
@@ -198,4 +223,62 @@ public class StateTransitionEngineTest {
         System.out.println(MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(data));
         Assert.assertEquals("Test", data.get("message").asText());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testReplayOnConflict() {
+        pendingConflicts.set(1);
+        val transition = engine.handle(new DataUpdate(
+                WF_ID,
+                MAPPER.createObjectNode()
+                        .put("Q1", 3)
+                        .put("Q2", 4),
+                new MergeDataAction()));
+        Assert.assertEquals(2, transition.getTransitions().size());
+        Assert.assertEquals(States.C, storedWorkflow.get().getDataObject().getCurrentState());
+    }
+
+    @Test
+    public void testReplayOnConflictDoesNotRepeatActions() {
+        pendingConflicts.set(2);
+        val transition = engine.handle(new DataUpdate(
+                WF_ID,
+                MAPPER.createObjectNode()
+                        .put("Q1", 3)
+                        .put("Q2", 4)
+                        .put("Q3", 1),
+                new MergeDataAction()));
+        Assert.assertEquals(3, transition.getTransitions().size());
+        Assert.assertEquals(States.D, storedWorkflow.get().getDataObject().getCurrentState());
+        Assert.assertEquals("Test", storedWorkflow.get().getDataObject().getData().get("message").asText());
+        verify(actionExecutor, times(1)).execute(eq("TEST_ACTION"), any(Workflow.class));
+    }
+
+    @Test
+    public void testConflictRetriesExhausted() {
+        pendingConflicts.set(Integer.MAX_VALUE);
+        try {
+            engine.handle(new DataUpdate(
+                    WF_ID,
+                    MAPPER.createObjectNode()
+                            .put("Q1", 3),
+                    new MergeDataAction()));
+            Assert.fail("Expected update conflict");
+        }
+        catch (StatesmanError e) {
+            Assert.assertEquals(ResponseCode.WORKFLOW_UPDATE_CONFLICT, e.getResponseCode());
+        }
+        Assert.assertEquals(States.A, storedWorkflow.get().getDataObject().getCurrentState());
+    }
+
+    private static Workflow copy(Workflow workflow) {
+        val dataObject = workflow.getDataObject();
+        return new Workflow(workflow.getId(),
+                            workflow.getTemplateId(),
+                            new DataObject(dataObject.getData().deepCopy(),
+                                           dataObject.getCurrentState(),
+                                           dataObject.getCreated(),
+                                           dataObject.getUpdated()),
+                            workflow.getCreated(),
+                            workflow.getUpdated());
+    }
+}
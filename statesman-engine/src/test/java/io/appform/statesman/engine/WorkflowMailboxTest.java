@@ -0,0 +1,140 @@
+package io.appform.statesman.engine;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.appform.statesman.model.AppliedTransitions;
+import io.appform.statesman.model.DataUpdate;
+import io.appform.statesman.model.dataaction.DataAction;
+import io.appform.statesman.model.dataaction.impl.MergeDataAction;
+import io.appform.statesman.model.exception.StatesmanError;
+import lombok.val;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WorkflowMailboxTest {
+    private static final String WF_ID = "wf1";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final List<JsonNode> handled = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> handlers = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch release = new CountDownLatch(1);
+    private StateTransitionEngine engine;
+    private ExecutorService executorService;
+    private WorkflowMailbox mailbox;
+
+    @Before
+    public void setup() {
+        engine = mock(StateTransitionEngine.class);
+        when(engine.handle(any(DataUpdate.class), any(DataAction.class)))
+                .thenAnswer(invocation -> {
+                    val update = (DataUpdate) invocation.getArguments()[0];
+                    handled.add(update.getData());
+                    handlers.add(Thread.currentThread().getName());
+                    if (update.getData().has("block")) {
+                        release.await(5, TimeUnit.SECONDS);
+                    }
+                    return new AppliedTransitions(WF_ID, Collections.emptyList());
+                });
+        executorService = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "mailbox"));
+        mailbox = new WorkflowMailbox(() -> engine, MAPPER, new MetricRegistry(), executorService);
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testUpdatesOnDisjointFieldsAreCoalesced() throws Exception {
+        val first = start(update("{\"block\":true}"));
+        awaitWaiting(first);
+        val a = start(update("{\"a\":1}"));
+        awaitWaiting(a);
+        val b = start(update("{\"b\":2}"));
+        awaitWaiting(b);
+        val overwrite = start(update("{\"a\":3}"));
+        awaitWaiting(overwrite);
+        release.countDown();
+        for (Thread thread : new Thread[]{first, a, b, overwrite}) {
+            thread.join(5_000);
+        }
+        Assert.assertEquals(3, handled.size());
+        Assert.assertEquals(MAPPER.readTree("{\"a\":1,\"b\":2}"), handled.get(1));
+        Assert.assertEquals(MAPPER.readTree("{\"a\":3}"), handled.get(2));
+    }
+
+    @Test
+    public void testErrorsReachTheCaller() throws Exception {
+        when(engine.handle(any(DataUpdate.class), any(DataAction.class))).thenThrow(new AssertionError("boom"));
+        try {
+            mailbox.handle(update("{\"a\":1}"));
+            Assert.fail("Expected the error to be propagated");
+        }
+        catch (StatesmanError e) {
+            Assert.assertTrue(e.getCause() instanceof AssertionError);
+        }
+        when(engine.handle(any(DataUpdate.class), any(DataAction.class)))
+                .thenReturn(new AppliedTransitions(WF_ID, Collections.emptyList()));
+        Assert.assertNotNull(mailbox.handle(update("{\"a\":2}")));
+    }
+
+    @Test
+    public void testEnqueuedUpdatesAreNotDrainedByWaitingCallers() throws Exception {
+        val first = start(update("{\"block\":true}"));
+        awaitWaiting(first);
+        val queued = mailbox.enqueue(update("{\"async\":1}"));
+        Assert.assertFalse(queued.isDone());
+        release.countDown();
+        first.join(5_000);
+        Assert.assertNotNull(queued.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(2, handled.size());
+        Assert.assertEquals(MAPPER.readTree("{\"async\":1}"), handled.get(1));
+        Assert.assertEquals("mailbox", handlers.get(1));
+    }
+
+    @Test
+    public void testEnqueuedUpdateErrorsCompleteTheFuture() throws Exception {
+        when(engine.handle(any(DataUpdate.class), any(DataAction.class))).thenThrow(new IllegalStateException("boom"));
+        val queued = mailbox.enqueue(update("{\"a\":1}"));
+        try {
+            queued.get(5, TimeUnit.SECONDS);
+            Assert.fail("Expected the error to be propagated");
+        }
+        catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    private Thread start(DataUpdate update) {
+        val thread = new Thread(() -> mailbox.handle(update));
+        thread.start();
+        return thread;
+    }
+
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        while (thread.isAlive() && thread.getState() != Thread.State.WAITING
+                && thread.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static DataUpdate update(String data) throws Exception {
+        return new DataUpdate(WF_ID, MAPPER.readTree(data), new MergeDataAction());
+    }
+}
@@ -0,0 +1,63 @@
+package io.appform.statesman.engine.action;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.appform.statesman.engine.ActionTemplateStore;
+import io.appform.statesman.engine.action.impl.HttpAction;
+import io.appform.statesman.model.Action;
+import io.appform.statesman.model.Workflow;
+import io.appform.statesman.model.action.template.HttpActionTemplate;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ActionExecutorImplTest {
+    private HttpAction action;
+    private ActionLimiter.Permit permit;
+    private ActionExecutorImpl actionExecutor;
+
+    @Before
+    public void setup() {
+        val template = HttpActionTemplate.builder()
+                .templateId("T1")
+                .name("call")
+                .async(true)
+                .build();
+        val actionTemplateStore = mock(ActionTemplateStore.class);
+        when(actionTemplateStore.get("T1")).thenReturn(Optional.of(template));
+        action = mock(HttpAction.class);
+        val actionRegistry = mock(ActionRegistry.class);
+        when(actionRegistry.get("HTTP")).thenReturn(Optional.<Action>of(action));
+        permit = mock(ActionLimiter.Permit.class);
+        val actionLimiter = mock(ActionLimiter.class);
+        when(actionLimiter.acquire(any(), any())).thenReturn(permit);
+        actionExecutor = new ActionExecutorImpl();
+        actionExecutor.ActionExecutor(() -> actionRegistry,
+                                      () -> actionTemplateStore,
+                                      () -> actionLimiter,
+                                      () -> mock(ActionRetryQueue.class));
+    }
+
+    @Test
+    public void testPermitIsHeldUntilBackgroundActionCompletes() throws Exception {
+        val execution = new CompletableFuture<JsonNode>();
+        when(action.applyAsync(any(HttpActionTemplate.class), any(Workflow.class))).thenReturn(execution);
+
+        val response = actionExecutor.execute("T1", Workflow.builder().id("wf1").build());
+        Assert.assertTrue(response.isPresent());
+        Assert.assertTrue(response.get().isNull());
+        verify(permit, never()).close();
+
+        execution.complete(null);
+        verify(permit).close();
+    }
+}
@@ -0,0 +1,144 @@
+package io.appform.statesman.engine.action;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import io.appform.statesman.engine.ActionTemplateStore;
+import io.appform.statesman.model.Workflow;
+import io.appform.statesman.model.action.template.ActionTemplate;
+import io.appform.statesman.model.action.template.HttpActionTemplate;
+import lombok.val;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ActionHelperTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private ActionExecutor actionExecutor;
+    private ActionTemplateStore actionTemplateStore;
+    private ActionRetryQueue retryQueue;
+    private ExecutorService executorService;
+    private ActionHelper actionHelper;
+
+    @Before
+    public void setUp() {
+        actionExecutor = mock(ActionExecutor.class);
+        actionTemplateStore = mock(ActionTemplateStore.class);
+        retryQueue = mock(ActionRetryQueue.class);
+        executorService = Executors.newFixedThreadPool(4);
+        actionHelper = helper(executorService);
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testParallelMergesInDeclaredOrder() {
+        when(actionExecutor.execute(eq("A"), any(Workflow.class))).thenAnswer(invocation -> {
+            Thread.sleep(100);
+            return response("a", "key", "fromA");
+        });
+        when(actionExecutor.execute(eq("B"), any(Workflow.class))).thenReturn(response("b", "key", "fromB"));
+
+        val response = actionHelper.executeActionsInParallel(ImmutableList.of("A", "B"), Workflow.builder().id("WF1").build(), 0);
+        Assert.assertEquals("a", response.get("a").asText());
+        Assert.assertEquals("b", response.get("b").asText());
+        Assert.assertEquals("fromB", response.get("key").asText());
+    }
+
+    @Test
+    public void testParallelDropsTimedOutBranch() {
+        when(actionExecutor.execute(eq("A"), any(Workflow.class))).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return response("a", "key", "fromA");
+        });
+        when(actionExecutor.execute(eq("B"), any(Workflow.class))).thenReturn(response("b", "key", "fromB"));
+
+        val response = actionHelper.executeActionsInParallel(ImmutableList.of("A", "B"), Workflow.builder().id("WF1").build(), 200);
+        Assert.assertFalse(response.has("a"));
+        Assert.assertEquals("fromB", response.get("key").asText());
+    }
+
+    @Test
+    public void testRejectedBranchIsDeferredWithinTimeout() {
+        val saturated = saturatedExecutor();
+        try {
+            actionHelper = helper(saturated);
+            when(actionExecutor.execute(eq("A"), any(Workflow.class))).thenAnswer(invocation -> {
+                Thread.sleep(100);
+                return response("a", "key", "fromA");
+            });
+            when(actionExecutor.execute(eq("B"), any(Workflow.class))).thenReturn(response("b", "key", "fromB"));
+            final ActionTemplate templateB = HttpActionTemplate.builder().templateId("B").build();
+            when(actionTemplateStore.get("B")).thenReturn(Optional.of(templateB));
+
+            val response = actionHelper.executeActionsInParallel(ImmutableList.of("A", "B"), Workflow.builder().id("WF1").build(), 1_000);
+            Assert.assertEquals("a", response.get("a").asText());
+            Assert.assertFalse(response.has("b"));
+            verify(actionExecutor, never()).execute(eq("B"), any(Workflow.class));
+            verify(retryQueue).defer(eq(templateB), eq("WF1"), any(Throwable.class));
+            verify(retryQueue).defer(any(ActionTemplate.class), anyString(), any(Throwable.class));
+        }
+        finally {
+            saturated.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRejectedBranchRunsOnCallerWithoutTimeout() {
+        val saturated = saturatedExecutor();
+        try {
+            actionHelper = helper(saturated);
+            when(actionExecutor.execute(eq("A"), any(Workflow.class))).thenAnswer(invocation -> {
+                Thread.sleep(100);
+                return response("a", "key", "fromA");
+            });
+            when(actionExecutor.execute(eq("B"), any(Workflow.class))).thenReturn(response("b", "key", "fromB"));
+
+            val response = actionHelper.executeActionsInParallel(ImmutableList.of("A", "B"), Workflow.builder().id("WF1").build(), 0);
+            Assert.assertEquals("a", response.get("a").asText());
+            Assert.assertEquals("fromB", response.get("key").asText());
+            verify(retryQueue, never()).defer(any(ActionTemplate.class), anyString(), any(Throwable.class));
+        }
+        finally {
+            saturated.shutdownNow();
+        }
+    }
+
+    private ActionHelper helper(ExecutorService branchExecutor) {
+        return new ActionHelper(mapper,
+                                () -> actionExecutor,
+                                () -> actionTemplateStore,
+                                () -> retryQueue,
+                                branchExecutor);
+    }
+
+    //Single thread and no queue, so the second branch is rejected while the first one runs
+    private static ExecutorService saturatedExecutor() {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>());
+    }
+
+    private Optional<JsonNode> response(String field, String key, String value) {
+        return Optional.of(mapper.createObjectNode()
+                                   .put(field, field)
+                                   .put(key, value));
+    }
+}
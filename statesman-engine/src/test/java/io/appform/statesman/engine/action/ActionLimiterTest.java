@@ -0,0 +1,41 @@
+package io.appform.statesman.engine.action;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import io.appform.statesman.model.action.ActionLimit;
+import io.appform.statesman.model.exception.StatesmanError;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ActionLimiterTest {
+
+    @Test
+    public void testBulkheadRejectsAndSaturatesProvider() {
+        val limiter = new ActionLimiter(ImmutableMap.of("P1", new ActionLimit(0, 1, 10, 0)), new MetricRegistry());
+        Assert.assertFalse(limiter.isProviderSaturated("P1"));
+        try (ActionLimiter.Permit ignored = limiter.acquireProvider("P1")) {
+            Assert.assertTrue(limiter.isProviderSaturated("P1"));
+            try {
+                limiter.acquireProvider("P1");
+                Assert.fail("Should have been throttled");
+            }
+            catch (StatesmanError e) {
+                Assert.assertTrue(ActionLimiter.isThrottled(e));
+            }
+        }
+        limiter.acquireProvider("P1").close();
+        Assert.assertFalse(limiter.isProviderSaturated("P2"));
+        limiter.acquireProvider("P2").close();
+    }
+
+    @Test
+    public void testTemplateLimitIsRebuiltOnChange() {
+        val limiter = new ActionLimiter(ImmutableMap.of(), new MetricRegistry());
+        val permit = limiter.acquire("T1", new ActionLimit(0, 1, 0, 0));
+        //A raised limit takes effect without waiting for the old permit
+        limiter.acquire("T1", new ActionLimit(0, 2, 0, 0)).close();
+        permit.close();
+        limiter.acquire("T1", null).close();
+    }
+}
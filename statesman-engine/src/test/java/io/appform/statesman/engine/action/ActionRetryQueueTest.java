@@ -0,0 +1,249 @@
+package io.appform.statesman.engine.action;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.appform.statesman.engine.ActionTemplateStore;
+import io.appform.statesman.engine.FailedActionStore;
+import io.appform.statesman.engine.WorkflowMailbox;
+import io.appform.statesman.engine.WorkflowProvider;
+import io.appform.statesman.engine.action.impl.HttpAction;
+import io.appform.statesman.model.Action;
+import io.appform.statesman.model.DataObject;
+import io.appform.statesman.model.DataUpdate;
+import io.appform.statesman.model.Workflow;
+import io.appform.statesman.model.action.ActionRetryPolicy;
+import io.appform.statesman.model.action.FailedAction;
+import io.appform.statesman.model.action.FailedActionStatus;
+import io.appform.statesman.model.action.template.HttpActionTemplate;
+import io.appform.statesman.model.exception.ResponseCode;
+import io.appform.statesman.model.exception.StatesmanError;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ActionRetryQueueTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String WF_ID = "wf1";
+    private static final String TEMPLATE_ID = "T1";
+
+    private FailedActionStore failedActionStore;
+    private WorkflowMailbox mailbox;
+    private HttpAction action;
+    private HttpActionTemplate template;
+    private ActionRetryQueue retryQueue;
+
+    @Before
+    public void setup() {
+        failedActionStore = mock(FailedActionStore.class);
+        when(failedActionStore.claim(any(FailedAction.class), any(Date.class))).thenReturn(true);
+        val workflowProvider = mock(WorkflowProvider.class);
+        when(workflowProvider.getWorkflow(WF_ID)).thenReturn(Optional.of(
+                Workflow.builder()
+                        .id(WF_ID)
+                        .dataObject(DataObject.builder().data(MAPPER.createObjectNode()).build())
+                        .build()));
+        template = HttpActionTemplate.builder()
+                .templateId(TEMPLATE_ID)
+                .name("call")
+                .method("POST")
+                .url("http://provider.test")
+                .build();
+        template.setRetryPolicy(new ActionRetryPolicy(3, 1_000, 60_000, 2.0));
+        val actionTemplateStore = mock(ActionTemplateStore.class);
+        when(actionTemplateStore.get(TEMPLATE_ID)).thenReturn(Optional.of(template));
+        action = mock(HttpAction.class);
+        val actionRegistry = mock(ActionRegistry.class);
+        when(actionRegistry.get("HTTP")).thenReturn(Optional.<Action>of(action));
+        mailbox = mock(WorkflowMailbox.class);
+        when(mailbox.enqueue(any(DataUpdate.class))).thenReturn(CompletableFuture.completedFuture(null));
+        val actionLimiter = mock(ActionLimiter.class);
+        when(actionLimiter.acquire(anyString(), any())).thenReturn(ActionLimiter.Permit.NONE);
+        retryQueue = new ActionRetryQueue(() -> failedActionStore,
+                                          () -> workflowProvider,
+                                          () -> actionTemplateStore,
+                                          () -> actionRegistry,
+                                          () -> mailbox,
+                                          () -> actionLimiter,
+                                          new MetricRegistry());
+    }
+
+    @Test
+    public void testRecordSchedulesFirstRetry() {
+        val before = System.currentTimeMillis();
+        retryQueue.record(template, WF_ID, new IllegalStateException("boom"));
+
+        val saved = ArgumentCaptor.forClass(FailedAction.class);
+        verify(failedActionStore).save(saved.capture());
+        val failedAction = saved.getValue();
+        Assert.assertEquals(FailedActionStatus.PENDING, failedAction.getStatus());
+        Assert.assertEquals(1, failedAction.getAttempts());
+        Assert.assertEquals("IllegalStateException: boom", failedAction.getLastError());
+        assertDueAfter(failedAction, before, 1_000);
+    }
+
+    @Test
+    public void testRecordDeadLettersWithSingleAttemptPolicy() {
+        template.setRetryPolicy(new ActionRetryPolicy(1, 1_000, 60_000, 2.0));
+        retryQueue.record(template, WF_ID, new IllegalStateException("boom"));
+
+        val saved = ArgumentCaptor.forClass(FailedAction.class);
+        verify(failedActionStore).save(saved.capture());
+        Assert.assertEquals(FailedActionStatus.DEAD_LETTER, saved.getValue().getStatus());
+    }
+
+    @Test
+    public void testDeferDoesNotCountAsAttempt() {
+        template.setRetryPolicy(new ActionRetryPolicy(1, 1_000, 60_000, 2.0));
+        retryQueue.defer(template, WF_ID, new StatesmanError(ResponseCode.ACTION_THROTTLED));
+
+        val saved = ArgumentCaptor.forClass(FailedAction.class);
+        verify(failedActionStore).save(saved.capture());
+        val failedAction = saved.getValue();
+        Assert.assertEquals(FailedActionStatus.PENDING, failedAction.getStatus());
+        Assert.assertEquals(0, failedAction.getAttempts());
+
+        //The deferred action still gets its one attempt
+        when(failedActionStore.due(any(Date.class), anyInt())).thenReturn(Collections.singletonList(failedAction));
+        when(action.attempt(any(HttpActionTemplate.class), any(Workflow.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("boom")));
+        retryQueue.retryDue(10);
+
+        verify(action).attempt(any(HttpActionTemplate.class), any(Workflow.class));
+        Assert.assertEquals(FailedActionStatus.DEAD_LETTER, failedAction.getStatus());
+        Assert.assertEquals(1, failedAction.getAttempts());
+    }
+
+    @Test
+    public void testFailedRetryBacksOff() {
+        val failedAction = due(1);
+        when(action.attempt(any(HttpActionTemplate.class), any(Workflow.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("boom")));
+        val before = System.currentTimeMillis();
+
+        Assert.assertEquals(1, retryQueue.retryDue(10));
+
+        verify(failedActionStore).update(failedAction);
+        Assert.assertEquals(FailedActionStatus.PENDING, failedAction.getStatus());
+        Assert.assertEquals(2, failedAction.getAttempts());
+        assertDueAfter(failedAction, before, 2_000);
+    }
+
+    @Test
+    public void testRetryDeadLettersOnceAttemptsRunOut() {
+        val failedAction = due(2);
+        when(action.attempt(any(HttpActionTemplate.class), any(Workflow.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("boom")));
+
+        retryQueue.retryDue(10);
+
+        verify(failedActionStore).update(failedAction);
+        Assert.assertEquals(FailedActionStatus.DEAD_LETTER, failedAction.getStatus());
+        Assert.assertEquals(3, failedAction.getAttempts());
+    }
+
+    @Test
+    public void testShortCircuitedRetryDoesNotCountAsAttempt() {
+        val failedAction = due(2);
+        when(action.attempt(any(HttpActionTemplate.class), any(Workflow.class)))
+                .thenReturn(CompletableFuture.failedFuture(new StatesmanError(ResponseCode.CIRCUIT_OPEN)));
+
+        retryQueue.retryDue(10);
+
+        verify(failedActionStore).update(failedAction);
+        Assert.assertEquals(FailedActionStatus.PENDING, failedAction.getStatus());
+        Assert.assertEquals(2, failedAction.getAttempts());
+    }
+
+    @Test
+    public void testSuccessfulRetryMergesResponse() throws Exception {
+        val failedAction = due(1);
+        final JsonNode response = MAPPER.readTree("{\"callStatus\":\"ok\"}");
+        when(action.attempt(any(HttpActionTemplate.class), any(Workflow.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+
+        retryQueue.retryDue(10);
+
+        val update = ArgumentCaptor.forClass(DataUpdate.class);
+        verify(mailbox).enqueue(update.capture());
+        Assert.assertEquals(response, update.getValue().getData());
+        verify(failedActionStore).update(failedAction);
+        Assert.assertEquals(FailedActionStatus.SUCCEEDED, failedAction.getStatus());
+    }
+
+    @Test
+    public void testAsyncRetrySettlesOnCompletion() {
+        val failedAction = due(1);
+        val response = new CompletableFuture<JsonNode>();
+        when(action.attempt(any(HttpActionTemplate.class), any(Workflow.class))).thenReturn(response);
+
+        retryQueue.retryDue(10);
+        verify(failedActionStore, never()).update(any(FailedAction.class));
+
+        response.completeExceptionally(new IllegalStateException("boom"));
+        verify(failedActionStore).update(failedAction);
+        Assert.assertEquals(FailedActionStatus.PENDING, failedAction.getStatus());
+        Assert.assertEquals(2, failedAction.getAttempts());
+    }
+
+    @Test
+    public void testLostClaimIsSkipped() {
+        due(1);
+        when(failedActionStore.claim(any(FailedAction.class), any(Date.class))).thenReturn(false);
+
+        Assert.assertEquals(0, retryQueue.retryDue(10));
+        verify(action, never()).attempt(any(HttpActionTemplate.class), any(Workflow.class));
+    }
+
+    @Test
+    public void testReplayRequeuesDeadLetters() {
+        val failedAction = failedAction(3);
+        failedAction.setStatus(FailedActionStatus.DEAD_LETTER);
+        when(failedActionStore.deadLetters(anyInt())).thenReturn(Collections.singletonList(failedAction));
+
+        Assert.assertEquals(1, retryQueue.replayDeadLetters(10));
+
+        verify(failedActionStore).update(failedAction);
+        Assert.assertEquals(FailedActionStatus.PENDING, failedAction.getStatus());
+        Assert.assertEquals(0, failedAction.getAttempts());
+        Assert.assertTrue(failedAction.getNextAttemptAt().getTime() <= System.currentTimeMillis());
+    }
+
+    private FailedAction due(int attempts) {
+        val failedAction = failedAction(attempts);
+        when(failedActionStore.due(any(Date.class), anyInt())).thenReturn(Collections.singletonList(failedAction));
+        return failedAction;
+    }
+
+    private static FailedAction failedAction(int attempts) {
+        return FailedAction.builder()
+                .id("fa1")
+                .workflowId(WF_ID)
+                .actionTemplateId(TEMPLATE_ID)
+                .status(FailedActionStatus.PENDING)
+                .attempts(attempts)
+                .nextAttemptAt(new Date())
+                .build();
+    }
+
+    private static void assertDueAfter(FailedAction failedAction, long before, long delayMs) {
+        val nextAttemptAt = failedAction.getNextAttemptAt().getTime();
+        Assert.assertTrue(nextAttemptAt >= before + delayMs);
+        Assert.assertTrue(nextAttemptAt <= System.currentTimeMillis() + delayMs);
+    }
+}
@@ -0,0 +1,55 @@
+package io.appform.statesman.engine.action;
+
+import com.codahale.metrics.MetricRegistry;
+import io.appform.statesman.model.action.CircuitBreakerConfig;
+import io.appform.statesman.model.exception.StatesmanError;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CircuitBreakersTest {
+
+    @Test
+    public void testOpenHalfOpenClose() throws Exception {
+        val breakers = new CircuitBreakers(new CircuitBreakerConfig(true, 10, 4, 0.5, 100, 2), new MetricRegistry());
+        for (int i = 0; i < 4; i++) {
+            breakers.acquire("T1", null, "host");
+            breakers.record("T1", null, "host", false);
+        }
+        Assert.assertTrue(breakers.isOpen("T1"));
+        try {
+            breakers.acquire("T1", null, "host");
+            Assert.fail("Circuit should have been open");
+        }
+        catch (StatesmanError e) {
+            Assert.assertTrue(CircuitBreakers.isCircuitOpen(e));
+        }
+
+        Thread.sleep(150);
+        breakers.acquire("T1", null, "host");
+        breakers.acquire("T1", null, "host");
+        try {
+            breakers.acquire("T1", null, "host");
+            Assert.fail("Only two trial calls should be let through");
+        }
+        catch (StatesmanError e) {
+            Assert.assertTrue(CircuitBreakers.isCircuitOpen(e));
+        }
+        breakers.record("T1", null, "host", true);
+        breakers.record("T1", null, "host", true);
+        breakers.acquire("T1", null, "host");
+        Assert.assertFalse(breakers.isOpen("T1"));
+    }
+
+    @Test
+    public void testDisabledTemplateBreaker() {
+        val disabled = new CircuitBreakerConfig();
+        disabled.setEnabled(false);
+        val breakers = new CircuitBreakers(disabled, new MetricRegistry());
+        for (int i = 0; i < 100; i++) {
+            breakers.acquire("T1", null, "host");
+            breakers.record("T1", null, "host", false);
+        }
+        Assert.assertFalse(breakers.isOpen("T1"));
+    }
+}
@@ -0,0 +1,86 @@
+package io.appform.statesman.engine.action;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+public class ProviderHealthTrackerTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(3);
+
+    private MutableClock clock;
+    private ProviderHealthTracker tracker;
+
+    @Before
+    public void setup() {
+        clock = new MutableClock();
+        tracker = new ProviderHealthTracker(clock);
+    }
+
+    @Test
+    public void testUnobservedTemplateIsHealthy() {
+        Assert.assertEquals(1.0, tracker.healthFactor("T1"), 0.0);
+        Assert.assertEquals(1.0, tracker.healthFactor(null), 0.0);
+    }
+
+    @Test
+    public void testFailuresAndLatencyLowerTheFactor() {
+        for (int i = 0; i < 50; i++) {
+            tracker.record("T1", SLOW, false);
+            tracker.record("T2", FAST, true);
+        }
+        Assert.assertEquals(0.05, tracker.healthFactor("T1"), 0.001);
+        Assert.assertTrue(tracker.healthFactor("T2") > 0.98);
+    }
+
+    @Test
+    public void testDemotedTemplateRecoversWithoutSamples() {
+        for (int i = 0; i < 50; i++) {
+            tracker.record("T1", SLOW, false);
+        }
+        clock.advance(TimeUnit.SECONDS.toMillis(30));
+        final double halfDecayed = tracker.healthFactor("T1");
+        Assert.assertTrue(halfDecayed > 0.05 && halfDecayed < 0.5);
+        clock.advance(TimeUnit.MINUTES.toMillis(5));
+        Assert.assertTrue(tracker.healthFactor("T1") > 0.99);
+    }
+
+    @Test
+    public void testFirstSampleAfterIdleReplacesStaleLatency() {
+        for (int i = 0; i < 50; i++) {
+            tracker.record("T1", SLOW, true);
+        }
+        clock.advance(TimeUnit.MINUTES.toMillis(10));
+        tracker.record("T1", FAST, true);
+        Assert.assertTrue(tracker.healthFactor("T1") > 0.98);
+    }
+
+    private static final class MutableClock extends Clock {
+        private long millis = 1_000_000L;
+
+        void advance(long deltaMs) {
+            millis += deltaMs;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
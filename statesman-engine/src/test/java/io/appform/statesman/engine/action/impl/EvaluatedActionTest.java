@@ -34,7 +34,7 @@ public class EvaluatedActionTest {
     public void setUp() {
         ObjectMapper mapper = new ObjectMapper();
         actionHelper = mock(ActionHelper.class);
-        action = new EvaluatedAction(null, mapper, actionHelper);
+        action = new EvaluatedAction(null, mapper, actionHelper, () -> null);
     }
 
     @Test
@@ -0,0 +1,184 @@
+package io.appform.statesman.engine.action.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.appform.eventingester.models.Event;
+import io.appform.statesman.engine.WorkflowMailbox;
+import io.appform.statesman.engine.action.ActionRetryQueue;
+import io.appform.statesman.engine.action.CircuitBreakers;
+import io.appform.statesman.engine.action.ProviderHealthTracker;
+import io.appform.statesman.engine.action.WorkflowTreeCache;
+import io.appform.statesman.engine.events.SpoolingEventPublisher;
+import io.appform.statesman.engine.handlebars.HandleBarsService;
+import io.appform.statesman.engine.http.HttpClient;
+import io.appform.statesman.engine.http.HttpClientRegistry;
+import io.appform.statesman.model.DataObject;
+import io.appform.statesman.model.DataUpdate;
+import io.appform.statesman.model.Workflow;
+import io.appform.statesman.model.action.CircuitBreakerConfig;
+import io.appform.statesman.model.action.template.ActionTemplate;
+import io.appform.statesman.model.action.template.HttpActionTemplate;
+import io.appform.statesman.model.exception.ResponseCode;
+import io.appform.statesman.model.exception.StatesmanError;
+import lombok.val;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HttpActionTest {
+    private static final String URL = "http://provider.test/call";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private HttpClient httpClient;
+    private WorkflowMailbox mailbox;
+    private ActionRetryQueue retryQueue;
+    private CircuitBreakers circuitBreakers;
+    private SpoolingEventPublisher publisher;
+    private ScheduledExecutorService asyncActionExecutor;
+    private HttpAction action;
+
+    @Before
+    public void setup() {
+        httpClient = mock(HttpClient.class);
+        val httpClientRegistry = mock(HttpClientRegistry.class);
+        when(httpClientRegistry.client(any())).thenReturn(httpClient);
+        mailbox = mock(WorkflowMailbox.class);
+        when(mailbox.enqueue(any(DataUpdate.class))).thenReturn(CompletableFuture.completedFuture(null));
+        retryQueue = mock(ActionRetryQueue.class);
+        circuitBreakers = mock(CircuitBreakers.class);
+        publisher = mock(SpoolingEventPublisher.class);
+        asyncActionExecutor = Executors.newSingleThreadScheduledExecutor();
+        action = new HttpAction(new HandleBarsService(),
+                                () -> httpClientRegistry,
+                                publisher,
+                                MAPPER,
+                                new WorkflowTreeCache(MAPPER),
+                                () -> mailbox,
+                                asyncActionExecutor,
+                                () -> retryQueue,
+                                new ProviderHealthTracker(),
+                                circuitBreakers);
+    }
+
+    @After
+    public void tearDown() {
+        asyncActionExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testAsyncResponseIsEnqueuedToTheMailbox() throws Exception {
+        when(httpClient.postAsync(eq(URL), anyString(), anyMapOf(String.class, String.class)))
+                .thenReturn(CompletableFuture.completedFuture(response(200, "{\"status\":\"ok\"}")));
+
+        Assert.assertTrue(action.apply(template(), workflow()).isNull());
+
+        val update = ArgumentCaptor.forClass(DataUpdate.class);
+        verify(mailbox, timeout(5_000)).enqueue(update.capture());
+        verify(mailbox, never()).handle(any(DataUpdate.class));
+        Assert.assertEquals("wf1", update.getValue().getWorkflowId());
+        Assert.assertEquals("ok", update.getValue().getData().get("callStatus").asText());
+    }
+
+    @Test
+    public void testOpenCircuitOnAsyncRetryGoesToTheRetryQueue() throws Exception {
+        val failed = new CompletableFuture<Response>();
+        failed.completeExceptionally(new IOException("connection reset"));
+        when(httpClient.postAsync(eq(URL), anyString(), anyMapOf(String.class, String.class))).thenReturn(failed);
+        val circuitOpen = new StatesmanError("open", ResponseCode.CIRCUIT_OPEN);
+        doNothing()
+                .doThrow(circuitOpen)
+                .when(circuitBreakers)
+                .acquire(eq("T1"), isNull(CircuitBreakerConfig.class), eq("provider.test"));
+
+        action.apply(template(), workflow());
+
+        verify(retryQueue, timeout(5_000)).record(any(ActionTemplate.class), eq("wf1"), eq(circuitOpen));
+        verify(mailbox, never()).enqueue(any(DataUpdate.class));
+    }
+
+    @Test
+    public void testOpenCircuitOnFirstAsyncAttemptIsRecordedRightAway() throws Exception {
+        val circuitOpen = new StatesmanError("open", ResponseCode.CIRCUIT_OPEN);
+        doThrow(circuitOpen)
+                .when(circuitBreakers)
+                .acquire(anyString(), any(), anyString());
+
+        action.apply(template(), workflow());
+
+        verify(retryQueue).record(any(ActionTemplate.class), eq("wf1"), eq(circuitOpen));
+        verify(publisher).publish(anyListOf(Event.class));
+    }
+
+    @Test
+    public void testAsyncExecutionIsReportedOnceTheCallCompletes() throws Exception {
+        val response = new CompletableFuture<Response>();
+        when(httpClient.postAsync(eq(URL), anyString(), anyMapOf(String.class, String.class))).thenReturn(response);
+
+        val execution = action.applyAsync(template(), workflow());
+        Assert.assertFalse(execution.isDone());
+        verify(publisher, never()).publish(anyListOf(Event.class));
+
+        response.complete(response(200, "{\"status\":\"ok\"}"));
+        execution.get(5, TimeUnit.SECONDS);
+        verify(publisher).publish(anyListOf(Event.class));
+        verify(retryQueue, never()).record(any(ActionTemplate.class), anyString(), any(Throwable.class));
+    }
+
+    private static HttpActionTemplate template() {
+        return HttpActionTemplate.builder()
+                .templateId("T1")
+                .name("async call")
+                .active(true)
+                .method("POST")
+                .url(URL)
+                .payload("{}")
+                .responseTranslator("{\"callStatus\":\"{{status}}\"}")
+                .async(true)
+                .build();
+    }
+
+    private static Workflow workflow() {
+        return Workflow.builder()
+                .id("wf1")
+                .templateId("WT1")
+                .dataObject(DataObject.builder().data(MAPPER.createObjectNode()).build())
+                .build();
+    }
+
+    private static Response response(int code, String body) {
+        return new Response.Builder()
+                .request(new Request.Builder().url(URL).build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("")
+                .header("Content-Type", "application/json")
+                .body(ResponseBody.create(MediaType.parse("application/json"), body))
+                .build();
+    }
+}
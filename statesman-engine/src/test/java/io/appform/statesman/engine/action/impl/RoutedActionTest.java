@@ -0,0 +1,84 @@
+package io.appform.statesman.engine.action.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import io.appform.statesman.engine.ProviderSelector;
+import io.appform.statesman.engine.action.ActionExecutor;
+import io.appform.statesman.engine.action.ActionLimiter;
+import io.appform.statesman.engine.action.ActionRetryQueue;
+import io.appform.statesman.model.Workflow;
+import io.appform.statesman.model.action.template.ActionTemplate;
+import io.appform.statesman.model.action.template.RoutedActionTemplate;
+import io.appform.statesman.model.exception.ResponseCode;
+import io.appform.statesman.model.exception.StatesmanError;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RoutedActionTest {
+    private ActionExecutor actionExecutor;
+    private ActionLimiter actionLimiter;
+    private ActionRetryQueue retryQueue;
+    private RoutedAction action;
+
+    @Before
+    public void setup() {
+        actionExecutor = mock(ActionExecutor.class);
+        actionLimiter = mock(ActionLimiter.class);
+        retryQueue = mock(ActionRetryQueue.class);
+        val providerSelector = mock(ProviderSelector.class);
+        when(providerSelector.provider(anyString(), anyMapOf(String.class, String.class), any(Workflow.class)))
+                .thenReturn("P1");
+        action = new RoutedAction(() -> actionExecutor,
+                                  null,
+                                  providerSelector,
+                                  new ObjectMapper(),
+                                  () -> retryQueue,
+                                  actionLimiter);
+    }
+
+    @Test
+    public void testThrottledProviderDefersTheAction() {
+        val throttled = new StatesmanError("busy", ResponseCode.ACTION_THROTTLED);
+        when(actionLimiter.acquireProvider("P1")).thenThrow(throttled);
+        val template = template();
+
+        Assert.assertTrue(action.apply(template, Workflow.builder().id("wf1").build()).isNull());
+
+        verify(retryQueue).defer(template, "wf1", throttled);
+        verify(retryQueue, never()).record(any(ActionTemplate.class), anyString(), any(Throwable.class));
+        verify(actionExecutor, never()).execute(anyString(), any(Workflow.class));
+    }
+
+    @Test
+    public void testOtherFailuresAreRecorded() {
+        val template = template();
+        when(actionLimiter.acquireProvider("P1")).thenReturn(ActionLimiter.Permit.NONE);
+        when(actionExecutor.execute(anyString(), any(Workflow.class))).thenThrow(new IllegalStateException("boom"));
+
+        action.apply(template, Workflow.builder().id("wf1").build());
+
+        verify(retryQueue).record(eq(template), eq("wf1"), any(IllegalStateException.class));
+        verify(retryQueue, never()).defer(any(ActionTemplate.class), anyString(), any(Throwable.class));
+    }
+
+    private static RoutedActionTemplate template() {
+        return RoutedActionTemplate.builder()
+                .templateId("R1")
+                .name("routed")
+                .active(true)
+                .useCase("sms")
+                .providerTemplates(ImmutableMap.of("P1", "T1"))
+                .build();
+    }
+}
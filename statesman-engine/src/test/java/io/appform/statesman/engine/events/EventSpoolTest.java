@@ -0,0 +1,98 @@
+package io.appform.statesman.engine.events;
+
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+public class EventSpoolTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRecordsAreReadInOrderAcrossSegments() throws Exception {
+        val spool = new EventSpool(folder.getRoot().toPath(), 64, 8);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(spool.append(record(i)));
+        }
+        val batch = spool.read(100);
+        Assert.assertEquals(10, batch.getRecords().size());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals("record-" + i, new String(batch.getRecords().get(i), StandardCharsets.UTF_8));
+        }
+        Assert.assertFalse(spool.isEmpty());
+        spool.commit(batch);
+        Assert.assertTrue(spool.isEmpty());
+        Assert.assertTrue(spool.read(100).isEmpty());
+        spool.close();
+    }
+
+    @Test
+    public void testFullSpoolRejectsRecords() throws Exception {
+        val spool = new EventSpool(folder.getRoot().toPath(), 64, 2);
+        int accepted = 0;
+        while (spool.append(record(accepted))) {
+            accepted++;
+        }
+        Assert.assertTrue(accepted > 0);
+        Assert.assertFalse(spool.append(new byte[100]));
+        spool.commit(spool.read(accepted));
+        Assert.assertTrue(spool.append(record(accepted)));
+        spool.close();
+    }
+
+    @Test
+    public void testUncommittedRecordsSurviveRestart() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        val spool = new EventSpool(directory, 64, 8);
+        for (int i = 0; i < 6; i++) {
+            spool.append(record(i));
+        }
+        spool.commit(spool.read(2));
+        spool.close();
+
+        val reopened = new EventSpool(directory, 64, 8);
+        reopened.append(record(6));
+        val batch = reopened.read(100);
+        Assert.assertEquals(5, batch.getRecords().size());
+        Assert.assertEquals("record-2", new String(batch.getRecords().get(0), StandardCharsets.UTF_8));
+        Assert.assertEquals("record-6", new String(batch.getRecords().get(4), StandardCharsets.UTF_8));
+        reopened.close();
+    }
+
+    @Test
+    public void testOldestTimestampFollowsTheReadPosition() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        val spool = new EventSpool(directory, 64, 8);
+        Assert.assertEquals(0, spool.oldestTimestamp());
+        val before = System.currentTimeMillis();
+        spool.append(record(0));
+        val first = spool.oldestTimestamp();
+        Assert.assertTrue(first >= before);
+        Thread.sleep(5);
+        for (int i = 1; i < 6; i++) {
+            spool.append(record(i));
+        }
+        Assert.assertEquals(first, spool.oldestTimestamp());
+
+        spool.commit(spool.read(1));
+        val second = spool.oldestTimestamp();
+        Assert.assertTrue(second > first);
+        spool.close();
+
+        val reopened = new EventSpool(directory, 64, 8);
+        Assert.assertEquals(second, reopened.oldestTimestamp());
+        reopened.commit(reopened.read(100));
+        Assert.assertEquals(0, reopened.oldestTimestamp());
+        reopened.close();
+    }
+
+    private static byte[] record(int i) {
+        return ("record-" + i).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,92 @@
+package io.appform.statesman.engine.events;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.appform.eventingester.client.EventPublisher;
+import io.appform.eventingester.models.Event;
+import io.appform.statesman.model.EventSpoolConfig;
+import lombok.val;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class SpoolingEventPublisherTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private EventPublisher eventPublisher;
+    private ExecutorService executorService;
+    private SpoolingEventPublisher publisher;
+
+    @Before
+    public void setup() throws Exception {
+        eventPublisher = mock(EventPublisher.class);
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(eventPublisher).publish(anyListOf(Event.class));
+        //Single thread and no queue, so a second batch is rejected while the first one is being sent
+        executorService = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>());
+        val config = new EventSpoolConfig();
+        config.setDirectory(folder.getRoot().getAbsolutePath());
+        config.setSegmentSizeMb(1);
+        publisher = new SpoolingEventPublisher(eventPublisher,
+                                               config,
+                                               new ObjectMapper(),
+                                               new MetricRegistry(),
+                                               executorService);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executorService.shutdownNow();
+        publisher.close();
+    }
+
+    @Test
+    public void testSlowPublisherDoesNotBlockTheCaller() throws Exception {
+        val start = System.currentTimeMillis();
+        publisher.publish(events("first"));
+        Assert.assertTrue(System.currentTimeMillis() - start < 1_000);
+        verify(eventPublisher, timeout(5_000)).publish(anyListOf(Event.class));
+    }
+
+    @Test
+    public void testSaturatedExecutorSpoolsEvents() throws Exception {
+        publisher.publish(events("first"));
+        verify(eventPublisher, timeout(5_000)).publish(anyListOf(Event.class));
+        publisher.publish(events("second"));
+        release.countDown();
+
+        Assert.assertEquals(1, publisher.drain(10));
+        verify(eventPublisher, times(2)).publish(anyListOf(Event.class));
+    }
+
+    private static List<Event> events(String type) {
+        return Collections.singletonList(Event.builder()
+                                                 .topic("statesman")
+                                                 .eventType(type)
+                                                 .build());
+    }
+}
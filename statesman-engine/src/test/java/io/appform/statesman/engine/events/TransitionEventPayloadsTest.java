@@ -0,0 +1,115 @@
+package io.appform.statesman.engine.events;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.appform.statesman.engine.observer.events.StateTransitionEvent;
+import io.appform.statesman.model.*;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class TransitionEventPayloadsTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final State STATE = new State("A", false);
+
+    private final TransitionEventPayloads payloads = new TransitionEventPayloads();
+
+    @Test
+    public void testDiffModeSendsPatchesBetweenSnapshots() throws Exception {
+        val template = template(new EventPayloadConfig(EventPayloadConfig.Mode.DIFF, Collections.emptyList(), 3));
+        val previous = MAPPER.readTree("{\"a\":1,\"b\":{\"c\":2},\"gone\":true}");
+        val current = MAPPER.readTree("{\"a\":1,\"b\":{\"c\":3},\"added\":\"x\"}");
+
+        Assert.assertEquals(EventPayloadConfig.Mode.FULL, payloads.payload(event(template, null, previous)).getMode());
+        val diff = payloads.payload(event(template, previous, current));
+        Assert.assertEquals(EventPayloadConfig.Mode.DIFF, diff.getMode());
+        Assert.assertNull(diff.getData());
+        Assert.assertEquals(MAPPER.readTree("[{\"op\":\"replace\",\"path\":\"/b/c\",\"value\":3},"
+                                                    + "{\"op\":\"remove\",\"path\":\"/gone\"},"
+                                                    + "{\"op\":\"add\",\"path\":\"/added\",\"value\":\"x\"}]"),
+                            diff.getPatch());
+        Assert.assertEquals(EventPayloadConfig.Mode.DIFF, payloads.payload(event(template, previous, current)).getMode());
+        Assert.assertEquals(EventPayloadConfig.Mode.FULL, payloads.payload(event(template, previous, current)).getMode());
+        Assert.assertEquals(EventPayloadConfig.Mode.FULL, payloads.payload(event(template, null, current)).getMode());
+    }
+
+    @Test
+    public void testDiffCarriesChangesThatEmittedNoEvent() throws Exception {
+        val template = template(new EventPayloadConfig(EventPayloadConfig.Mode.DIFF, Collections.emptyList(), 20));
+        val emitted = MAPPER.readTree("{\"a\":1}");
+        //A default action merged its response without a transition, so no event carried "action"
+        val merged = MAPPER.readTree("{\"a\":1,\"action\":\"done\"}");
+        val current = MAPPER.readTree("{\"a\":2,\"action\":\"done\"}");
+
+        Assert.assertEquals(EventPayloadConfig.Mode.FULL, payloads.payload(event(template, null, emitted)).getMode());
+        val diff = payloads.payload(event(template, merged, current));
+        Assert.assertEquals(EventPayloadConfig.Mode.DIFF, diff.getMode());
+        Assert.assertEquals(MAPPER.readTree("[{\"op\":\"replace\",\"path\":\"/a\",\"value\":2},"
+                                                    + "{\"op\":\"add\",\"path\":\"/action\",\"value\":\"done\"}]"),
+                            diff.getPatch());
+    }
+
+    @Test
+    public void testPatchesCarryTheStampTheyApplyTo() throws Exception {
+        val template = template(new EventPayloadConfig(EventPayloadConfig.Mode.DIFF, Collections.emptyList(), 20));
+        val first = MAPPER.readTree("{\"a\":1}");
+        val second = MAPPER.readTree("{\"a\":2}");
+        val third = MAPPER.readTree("{\"a\":3}");
+
+        val snapshot = payloads.payload(event(template, null, first, 4));
+        Assert.assertEquals(EventPayloadConfig.Mode.FULL, snapshot.getMode());
+        Assert.assertEquals(4, snapshot.getVersion());
+        Assert.assertNull(snapshot.getBaseVersion());
+        //Second hop of the same update
+        val sameVersion = payloads.payload(event(template, first, second, 4));
+        Assert.assertEquals(EventPayloadConfig.Mode.DIFF, sameVersion.getMode());
+        Assert.assertEquals(4, sameVersion.getVersion());
+        Assert.assertEquals(1, sameVersion.getHop());
+        Assert.assertEquals(Long.valueOf(4), sameVersion.getBaseVersion());
+        Assert.assertEquals(Integer.valueOf(0), sameVersion.getBaseHop());
+        //Version 5 was written elsewhere, so the patch still applies to what this node emitted last
+        val skipped = payloads.payload(event(template, second, third, 6));
+        Assert.assertEquals(EventPayloadConfig.Mode.DIFF, skipped.getMode());
+        Assert.assertEquals(6, skipped.getVersion());
+        Assert.assertEquals(0, skipped.getHop());
+        Assert.assertEquals(Long.valueOf(4), skipped.getBaseVersion());
+        Assert.assertEquals(Integer.valueOf(1), skipped.getBaseHop());
+    }
+
+    @Test
+    public void testProjectionKeepsDeclaredFields() throws Exception {
+        val template = template(new EventPayloadConfig(EventPayloadConfig.Mode.PROJECTION,
+                                                       Arrays.asList("a", "/b/c", "/missing"), 20));
+        val payload = payloads.payload(event(template, null, MAPPER.readTree("{\"a\":1,\"b\":{\"c\":3,\"d\":4},\"e\":5}")));
+        Assert.assertEquals(MAPPER.readTree("{\"a\":1,\"b\":{\"c\":3}}"), payload.getData());
+        Assert.assertEquals(MAPPER.readTree("{\"a\":1}"), payload.getUpdate());
+    }
+
+    @Test
+    public void testTemplatesWithoutConfigGetFullPayloads() throws Exception {
+        val data = MAPPER.readTree("{\"a\":1}");
+        val payload = payloads.payload(event(template(null), data, data));
+        Assert.assertEquals(EventPayloadConfig.Mode.FULL, payload.getMode());
+        Assert.assertEquals(data, payload.getData());
+        Assert.assertNull(payload.getPatch());
+    }
+
+    private static WorkflowTemplate template(EventPayloadConfig config) {
+        return new WorkflowTemplate("T1", "T1", true, Collections.emptyList(), STATE, config);
+    }
+
+    private static StateTransitionEvent event(WorkflowTemplate template, JsonNode previous, JsonNode current)
+            throws Exception {
+        return event(template, previous, current, 0);
+    }
+
+    private static StateTransitionEvent event(WorkflowTemplate template, JsonNode previous, JsonNode current,
+                                              long version) throws Exception {
+        val workflow = new Workflow("W1", "T1", new DataObject(current, STATE, null, null), null, null, version);
+        val update = new DataUpdate("W1", MAPPER.readTree("{\"a\":1,\"z\":2}"), null);
+        return new StateTransitionEvent(template, workflow, update, STATE, null, previous);
+    }
+}
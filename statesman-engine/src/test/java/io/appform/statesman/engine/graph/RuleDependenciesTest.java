@@ -0,0 +1,38 @@
+package io.appform.statesman.engine.graph;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class RuleDependenciesTest {
+
+    @Test
+    public void extractsSimplePaths() {
+        val dependencies = RuleDependencies.extract("\"$.update.Q1\" == \"KA\" && \"$.data.language\" != 'EN'");
+        Assert.assertArrayEquals(new JsonPointer[]{
+                JsonPointer.compile("/update/Q1"),
+                JsonPointer.compile("/data/language")
+        }, dependencies);
+    }
+
+    @Test
+    public void rulesWithoutPathsAreNotAnalysed() {
+        Assert.assertNull(RuleDependencies.extract("1 == 1"));
+    }
+
+    @Test
+    public void rulesWithFunctionCallsAreNotAnalysed() {
+        Assert.assertNull(RuleDependencies.extract("path.exists(\"$.update.Q1\") == true"));
+        Assert.assertNotNull(RuleDependencies.extract("\"$.update.Q1\" == \"f(x)\""));
+    }
+
+    @Test
+    public void complexPathsAreNotAnalysed() {
+        Assert.assertNull(RuleDependencies.extract("\"$.update.answers[0]\" == 1"));
+        Assert.assertNull(RuleDependencies.extract("\"$.data.*\" == 1"));
+    }
+}
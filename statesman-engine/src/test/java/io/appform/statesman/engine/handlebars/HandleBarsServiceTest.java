@@ -1,5 +1,6 @@
 package io.appform.statesman.engine.handlebars;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.*;
@@ -1136,4 +1137,34 @@ public class HandleBarsServiceTest {
         Assert.assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855",
                 hb.transform("{{sha256 value}}", mapper.createObjectNode().put("value", "")));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCompiledTemplateCacheMetrics() {
+        val metrics = new MetricRegistry();
+        val hb = new HandleBarsService(metrics);
+        final ObjectMapper mapper = Jackson.newObjectMapper();
+
+        Assert.assertEquals("a", hb.transform("{{value}}", mapper.createObjectNode().put("value", "a")));
+        Assert.assertEquals("b", hb.transform("{{value}}", mapper.createObjectNode().put("value", "b")));
+        Assert.assertEquals("c-", hb.transform("{{value}}-", mapper.createObjectNode().put("value", "c")));
+
+        Assert.assertEquals(2, metrics.meter("io.appform.statesman.engine.handlebars.HandleBarsService.templates.misses").getCount());
+        Assert.assertEquals(1, metrics.meter("io.appform.statesman.engine.handlebars.HandleBarsService.templates.hits").getCount());
+        Assert.assertEquals(2, metrics.timer("io.appform.statesman.engine.handlebars.HandleBarsService.templates.loads").getCount());
+    }
+
+    @Test
+    @SneakyThrows
+    public void testTransformToNode() {
+        final ObjectMapper mapper = Jackson.newObjectMapper();
+        final String template = "{\"language\" : {{{ map_lookup op_1='EN' op_2='KA' op_3='HI' pointer='/payload[question1]/0'}}}, \"id\" : \"{{id}}\" }";
+        final JsonNode payload = mapper.createObjectNode()
+                .put("id", "abc")
+                .set("payload[question1]", mapper.createArrayNode().add(2));
+
+        Assert.assertEquals(mapper.readTree(handleBarsService.transform(JsonNodeValueResolver.INSTANCE, template, payload)),
+                            handleBarsService.transformToNode(JsonNodeValueResolver.INSTANCE, template, payload));
+        Assert.assertTrue(handleBarsService.transformToNode("{{missing}}", payload).isMissingNode());
+        Assert.assertNull(handleBarsService.transformToNode("", payload));
+    }
+}
@@ -0,0 +1,51 @@
+package io.appform.statesman.engine.http;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import io.appform.statesman.model.HttpClientConfiguration;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+
+public class HttpClientRegistryTest {
+    private HttpClient defaultClient;
+    private MetricRegistry metricRegistry;
+    private HttpClientRegistry registry;
+
+    @Before
+    public void setup() {
+        defaultClient = mock(HttpClient.class);
+        metricRegistry = new MetricRegistry();
+        registry = new HttpClientRegistry(() -> defaultClient,
+                                          ImmutableMap.of("slow", new HttpClientConfiguration(),
+                                                          "fast", new HttpClientConfiguration()),
+                                          new ObjectMapper(),
+                                          metricRegistry);
+    }
+
+    @Test
+    public void testFallsBackToDefaultClient() {
+        Assert.assertSame(defaultClient, registry.client(null));
+        Assert.assertSame(defaultClient, registry.client(""));
+        Assert.assertSame(defaultClient, registry.client("unknown"));
+    }
+
+    @Test
+    public void testProfileClientsAreCached() {
+        final HttpClient slow = registry.client("slow");
+        Assert.assertNotSame(defaultClient, slow);
+        Assert.assertSame(slow, registry.client("slow"));
+        Assert.assertNotSame(slow, registry.client("fast"));
+    }
+
+    @Test
+    public void testProfileMetricsAreNamedAfterTheProfile() {
+        registry.client("slow");
+        Assert.assertTrue(metricRegistry.getNames()
+                                  .stream()
+                                  .anyMatch(name -> name.contains(".http-profile-slow.")));
+    }
+}
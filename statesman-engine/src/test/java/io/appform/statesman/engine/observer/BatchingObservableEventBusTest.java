@@ -0,0 +1,95 @@
+package io.appform.statesman.engine.observer;
+
+import com.codahale.metrics.MetricRegistry;
+import io.appform.statesman.engine.observer.events.WorkflowInitEvent;
+import io.appform.statesman.model.EventBusConfig;
+import io.appform.statesman.model.Workflow;
+import lombok.val;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BatchingObservableEventBusTest {
+
+    @Test
+    public void testEventsAreDeliveredInBatches() throws Exception {
+        val subscriber = new RecordingSubscriber();
+        val config = new EventBusConfig(EventBusConfig.Type.BATCHING,
+                                        EventBusConfig.OverflowPolicy.BLOCK,
+                                        64, 1, 10, 20);
+        val eventBus = new BatchingObservableEventBus(subscriber, config, new MetricRegistry());
+        eventBus.start();
+        for (int i = 0; i < 1_000; i++) {
+            eventBus.publish(event(i));
+        }
+        eventBus.stop();
+        Assert.assertEquals(1_000, subscriber.events.get());
+        Assert.assertTrue(subscriber.batchSizes.stream().allMatch(size -> size <= 10));
+        Assert.assertEquals(0, subscriber.single.get());
+    }
+
+    @Test
+    public void testIdleConsumersWakeUpForNewEvents() throws Exception {
+        val subscriber = new RecordingSubscriber();
+        val config = new EventBusConfig(EventBusConfig.Type.BATCHING,
+                                        EventBusConfig.OverflowPolicy.BLOCK,
+                                        64, 2, 10, 20);
+        val eventBus = new BatchingObservableEventBus(subscriber, config, new MetricRegistry());
+        eventBus.start();
+        //Let the consumers go idle
+        Thread.sleep(100);
+        eventBus.publish(event(0));
+        val deadline = System.currentTimeMillis() + 1_000;
+        while (subscriber.events.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Assert.assertEquals(1, subscriber.events.get());
+        eventBus.stop();
+    }
+
+    @Test
+    public void testSpillDeliversOnCaller() throws Exception {
+        val subscriber = new RecordingSubscriber();
+        val config = new EventBusConfig(EventBusConfig.Type.BATCHING,
+                                        EventBusConfig.OverflowPolicy.SPILL,
+                                        2, 1, 10, 20);
+        //Not started, so nothing drains the queue
+        val eventBus = new BatchingObservableEventBus(subscriber, config, new MetricRegistry());
+        for (int i = 0; i < 5; i++) {
+            eventBus.publish(event(i));
+        }
+        Assert.assertEquals(3, subscriber.single.get());
+        eventBus.start();
+        eventBus.stop();
+        Assert.assertEquals(5, subscriber.events.get());
+    }
+
+    private static ObservableEvent event(int index) {
+        return new WorkflowInitEvent(Workflow.builder().id("WF" + index).build());
+    }
+
+    private static final class RecordingSubscriber extends ObservableEventBusSubscriber {
+        private final AtomicInteger events = new AtomicInteger();
+        private final AtomicInteger single = new AtomicInteger();
+        private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        private RecordingSubscriber() {
+            super(null);
+        }
+
+        @Override
+        protected void handleEvent(ObservableEvent event) {
+            single.incrementAndGet();
+            events.incrementAndGet();
+        }
+
+        @Override
+        protected void handleEvents(List<ObservableEvent> batch) {
+            batchSizes.add(batch.size());
+            events.addAndGet(batch.size());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package io.appform.statesman.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Selects and tunes the bus that observable engine events are delivered on.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventBusConfig {
+
+    public enum Type {
+        /**
+         * Events are delivered on the publishing thread
+         */
+        SYNC,
+        /**
+         * Events are queued and delivered in batches by dedicated consumer threads
+         */
+        BATCHING
+    }
+
+    /**
+     * What a batching bus does with an event when its queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Wait for space in the queue
+         */
+        BLOCK,
+        /**
+         * Drop the oldest queued event to make space
+         */
+        DROP_OLDEST,
+        /**
+         * Deliver the event on the publishing thread, bypassing the queue
+         */
+        SPILL
+    }
+
+    @NotNull
+    private Type type = Type.SYNC;
+
+    @NotNull
+    private OverflowPolicy overflowPolicy = OverflowPolicy.SPILL;
+
+    @Min(2)
+    @Max(1 << 20)
+    private int queueSize = 16_384;
+
+    @Min(1)
+    @Max(64)
+    private int consumerThreads = 1;
+
+    @Min(1)
+    @Max(10_000)
+    private int batchSize = 256;
+
+    @Min(1)
+    @Max(60_000)
+    private long maxBatchDelayMs = 50;
+}
@@ -0,0 +1,50 @@
+package io.appform.statesman.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What a workflow's state change events carry about its data.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventPayloadConfig {
+
+    public enum Mode {
+        /**
+         * The whole data and update on every transition.
+         */
+        FULL,
+        /**
+         * Only what changed in the transition, as a JSON patch (RFC 6902) over the data of the previous transition.
+         * A full snapshot goes out every <code>snapshotEvery</code> transitions, and whenever the previous data isn't
+         * known, so the data can always be rebuilt from the latest snapshot and the patches after it.
+         */
+        DIFF,
+        /**
+         * Only the <code>fields</code> of the data and the update.
+         */
+        PROJECTION
+    }
+
+    @NotNull
+    private Mode mode = Mode.FULL;
+
+    /**
+     * JSON pointers (<code>/a/b</code>) or top level field names to keep in {@link Mode#PROJECTION} mode.
+     */
+    @NotNull
+    private List<String> fields = Collections.emptyList();
+
+    @Min(1)
+    @Max(10_000)
+    private int snapshotEvery = 20;
+}
@@ -0,0 +1,56 @@
+package io.appform.statesman.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.validator.constraints.NotEmpty;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+/**
+ * Local spool that reporting events are written to while the event publisher is failing.
+ * The spool is a set of memory mapped segment files of <code>segmentSizeMb</code> each in <code>directory</code>;
+ * once <code>maxSegments</code> of them are pending, further events are dropped.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventSpoolConfig {
+
+    private boolean enabled = true;
+
+    @NotEmpty
+    private String directory = "spool";
+
+    @Min(1)
+    @Max(1024)
+    private int segmentSizeMb = 64;
+
+    @Min(1)
+    @Max(1024)
+    private int maxSegments = 16;
+
+    @Min(1)
+    @Max(10_000)
+    private int drainBatchSize = 100;
+
+    @Min(10)
+    private long drainIntervalMs = 1_000;
+
+    @Min(10)
+    private long maxDrainBackoffMs = 30_000;
+
+    /**
+     * Threads sending events off the caller's thread.
+     */
+    @Min(1)
+    @Max(64)
+    private int publishThreads = 2;
+
+    /**
+     * Event batches waiting for a publish thread. Batches beyond this go straight to the spool.
+     */
+    @Min(1)
+    private int publishQueueSize = 1024;
+}
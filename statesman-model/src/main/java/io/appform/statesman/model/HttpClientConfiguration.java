@@ -26,4 +26,10 @@ public class HttpClientConfiguration {
 
     @Max(86400000L)
     private int opTimeoutMs = 10000;
+
+    /**
+     * Concurrent calls allowed to a single host. Defaults to {@link #connections} when not set.
+     */
+    @Max(1024L)
+    private int maxRequestsPerHost;
 }
@@ -1,5 +1,6 @@
 package io.appform.statesman.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import lombok.*;
 
 import java.util.Date;
@@ -9,11 +10,20 @@ import java.util.Date;
  */
 @Value
 @Builder
-@AllArgsConstructor
+@AllArgsConstructor(onConstructor_ = @JsonCreator)
 public class Workflow {
     String id;
     String templateId;
     DataObject dataObject;
     Date created;
     Date updated;
+
+    /**
+     * Version of the stored instance this object was read from. Used for compare-and-set updates.
+     */
+    long version;
+
+    public Workflow(String id, String templateId, DataObject dataObject, Date created, Date updated) {
+        this(id, templateId, dataObject, created, updated, 0);
+    }
 }
@@ -17,4 +17,13 @@ public class WorkflowTemplate {
     boolean active;
     List<String> rules;
     State startState;
+
+    /**
+     * Shape of the state change events of workflows of this template. Full payloads if not set.
+     */
+    EventPayloadConfig eventPayload;
+
+    public WorkflowTemplate(String id, String name, boolean active, List<String> rules, State startState) {
+        this(id, name, active, rules, startState, null);
+    }
 }
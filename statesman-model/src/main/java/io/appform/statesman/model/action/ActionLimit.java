@@ -0,0 +1,32 @@
+package io.appform.statesman.model.action;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+/**
+ * Rate limit and concurrency bulkhead for an action template or a provider.
+ * A call waits up to <code>maxWaitMs</code> for a permit, with at most <code>maxQueued</code> callers waiting at a time.
+ * Calls that don't get a permit are deferred to the failed action store. Zero disables the respective limit.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActionLimit {
+
+    @Min(0)
+    private double permitsPerSecond;
+
+    @Min(0)
+    private int maxConcurrent;
+
+    @Min(0)
+    @Max(60_000)
+    private long maxWaitMs = 100;
+
+    @Min(0)
+    private int maxQueued = 64;
+}
@@ -0,0 +1,37 @@
+package io.appform.statesman.model.action;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+/**
+ * How a failed action is retried from the failed action store.
+ * Attempt <code>n</code> (the original execution being attempt 1) is followed by a wait of
+ * <code>initialDelayMs * multiplier^(n-1)</code>, capped at <code>maxDelayMs</code>. Once <code>maxAttempts</code> is
+ * reached the action is moved to the dead letter set.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActionRetryPolicy {
+
+    @Min(1)
+    @Max(100)
+    private int maxAttempts = 5;
+
+    @Min(0)
+    private long initialDelayMs = 1_000;
+
+    @Min(0)
+    private long maxDelayMs = 300_000;
+
+    private double multiplier = 2.0;
+
+    public long delayAfterAttempt(int attempt) {
+        final double delay = initialDelayMs * Math.pow(Math.max(1.0, multiplier), Math.max(0, attempt - 1));
+        return (long) Math.min(delay, (double) maxDelayMs);
+    }
+}
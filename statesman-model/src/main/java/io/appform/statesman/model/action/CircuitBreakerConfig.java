@@ -0,0 +1,43 @@
+package io.appform.statesman.model.action;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+/**
+ * Thresholds of a circuit breaker.
+ * The breaker opens once at least <code>minimumCalls</code> of the last <code>windowSize</code> calls are in and
+ * <code>failureRateThreshold</code> of them failed. It stays open for <code>openDurationMs</code>, then lets
+ * <code>halfOpenCalls</code> trial calls through; it closes if all of them succeed and opens again otherwise.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CircuitBreakerConfig {
+
+    private boolean enabled = true;
+
+    @Min(1)
+    @Max(10_000)
+    private int windowSize = 50;
+
+    @Min(1)
+    @Max(10_000)
+    private int minimumCalls = 20;
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private double failureRateThreshold = 0.5;
+
+    @Min(1)
+    private long openDurationMs = 30_000;
+
+    @Min(1)
+    @Max(100)
+    private int halfOpenCalls = 3;
+}
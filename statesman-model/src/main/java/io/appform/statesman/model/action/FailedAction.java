@@ -0,0 +1,28 @@
+package io.appform.statesman.model.action;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * An action execution that failed and is queued for retry.
+ * Only the workflow id is kept; retries run against the latest copy of the workflow.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FailedAction {
+    private String id;
+    private String workflowId;
+    private String actionTemplateId;
+    private FailedActionStatus status;
+    private int attempts;
+    private Date nextAttemptAt;
+    private String lastError;
+    private Date created;
+    private Date updated;
+}
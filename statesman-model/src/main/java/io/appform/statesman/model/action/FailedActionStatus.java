@@ -0,0 +1,19 @@
+package io.appform.statesman.model.action;
+
+/**
+ * Lifecycle of an action in the failed action store
+ */
+public enum FailedActionStatus {
+    /**
+     * Waiting for its next attempt
+     */
+    PENDING,
+    /**
+     * A retry succeeded
+     */
+    SUCCEEDED,
+    /**
+     * Ran out of attempts. Only replayed on request.
+     */
+    DEAD_LETTER
+}
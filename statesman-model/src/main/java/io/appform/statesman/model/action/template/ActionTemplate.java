@@ -2,11 +2,15 @@ package io.appform.statesman.model.action.template;
 
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import io.appform.statesman.model.action.ActionLimit;
+import io.appform.statesman.model.action.ActionRetryPolicy;
 import io.appform.statesman.model.action.ActionType;
+import io.appform.statesman.model.action.CircuitBreakerConfig;
 import lombok.Data;
 import lombok.ToString;
 import org.hibernate.validator.constraints.NotEmpty;
 
+import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 
 @Data
@@ -31,6 +35,24 @@ public abstract class ActionTemplate {
 
     protected final ActionType type;
 
+    /**
+     * Retry policy for failed executions of this template. The default policy applies when not set.
+     */
+    @Valid
+    protected ActionRetryPolicy retryPolicy;
+
+    /**
+     * Rate and concurrency limit across all executions of this template. Unlimited when not set.
+     */
+    @Valid
+    protected ActionLimit limit;
+
+    /**
+     * Circuit breaker thresholds for this template. The app wide defaults apply when not set.
+     */
+    @Valid
+    protected CircuitBreakerConfig circuitBreaker;
+
     public ActionTemplate(ActionType type) {
         this.type = type;
     }
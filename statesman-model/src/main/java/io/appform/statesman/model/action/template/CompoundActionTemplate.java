@@ -4,6 +4,8 @@ import io.appform.statesman.model.action.ActionType;
 import lombok.Builder;
 import lombok.Data;
 
+import javax.validation.constraints.Min;
+
 import java.util.List;
 
 @Data
@@ -11,14 +13,33 @@ public class CompoundActionTemplate extends ActionTemplate {
 
     private List<String> actionTemplates;
 
+    /**
+     * Run the sub-actions concurrently instead of one after the other. Responses are still merged in declared order.
+     */
+    private boolean parallel;
+
+    /**
+     * In parallel mode, how long to wait for each sub-action before dropping its response. Zero waits indefinitely.
+     */
+    @Min(0)
+    private long branchTimeoutMs;
+
     public CompoundActionTemplate() {
         super(ActionType.COMPOUND);
     }
 
     @Builder
-    public CompoundActionTemplate(String templateId, String name, boolean active, List<String> actionTemplates) {
+    public CompoundActionTemplate(
+            String templateId,
+            String name,
+            boolean active,
+            List<String> actionTemplates,
+            boolean parallel,
+            long branchTimeoutMs) {
         super(ActionType.COMPOUND, templateId, name, active);
         this.actionTemplates = actionTemplates;
+        this.parallel = parallel;
+        this.branchTimeoutMs = branchTimeoutMs;
     }
 
     @Override
@@ -32,6 +32,17 @@ public class HttpActionTemplate extends ActionTemplate {
 
     private Set<Integer> acceptableCodes;
 
+    /**
+     * Fire the call without waiting for it. The translated response is merged into the workflow by a follow-up data
+     * update once the call completes.
+     */
+    private boolean async;
+
+    /**
+     * Name of the http client profile to make the call with. The default client is used when not set.
+     */
+    private String clientProfile;
+
     public HttpActionTemplate() {
         super(ActionType.HTTP);
     }
@@ -47,7 +58,9 @@ public class HttpActionTemplate extends ActionTemplate {
                               String responseTranslator,
                               boolean noop,
                               JsonNode noopResponse,
-                              Set<Integer> acceptableCodes) {
+                              Set<Integer> acceptableCodes,
+                              boolean async,
+                              String clientProfile) {
         super(ActionType.HTTP, templateId, name, active);
         this.method = method;
         this.url = url;
@@ -57,6 +70,8 @@ public class HttpActionTemplate extends ActionTemplate {
         this.noop = noop;
         this.noopResponse = noopResponse;
         this.acceptableCodes = acceptableCodes;
+        this.async = async;
+        this.clientProfile = clientProfile;
     }
 
     @Override
@@ -16,6 +16,9 @@ public enum ResponseCode {
     JSON_ERROR(500, "JSON ERROR"),
     TRANSFORMATION_ERROR(500, "TRANSFORMATION ERROR"),
     INTERNAL_SERVER_ERROR(500, "INTERNAL SERVER ERROR"),
+    WORKFLOW_UPDATE_CONFLICT(409, "WORKFLOW UPDATE CONFLICT"),
+    ACTION_THROTTLED(429, "ACTION THROTTLED"),
+    CIRCUIT_OPEN(503, "CIRCUIT OPEN"),
     ;
 
     @Getter
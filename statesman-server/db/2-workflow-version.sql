@@ -0,0 +1 @@
+ALTER TABLE workflow_instances ADD COLUMN version bigint(20) NOT NULL DEFAULT 0;
@@ -0,0 +1,10 @@
+CREATE TABLE `config_versions` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT,
+  `config_key` varchar(64) NOT NULL,
+  `version` bigint(20) NOT NULL DEFAULT 0,
+  `row_version` bigint(20) NOT NULL DEFAULT 0,
+  `created` datetime(3) NOT NULL DEFAULT current_timestamp(3),
+  `updated` datetime(3) NOT NULL DEFAULT current_timestamp(3) ON UPDATE current_timestamp(3),
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uniq_config_key` (`config_key`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -0,0 +1,17 @@
+CREATE TABLE `failed_actions` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT,
+  `failed_action_id` varchar(64) NOT NULL,
+  `workflow_id` varchar(64) NOT NULL,
+  `action_template_id` varchar(64) NOT NULL,
+  `status` varchar(32) NOT NULL,
+  `attempts` int(11) NOT NULL DEFAULT 0,
+  `next_attempt_at` datetime(3) DEFAULT NULL,
+  `last_error` varchar(1024) DEFAULT NULL,
+  `row_version` bigint(20) NOT NULL DEFAULT 0,
+  `created` datetime(3) NOT NULL DEFAULT current_timestamp(3),
+  `updated` datetime(3) NOT NULL DEFAULT current_timestamp(3) ON UPDATE current_timestamp(3),
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uniq_failed_action_id` (`failed_action_id`),
+  KEY `idx_status_next_attempt` (`status`, `next_attempt_at`),
+  KEY `idx_workflow_id` (`workflow_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -0,0 +1 @@
+ALTER TABLE workflow_templates ADD COLUMN event_payload blob DEFAULT NULL;
@@ -2,8 +2,14 @@ package io.appform.statesman.server;
 
 import io.appform.dropwizard.sharding.config.ShardedHibernateFactory;
 import io.appform.eventingester.client.EventPublisherConfig;
+import io.appform.statesman.model.EventBusConfig;
+import io.appform.statesman.model.EventSpoolConfig;
 import io.appform.statesman.model.FoxtrotClientConfig;
 import io.appform.statesman.model.HttpClientConfiguration;
+import io.appform.statesman.model.action.ActionLimit;
+import io.appform.statesman.model.action.CircuitBreakerConfig;
+import io.appform.statesman.server.retry.ActionRetryConfig;
+import io.appform.statesman.server.snapshot.ConfigSnapshotConfig;
 import io.dropwizard.Configuration;
 import io.federecio.dropwizard.swagger.SwaggerBundleConfiguration;
 import lombok.Data;
@@ -14,6 +20,8 @@ import lombok.extern.slf4j.Slf4j;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.util.Collections;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -40,8 +48,45 @@ public class AppConfig extends Configuration {
     @Valid
     private HttpClientConfiguration httpActionDefaultConfig;
 
+    /**
+     * Named http client profiles that action templates can pick, each with its own pool, dispatcher and timeouts.
+     */
+    @NotNull
+    @Valid
+    private Map<String, HttpClientConfiguration> httpClientProfiles = Collections.emptyMap();
+
+    /**
+     * Rate and concurrency limits for calls to routed action providers, keyed by provider id.
+     */
+    @NotNull
+    @Valid
+    private Map<String, ActionLimit> providerLimits = Collections.emptyMap();
+
+    /**
+     * Circuit breaker thresholds for target hosts, and for action templates that don't set their own.
+     */
+    @NotNull
+    @Valid
+    private CircuitBreakerConfig circuitBreaker = new CircuitBreakerConfig();
+
     @NotNull
     @Valid
     public FoxtrotClientConfig foxtrot;
 
+    @NotNull
+    @Valid
+    private EventBusConfig eventBus = new EventBusConfig();
+
+    @NotNull
+    @Valid
+    private EventSpoolConfig eventSpool = new EventSpoolConfig();
+
+    @NotNull
+    @Valid
+    private ConfigSnapshotConfig configSnapshot = new ConfigSnapshotConfig();
+
+    @NotNull
+    @Valid
+    private ActionRetryConfig actionRetry = new ActionRetryConfig();
+
 }
@@ -1,22 +1,22 @@
 package io.appform.statesman.server.dao.action;
 
-import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.LoadingCache;
 import io.appform.dropwizard.sharding.dao.LookupDao;
 import io.appform.statesman.engine.ActionTemplateStore;
 import io.appform.statesman.model.action.template.ActionTemplate;
 import io.appform.statesman.model.exception.ResponseCode;
 import io.appform.statesman.model.exception.StatesmanError;
+import io.appform.statesman.server.snapshot.ConfigSnapshotManager;
 import io.appform.statesman.server.utils.MapperUtils;
 import io.appform.statesman.server.utils.WorkflowUtils;
 import lombok.extern.slf4j.Slf4j;
+import lombok.val;
 import org.hibernate.criterion.DetachedCriteria;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import javax.inject.Singleton;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -24,21 +24,13 @@ import java.util.stream.Collectors;
 public class ActionTemplateStoreCommand implements ActionTemplateStore {
 
     private final LookupDao<StoredActionTemplate> actionTemplateLookupDao;
-    private final LoadingCache<String, Optional<ActionTemplate>> actionTemplateCache;
+    private final Provider<ConfigSnapshotManager> configSnapshotManager;
 
     @Inject
-    public ActionTemplateStoreCommand(LookupDao<StoredActionTemplate> actionTemplateLookupDao) {
+    public ActionTemplateStoreCommand(LookupDao<StoredActionTemplate> actionTemplateLookupDao,
+                                      Provider<ConfigSnapshotManager> configSnapshotManager) {
         this.actionTemplateLookupDao = actionTemplateLookupDao;
-        log.info("Initializing cache ACTION_TEMPLATE_CACHE");
-        actionTemplateCache = Caffeine.newBuilder()
-                .maximumSize(1_000)
-                .expireAfterWrite(300, TimeUnit.SECONDS)
-                .refreshAfterWrite(60, TimeUnit.SECONDS)
-                .build(key -> {
-                    log.debug("Loading data for action for key: {}", key);
-                    return getFromDb(key);
-                });
-
+        this.configSnapshotManager = configSnapshotManager;
     }
 
     public Optional<ActionTemplate> getFromDb(String actionTemplateId) {
@@ -54,8 +46,10 @@ public class ActionTemplateStoreCommand implements ActionTemplateStore {
     @Override
     public Optional<ActionTemplate> create(ActionTemplate actionTemplate) {
         try {
-            return actionTemplateLookupDao.save(WorkflowUtils.toDao(actionTemplate))
+            val created = actionTemplateLookupDao.save(WorkflowUtils.toDao(actionTemplate))
                     .map(WorkflowUtils::toDto);
+            configSnapshotManager.get().publish();
+            return created;
         } catch (Exception e) {
             throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
         }
@@ -64,7 +58,7 @@ public class ActionTemplateStoreCommand implements ActionTemplateStore {
     @Override
     public Optional<ActionTemplate> get(String actionTemplateId) {
         try {
-            return actionTemplateCache.get(actionTemplateId);
+            return configSnapshotManager.get().current().actionTemplate(actionTemplateId);
         } catch (Exception e) {
             throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
         }
@@ -72,10 +66,18 @@ public class ActionTemplateStoreCommand implements ActionTemplateStore {
 
     @Override
     public List<ActionTemplate> all() {
-        return actionTemplateLookupDao.scatterGather(DetachedCriteria.forClass(StoredActionTemplate.class))
-                .stream()
-                .map(WorkflowUtils::toDto)
-                .collect(Collectors.toList());
+        return configSnapshotManager.get().current().allActionTemplates();
+    }
+
+    public List<ActionTemplate> getAllFromDb() {
+        try {
+            return actionTemplateLookupDao.scatterGather(DetachedCriteria.forClass(StoredActionTemplate.class))
+                    .stream()
+                    .map(WorkflowUtils::toDto)
+                    .collect(Collectors.toList());
+        } catch (Exception e) {
+            throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
+        }
     }
 
     @Override
@@ -90,7 +92,11 @@ public class ActionTemplateStoreCommand implements ActionTemplateStore {
                 }
                 return actionTemplateOptional.orElse(null);
             });
-            return updated ? getFromDb(actionTemplate.getTemplateId()) : Optional.empty();
+            if (!updated) {
+                return Optional.empty();
+            }
+            configSnapshotManager.get().publish();
+            return getFromDb(actionTemplate.getTemplateId());
         } catch (Exception e) {
             throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
         }
@@ -0,0 +1,32 @@
+package io.appform.statesman.server.dao.callback;
+
+import io.appform.statesman.server.callbacktransformation.TransformationTemplate;
+import io.appform.statesman.server.callbacktransformation.TranslationTemplateType;
+import lombok.Value;
+
+import java.util.*;
+
+/**
+ * Immutable view of all callback templates along with a lookup by template type and provider.
+ */
+@Value
+public class CallbackTemplateIndex {
+    Set<TransformationTemplate> templates;
+    Map<TranslationTemplateType, Map<String, TransformationTemplate>> byTypeAndProvider;
+
+    public static CallbackTemplateIndex of(Set<TransformationTemplate> templates) {
+        final Map<TranslationTemplateType, Map<String, TransformationTemplate>> index
+                = new EnumMap<>(TranslationTemplateType.class);
+        templates.forEach(template -> index.computeIfAbsent(template.getTranslationTemplateType(),
+                                                            type -> new HashMap<>())
+                .putIfAbsent(template.getProvider(), template));
+        return new CallbackTemplateIndex(Collections.unmodifiableSet(templates), Collections.unmodifiableMap(index));
+    }
+
+    public Optional<TransformationTemplate> find(String provider, TranslationTemplateType translationTemplateType) {
+        final Map<String, TransformationTemplate> byProvider = byTypeAndProvider.get(translationTemplateType);
+        return null == byProvider || null == provider
+               ? Optional.empty()
+               : Optional.ofNullable(byProvider.get(provider));
+    }
+}
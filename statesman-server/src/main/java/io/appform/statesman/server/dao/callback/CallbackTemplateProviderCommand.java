@@ -1,8 +1,7 @@
 package io.appform.statesman.server.dao.callback;
 
-import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import io.appform.dropwizard.sharding.dao.RelationalDao;
 import io.appform.statesman.model.exception.ResponseCode;
 import io.appform.statesman.model.exception.StatesmanError;
@@ -11,44 +10,40 @@ import io.appform.statesman.server.callbacktransformation.TransformationTemplate
 import io.appform.statesman.server.callbacktransformation.TranslationTemplateType;
 import io.appform.statesman.server.callbacktransformation.impl.OneShotTransformationTemplate;
 import io.appform.statesman.server.callbacktransformation.impl.StepByStepTransformationTemplate;
+import io.appform.statesman.server.snapshot.ConfigSnapshotManager;
 import io.appform.statesman.server.utils.CallbackTemplateUtils;
 import io.appform.statesman.server.utils.MapperUtils;
 import lombok.extern.slf4j.Slf4j;
+import lombok.val;
 import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Restrictions;
 
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Slf4j
 public class CallbackTemplateProviderCommand implements CallbackTemplateProvider {
 
     private final RelationalDao<StoredCallbackTransformationTemplate> callbackTemplateDao;
-    private final LoadingCache<String, Set<TransformationTemplate>> allCallbackTemplates;
+    private final Provider<ConfigSnapshotManager> configSnapshotManager;
 
 
     @Inject
-    public CallbackTemplateProviderCommand(RelationalDao<StoredCallbackTransformationTemplate> callbackTemplateDao) {
+    public CallbackTemplateProviderCommand(RelationalDao<StoredCallbackTransformationTemplate> callbackTemplateDao,
+                                           Provider<ConfigSnapshotManager> configSnapshotManager) {
         this.callbackTemplateDao = callbackTemplateDao;
-        log.info("Initializing cache CALLBACK_TEMPLATE_CACHE");
-        allCallbackTemplates = Caffeine.newBuilder()
-                .maximumSize(1_000)
-                .expireAfterWrite(300, TimeUnit.SECONDS)
-                .refreshAfterWrite(60, TimeUnit.SECONDS)
-                .build(key -> {
-                    log.debug("Loading data for workflow for key: {}", key);
-                    return getAllFromDb();
-                });
+        this.configSnapshotManager = configSnapshotManager;
     }
 
     @Override
     public Optional<TransformationTemplate> createTemplate(TransformationTemplate transformationTemplate) {
         try {
             StoredCallbackTransformationTemplate storedCallbackTemplate = CallbackTemplateUtils.toDao(transformationTemplate);
-            return callbackTemplateDao.save(transformationTemplate.getProvider(), storedCallbackTemplate)
+            val created = callbackTemplateDao.save(transformationTemplate.getProvider(), storedCallbackTemplate)
                     .map(CallbackTemplateUtils::toDto);
+            configSnapshotManager.get().publish();
+            return created;
         } catch (Exception e) {
             throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
         }
@@ -82,7 +77,11 @@ public class CallbackTemplateProviderCommand implements CallbackTemplateProvider
                         storedCallbackTransformationTemplate.setDropDetectionRule(transformationTemplate.getDropDetectionRule());
                         return storedCallbackTransformationTemplate;
                     });
-            return updated ? getTemplateFromDb(transformationTemplate.getProvider(), transformationTemplate.getTranslationTemplateType()) : Optional.empty();
+            if (!updated) {
+                return Optional.empty();
+            }
+            configSnapshotManager.get().publish();
+            return getTemplateFromDb(transformationTemplate.getProvider(), transformationTemplate.getTranslationTemplateType());
         } catch (Exception e) {
             throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
         }
@@ -90,16 +89,13 @@ public class CallbackTemplateProviderCommand implements CallbackTemplateProvider
 
     @Override
     public Set<TransformationTemplate> getAll() {
-        return allCallbackTemplates.get("all");
+        return configSnapshotManager.get().current().getCallbackTemplates().getTemplates();
     }
 
     @Override
     public Optional<TransformationTemplate> getTemplate(String provider, TranslationTemplateType translationTemplateType) {
         try {
-            return getAll().stream()
-                    .filter(transformationTemplate -> transformationTemplate.getProvider().equals(provider)
-                            && transformationTemplate.getTranslationTemplateType() == translationTemplateType)
-                    .findFirst();
+            return configSnapshotManager.get().current().getCallbackTemplates().find(provider, translationTemplateType);
         } catch (Exception e) {
             throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
         }
@@ -130,5 +126,4 @@ public class CallbackTemplateProviderCommand implements CallbackTemplateProvider
             throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
         }
     }
-
 }
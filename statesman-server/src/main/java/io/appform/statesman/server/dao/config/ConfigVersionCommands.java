@@ -0,0 +1,78 @@
+package io.appform.statesman.server.dao.config;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.appform.dropwizard.sharding.dao.LookupDao;
+import io.appform.statesman.model.exception.ResponseCode;
+import io.appform.statesman.model.exception.StatesmanError;
+import io.appform.statesman.server.utils.DaoUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+
+/**
+ * Single row version counter for all stored templates and providers.
+ * Every config write bumps it, nodes poll it to find out when their in-memory config is stale.
+ */
+@Slf4j
+@Singleton
+public class ConfigVersionCommands {
+    private static final String CONFIG_KEY = "templates";
+    private static final int MAX_BUMP_ATTEMPTS = 5;
+
+    private final LookupDao<StoredConfigVersion> configVersionLookupDao;
+
+    @Inject
+    public ConfigVersionCommands(LookupDao<StoredConfigVersion> configVersionLookupDao) {
+        this.configVersionLookupDao = configVersionLookupDao;
+    }
+
+    public long current() {
+        try {
+            return configVersionLookupDao.get(CONFIG_KEY)
+                    .map(StoredConfigVersion::getVersion)
+                    .orElse(0L);
+        } catch (Exception e) {
+            throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
+        }
+    }
+
+    public void bump() {
+        try {
+            if (increment()) {
+                return;
+            }
+            try {
+                configVersionLookupDao.save(StoredConfigVersion.builder()
+                                                    .configKey(CONFIG_KEY)
+                                                    .version(1)
+                                                    .build());
+            } catch (ConstraintViolationException e) {
+                log.debug("Config version row created concurrently, incrementing it instead");
+                increment();
+            }
+        } catch (Exception e) {
+            throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
+        }
+    }
+
+    /**
+     * Bumps the existing row. A bump that loses the optimistic lock to a concurrent one is read and applied again, so
+     * no bump is lost.
+     */
+    private boolean increment() throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return configVersionLookupDao.update(CONFIG_KEY, storedConfigVersion -> {
+                    storedConfigVersion.ifPresent(version -> version.setVersion(version.getVersion() + 1));
+                    return storedConfigVersion.orElse(null);
+                });
+            }
+            catch (Exception e) {
+                if (!DaoUtils.isConcurrentModification(e) || attempt >= MAX_BUMP_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Config version bumped concurrently, retrying. Attempt: {}", attempt);
+            }
+        }
+    }
+}
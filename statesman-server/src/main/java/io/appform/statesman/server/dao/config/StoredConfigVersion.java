@@ -0,0 +1,55 @@
+package io.appform.statesman.server.dao.config;
+
+import io.appform.dropwizard.sharding.sharding.LookupKey;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Generated;
+import org.hibernate.annotations.GenerationTime;
+
+import javax.persistence.*;
+import java.util.Date;
+
+@Entity
+@Table(name = "config_versions", uniqueConstraints = {
+        @UniqueConstraint(columnNames = "config_key")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StoredConfigVersion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private long id;
+
+    @LookupKey
+    @Column(name = "config_key")
+    private String configKey;
+
+    @Column(name = "version")
+    private long version;
+
+    /**
+     * Optimistic lock, so that concurrent bumps can't overwrite each other.
+     */
+    @Version
+    @Column(name = "row_version")
+    private long rowVersion;
+
+    @Column(name = "created", columnDefinition = "timestamp", updatable = false, insertable = false)
+    @Generated(value = GenerationTime.INSERT)
+    private Date created;
+
+    @Column(name = "updated", columnDefinition = "timestamp default current_timestamp", updatable = false, insertable = false)
+    @Generated(value = GenerationTime.ALWAYS)
+    private Date updated;
+
+    @Builder
+    public StoredConfigVersion(String configKey, long version) {
+        this.configKey = configKey;
+        this.version = version;
+    }
+}
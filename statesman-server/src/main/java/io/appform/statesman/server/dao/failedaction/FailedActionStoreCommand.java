@@ -0,0 +1,155 @@
+package io.appform.statesman.server.dao.failedaction;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.appform.dropwizard.sharding.dao.RelationalDao;
+import io.appform.statesman.engine.FailedActionStore;
+import io.appform.statesman.model.action.FailedAction;
+import io.appform.statesman.model.action.FailedActionStatus;
+import io.appform.statesman.model.exception.ResponseCode;
+import io.appform.statesman.model.exception.StatesmanError;
+import io.appform.statesman.server.utils.DaoUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.criterion.DetachedCriteria;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Failed actions are stored alongside their workflow, sharded on the workflow id
+ */
+@Slf4j
+@Singleton
+public class FailedActionStoreCommand implements FailedActionStore {
+
+    private final RelationalDao<StoredFailedAction> failedActionDao;
+
+    @Inject
+    public FailedActionStoreCommand(RelationalDao<StoredFailedAction> failedActionDao) {
+        this.failedActionDao = failedActionDao;
+    }
+
+    @Override
+    public void save(FailedAction failedAction) {
+        try {
+            failedActionDao.save(failedAction.getWorkflowId(), toDao(failedAction));
+        }
+        catch (Exception e) {
+            throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
+        }
+    }
+
+    @Override
+    public List<FailedAction> due(Date now, int limit) {
+        try {
+            return failedActionDao.scatterGather(DetachedCriteria.forClass(StoredFailedAction.class)
+                                                         .add(Restrictions.eq("status", FailedActionStatus.PENDING))
+                                                         .add(Restrictions.le("nextAttemptAt", now))
+                                                         .addOrder(Order.asc("nextAttemptAt")),
+                                                 0, limit)
+                    .stream()
+                    .sorted(Comparator.comparing(StoredFailedAction::getNextAttemptAt))
+                    .limit(limit)
+                    .map(FailedActionStoreCommand::toDto)
+                    .collect(Collectors.toList());
+        }
+        catch (Exception e) {
+            throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
+        }
+    }
+
+    @Override
+    public boolean claim(FailedAction failedAction, Date leaseUntil) {
+        try {
+            return failedActionDao.update(failedAction.getWorkflowId(),
+                                          DetachedCriteria.forClass(StoredFailedAction.class)
+                                                  .add(Restrictions.eq("failedActionId", failedAction.getId()))
+                                                  .add(Restrictions.eq("status", FailedActionStatus.PENDING))
+                                                  .add(Restrictions.eq("attempts", failedAction.getAttempts()))
+                                                  .add(Restrictions.le("nextAttemptAt", new Date())),
+                                          stored -> {
+                                              if (null == stored) {
+                                                  return null;
+                                              }
+                                              stored.setNextAttemptAt(leaseUntil);
+                                              return stored;
+                                          });
+        }
+        catch (Exception e) {
+            if (DaoUtils.isConcurrentModification(e)) {
+                log.debug("Failed action {} was claimed by another node", failedAction.getId());
+                return false;
+            }
+            log.error("Error claiming failed action " + failedAction.getId(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public void update(FailedAction failedAction) {
+        try {
+            failedActionDao.update(failedAction.getWorkflowId(),
+                                   DetachedCriteria.forClass(StoredFailedAction.class)
+                                           .add(Restrictions.eq("failedActionId", failedAction.getId())),
+                                   stored -> {
+                                       if (null == stored) {
+                                           return null;
+                                       }
+                                       stored.setStatus(failedAction.getStatus());
+                                       stored.setAttempts(failedAction.getAttempts());
+                                       stored.setNextAttemptAt(failedAction.getNextAttemptAt());
+                                       stored.setLastError(failedAction.getLastError());
+                                       return stored;
+                                   });
+        }
+        catch (Exception e) {
+            throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
+        }
+    }
+
+    @Override
+    public List<FailedAction> deadLetters(int limit) {
+        try {
+            return failedActionDao.scatterGather(DetachedCriteria.forClass(StoredFailedAction.class)
+                                                         .add(Restrictions.eq("status", FailedActionStatus.DEAD_LETTER)),
+                                                 0, limit)
+                    .stream()
+                    .limit(limit)
+                    .map(FailedActionStoreCommand::toDto)
+                    .collect(Collectors.toList());
+        }
+        catch (Exception e) {
+            throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
+        }
+    }
+
+    private static StoredFailedAction toDao(FailedAction failedAction) {
+        return StoredFailedAction.builder()
+                .failedActionId(failedAction.getId())
+                .workflowId(failedAction.getWorkflowId())
+                .actionTemplateId(failedAction.getActionTemplateId())
+                .status(failedAction.getStatus())
+                .attempts(failedAction.getAttempts())
+                .nextAttemptAt(failedAction.getNextAttemptAt())
+                .lastError(failedAction.getLastError())
+                .build();
+    }
+
+    private static FailedAction toDto(StoredFailedAction stored) {
+        return FailedAction.builder()
+                .id(stored.getFailedActionId())
+                .workflowId(stored.getWorkflowId())
+                .actionTemplateId(stored.getActionTemplateId())
+                .status(stored.getStatus())
+                .attempts(stored.getAttempts())
+                .nextAttemptAt(stored.getNextAttemptAt())
+                .lastError(stored.getLastError())
+                .created(stored.getCreated())
+                .updated(stored.getUpdated())
+                .build();
+    }
+}
@@ -0,0 +1,80 @@
+package io.appform.statesman.server.dao.failedaction;
+
+import io.appform.statesman.model.action.FailedActionStatus;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Generated;
+import org.hibernate.annotations.GenerationTime;
+
+import javax.persistence.*;
+import java.util.Date;
+
+@Entity
+@Table(name = "failed_actions", uniqueConstraints = {
+        @UniqueConstraint(columnNames = "failed_action_id")
+})
+@Data
+@NoArgsConstructor
+public class StoredFailedAction {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private long id;
+
+    @Column(name = "failed_action_id", unique = true)
+    private String failedActionId;
+
+    @Column(name = "workflow_id")
+    private String workflowId;
+
+    @Column(name = "action_template_id")
+    private String actionTemplateId;
+
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    private FailedActionStatus status;
+
+    @Column(name = "attempts")
+    private int attempts;
+
+    @Column(name = "next_attempt_at")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date nextAttemptAt;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    /**
+     * Optimistic lock, so that only one of the nodes racing to claim a due action wins.
+     */
+    @Version
+    @Column(name = "row_version")
+    private long rowVersion;
+
+    @Column(name = "created", columnDefinition = "timestamp", updatable = false, insertable = false)
+    @Generated(value = GenerationTime.INSERT)
+    private Date created;
+
+    @Column(name = "updated", columnDefinition = "timestamp default current_timestamp", updatable = false, insertable = false)
+    @Generated(value = GenerationTime.ALWAYS)
+    private Date updated;
+
+    @Builder
+    public StoredFailedAction(String failedActionId,
+                              String workflowId,
+                              String actionTemplateId,
+                              FailedActionStatus status,
+                              int attempts,
+                              Date nextAttemptAt,
+                              String lastError) {
+        this.failedActionId = failedActionId;
+        this.workflowId = workflowId;
+        this.actionTemplateId = actionTemplateId;
+        this.status = status;
+        this.attempts = attempts;
+        this.nextAttemptAt = nextAttemptAt;
+        this.lastError = lastError;
+    }
+}
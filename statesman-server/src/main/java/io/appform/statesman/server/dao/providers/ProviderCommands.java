@@ -1,24 +1,22 @@
 package io.appform.statesman.server.dao.providers;
 
 
-import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import io.appform.dropwizard.sharding.dao.RelationalDao;
 import io.appform.functionmetrics.MonitoredFunction;
 import io.appform.statesman.model.exception.ResponseCode;
 import io.appform.statesman.model.exception.StatesmanError;
-import lombok.Builder;
-import lombok.Data;
+import io.appform.statesman.server.snapshot.ConfigSnapshotManager;
 import lombok.extern.slf4j.Slf4j;
+import lombok.val;
 import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Restrictions;
 import org.hibernate.exception.ConstraintViolationException;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Slf4j
@@ -26,40 +24,36 @@ import java.util.function.Function;
 public class ProviderCommands {
 
     private final RelationalDao<StoredProvider> providerDao;
-    private final LoadingCache<ProviderCacheKey, Optional<StoredProvider>> cache;
+    private final Provider<ConfigSnapshotManager> configSnapshotManager;
 
 
     @Inject
-    public ProviderCommands(RelationalDao<StoredProvider> providerDao) {
+    public ProviderCommands(RelationalDao<StoredProvider> providerDao,
+                            Provider<ConfigSnapshotManager> configSnapshotManager) {
         this.providerDao = providerDao;
-        cache = Caffeine.newBuilder()
-                .maximumSize(1_000)
-                .expireAfterWrite(300, TimeUnit.SECONDS)
-                .refreshAfterWrite(60, TimeUnit.SECONDS)
-                .build(key -> {
-                    log.debug("Loading data for transition for key: {}", key);
-                    return getFromDb(key.getProviderId(), key.getUseCase());
-                });
+        this.configSnapshotManager = configSnapshotManager;
     }
 
     @MonitoredFunction
     public List<StoredProvider> get(String providerId) {
-        try {
-            DetachedCriteria detachedCriteria = DetachedCriteria.forClass(StoredProvider.class)
-                    .add(Restrictions.eq("providerId", providerId));
-            return providerDao.select(providerId, detachedCriteria, 0, Integer.MAX_VALUE);
-        } catch (Exception e) {
-            throw new StatesmanError(ResponseCode.STORAGE_ERROR);
-        }
+        return configSnapshotManager.get().current().providers(providerId);
     }
 
     @MonitoredFunction
     public Optional<StoredProvider> get(String providerId, String useCase) {
+        return configSnapshotManager.get().current().provider(providerId, useCase);
+    }
+
+    /**
+     * Version of the config snapshot providers are currently served from.
+     */
+    public long configVersion() {
+        return configSnapshotManager.get().current().getVersion();
+    }
+
+    public List<StoredProvider> getAllFromDb() {
         try {
-            return cache.get(ProviderCacheKey.builder()
-                    .providerId(providerId)
-                    .useCase(useCase)
-                    .build());
+            return providerDao.scatterGather(DetachedCriteria.forClass(StoredProvider.class), 0, Integer.MAX_VALUE);
         } catch (Exception e) {
             throw new StatesmanError(ResponseCode.STORAGE_ERROR);
         }
@@ -82,7 +76,9 @@ public class ProviderCommands {
     @MonitoredFunction
     public Optional<StoredProvider> save(StoredProvider storedProvider) {
         try {
-            return providerDao.save(storedProvider.getProviderId(), storedProvider);
+            val saved = providerDao.save(storedProvider.getProviderId(), storedProvider);
+            configSnapshotManager.get().publish();
+            return saved;
         } catch (ConstraintViolationException e) {
             return getFromDb(storedProvider.getProviderId(), storedProvider.getUseCase());
         } catch (Exception e) {
@@ -93,19 +89,14 @@ public class ProviderCommands {
     @MonitoredFunction
     public boolean update(String providerId, DetachedCriteria detachedCriteria, Function<StoredProvider, StoredProvider> modifier) {
         try {
-            return providerDao.update(providerId, detachedCriteria, modifier);
+            val updated = providerDao.update(providerId, detachedCriteria, modifier);
+            if (updated) {
+                configSnapshotManager.get().publish();
+            }
+            return updated;
         } catch (Exception e) {
             throw new StatesmanError(ResponseCode.STORAGE_ERROR);
         }
     }
 
-
-    @Data
-    @Builder
-    private static class ProviderCacheKey {
-        String providerId;
-        String useCase;
-
-    }
-
 }
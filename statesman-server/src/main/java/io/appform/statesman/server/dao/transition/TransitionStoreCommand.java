@@ -1,25 +1,24 @@
 package io.appform.statesman.server.dao.transition;
 
-import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import io.appform.dropwizard.sharding.dao.RelationalDao;
 import io.appform.statesman.engine.TransitionStore;
 import io.appform.statesman.model.StateTransition;
 import io.appform.statesman.model.exception.ResponseCode;
 import io.appform.statesman.model.exception.StatesmanError;
+import io.appform.statesman.server.snapshot.ConfigSnapshotManager;
 import io.appform.statesman.server.utils.MapperUtils;
 import io.appform.statesman.server.utils.WorkflowUtils;
-import lombok.Builder;
-import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import lombok.val;
 import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Restrictions;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -28,28 +27,23 @@ public class TransitionStoreCommand implements TransitionStore {
 
 
     private final RelationalDao<StoredStateTransition> stateTransitionRelationalDao;
-    private final LoadingCache<StateTransitionCacheKey, List<StateTransition>> transitionCache;
+    private final Provider<ConfigSnapshotManager> configSnapshotManager;
 
     @Inject
-    public TransitionStoreCommand(RelationalDao<StoredStateTransition> storedWorkflowTemplateRelationalDao) {
+    public TransitionStoreCommand(RelationalDao<StoredStateTransition> storedWorkflowTemplateRelationalDao,
+                                  Provider<ConfigSnapshotManager> configSnapshotManager) {
         this.stateTransitionRelationalDao = storedWorkflowTemplateRelationalDao;
-        log.info("Initializing cache TRANSITION_CACHE");
-        transitionCache = Caffeine.newBuilder()
-                .maximumSize(1_000)
-                .expireAfterWrite(300, TimeUnit.SECONDS)
-                .refreshAfterWrite(60, TimeUnit.SECONDS)
-                .build(key -> {
-                    log.debug("Loading data for transition for key: {}", key);
-                    return getTransitionsFromDb(key.getWorkflowTemplateId(), key.getFromState());
-                });
+        this.configSnapshotManager = configSnapshotManager;
     }
 
     @Override
     public Optional<StateTransition> create(String workflowTemplateId, StateTransition stateTransition) {
         try {
             StoredStateTransition storedStateTransition = WorkflowUtils.toDao(workflowTemplateId, stateTransition);
-            return stateTransitionRelationalDao.save(workflowTemplateId, storedStateTransition)
+            val created = stateTransitionRelationalDao.save(workflowTemplateId, storedStateTransition)
                     .map(WorkflowUtils::toDto);
+            configSnapshotManager.get().publish();
+            return created;
         } catch (Exception e) {
             throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
         }
@@ -57,18 +51,21 @@ public class TransitionStoreCommand implements TransitionStore {
 
     @Override
     public List<StateTransition> getTransitionFor(String workflowTemplateId, String fromState) {
-        return transitionCache.get(stateTransitionCacheKey(workflowTemplateId, fromState));
+        return configSnapshotManager.get().current().activeTransitions(workflowTemplateId, fromState);
     }
 
     @Override
     public List<StateTransition> getAllTransitions(String workflowTemplateId) {
+        return configSnapshotManager.get().current().transitions(workflowTemplateId);
+    }
+
+    public Map<String, List<StateTransition>> getAllFromDb() {
         try {
-            DetachedCriteria detachedCriteria = DetachedCriteria.forClass(StoredStateTransition.class)
-                    .add(Restrictions.eq("workflowTemplateId", workflowTemplateId));
-            return stateTransitionRelationalDao.select(workflowTemplateId, detachedCriteria, 0, Integer.MAX_VALUE)
+            return stateTransitionRelationalDao.scatterGather(DetachedCriteria.forClass(StoredStateTransition.class),
+                                                              0, Integer.MAX_VALUE)
                     .stream()
-                    .map(WorkflowUtils::toDto)
-                    .collect(Collectors.toList());
+                    .collect(Collectors.groupingBy(StoredStateTransition::getWorkflowTemplateId,
+                                                   Collectors.mapping(WorkflowUtils::toDto, Collectors.toList())));
         } catch (Exception e) {
             throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
         }
@@ -86,6 +83,9 @@ public class TransitionStoreCommand implements TransitionStore {
                 storedStateTransition.setData(MapperUtils.serialize(stateTransition));
                 return storedStateTransition;
             });
+            if (updated) {
+                configSnapshotManager.get().publish();
+            }
             return updated ? stateTransitionRelationalDao.select(workflowTemplateId, detachedCriteria, 0, Integer.MAX_VALUE)
                     .stream()
                     .map(WorkflowUtils::toDto)
@@ -94,35 +94,4 @@ public class TransitionStoreCommand implements TransitionStore {
             throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
         }
     }
-
-
-    private List<StateTransition> getTransitionsFromDb(String workflowTemplateId, String fromState) {
-        try {
-            DetachedCriteria detachedCriteria = DetachedCriteria.forClass(StoredStateTransition.class)
-                    .add(Restrictions.eq("workflowTemplateId", workflowTemplateId))
-                    .add(Restrictions.eq("fromState", fromState))
-                    .add(Restrictions.eq("active", true));
-            return stateTransitionRelationalDao.select(workflowTemplateId, detachedCriteria, 0, Integer.MAX_VALUE)
-                    .stream()
-                    .map(WorkflowUtils::toDto)
-                    .collect(Collectors.toList());
-        } catch (Exception e) {
-            throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
-        }
-    }
-
-    private StateTransitionCacheKey stateTransitionCacheKey(String workflowTemplateId, String fromState) {
-        return StateTransitionCacheKey.builder()
-                .workflowTemplateId(workflowTemplateId)
-                .fromState(fromState)
-                .build();
-    }
-
-    @Data
-    @Builder
-    private static class StateTransitionCacheKey {
-        String workflowTemplateId;
-        String fromState;
-
-    }
 }
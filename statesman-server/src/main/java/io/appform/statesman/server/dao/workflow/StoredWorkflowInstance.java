@@ -43,6 +43,10 @@ public class StoredWorkflowInstance {
     @Column(name = "completed")
     private boolean completed;
 
+    @Version
+    @Column(name = "version")
+    private long version;
+
     @Column(name = "created", columnDefinition = "timestamp", updatable = false, insertable = false)
     @Generated(value = GenerationTime.INSERT)
     private Date created;
@@ -43,6 +43,9 @@ public class StoredWorkflowTemplate {
     @Column(name = "active")
     private boolean active;
 
+    @Column(name = "event_payload", columnDefinition = "blob")
+    private byte[] eventPayload;
+
     @Column(name = "created", columnDefinition = "timestamp", updatable = false, insertable = false)
     @Generated(value = GenerationTime.INSERT)
     private Date created;
@@ -56,11 +59,13 @@ public class StoredWorkflowTemplate {
                                   String name,
                                   byte[] startState,
                                   byte[] rules,
-                                  boolean active) {
+                                  boolean active,
+                                  byte[] eventPayload) {
         this.templateId = templateId;
         this.name = name;
         this.startState = startState;
         this.rules = rules;
         this.active = active;
+        this.eventPayload = eventPayload;
     }
 }
@@ -2,9 +2,8 @@ package io.appform.statesman.server.dao.workflow;
 
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import io.appform.dropwizard.sharding.dao.LookupDao;
 import io.appform.statesman.engine.WorkflowProvider;
@@ -14,6 +13,8 @@ import io.appform.statesman.model.Workflow;
 import io.appform.statesman.model.WorkflowTemplate;
 import io.appform.statesman.model.exception.ResponseCode;
 import io.appform.statesman.model.exception.StatesmanError;
+import io.appform.statesman.server.snapshot.ConfigSnapshotManager;
+import io.appform.statesman.server.utils.DaoUtils;
 import io.appform.statesman.server.utils.MapperUtils;
 import io.appform.statesman.server.utils.WorkflowUtils;
 import lombok.extern.slf4j.Slf4j;
@@ -22,7 +23,6 @@ import org.hibernate.criterion.DetachedCriteria;
 
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -31,41 +31,27 @@ public class WorkflowProviderCommand implements WorkflowProvider {
 
     private final LookupDao<StoredWorkflowTemplate> workflowTemplateLookupDao;
     private final LookupDao<StoredWorkflowInstance> workflowInstanceLookupDao;
-    private final LoadingCache<String, Optional<WorkflowTemplate>> workflowTemplateCache;
-    private final LoadingCache<String, Set<WorkflowTemplate>> allActiveWorkflow;
     private final ObservableEventBus eventBus;
+    private final Provider<ConfigSnapshotManager> configSnapshotManager;
 
     @Inject
     public WorkflowProviderCommand(LookupDao<StoredWorkflowTemplate> workflowTemplateLookupDao,
                                    LookupDao<StoredWorkflowInstance> workflowInstanceLookupDao,
-                                   ObservableEventBus eventBus) {
+                                   ObservableEventBus eventBus,
+                                   Provider<ConfigSnapshotManager> configSnapshotManager) {
         this.workflowTemplateLookupDao = workflowTemplateLookupDao;
         this.workflowInstanceLookupDao = workflowInstanceLookupDao;
         this.eventBus = eventBus;
-        log.info("Initializing cache WORKFLOW_TEMPLATE_CACHE");
-        workflowTemplateCache = Caffeine.newBuilder()
-                .maximumSize(1_000)
-                .expireAfterWrite(300, TimeUnit.SECONDS)
-                .refreshAfterWrite(60, TimeUnit.SECONDS)
-                .build(key -> {
-                    log.debug("Loading data for workflow for key: {}", key);
-                    return getTemplateFromDb(key);
-                });
-        allActiveWorkflow = Caffeine.newBuilder()
-                .maximumSize(1_000)
-                .expireAfterWrite(300, TimeUnit.SECONDS)
-                .refreshAfterWrite(60, TimeUnit.SECONDS)
-                .build(key -> {
-                    log.debug("Loading data for workflow for key: {}", key);
-                    return getAllFromDb();
-                });
+        this.configSnapshotManager = configSnapshotManager;
     }
 
     @Override
     public Optional<WorkflowTemplate> createTemplate(WorkflowTemplate workflowTemplate) {
         try {
             StoredWorkflowTemplate storedWorkflowTemplate = WorkflowUtils.toDao(workflowTemplate);
-            return workflowTemplateLookupDao.save(storedWorkflowTemplate).map(WorkflowUtils::toDto);
+            val created = workflowTemplateLookupDao.save(storedWorkflowTemplate).map(WorkflowUtils::toDto);
+            configSnapshotManager.get().publish();
+            return created;
         } catch (Exception e) {
             throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
         }
@@ -81,10 +67,15 @@ public class WorkflowProviderCommand implements WorkflowProvider {
                  storedTemplate.setName(workflowTemplate.getName());
                  storedTemplate.setRules(MapperUtils.serialize(workflowTemplate.getRules()));
                  storedTemplate.setStartState(MapperUtils.serialize(workflowTemplate.getStartState()));
+                 storedTemplate.setEventPayload(MapperUtils.serialize(workflowTemplate.getEventPayload()));
              }
              return storedWorkflowTemplate.orElse(null);
             });
-            return updated ? getTemplateFromDb(workflowTemplate.getId()) : Optional.empty();
+            if (!updated) {
+                return Optional.empty();
+            }
+            configSnapshotManager.get().publish();
+            return getTemplateFromDb(workflowTemplate.getId());
         } catch (Exception e) {
             throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
         }
@@ -93,7 +84,7 @@ public class WorkflowProviderCommand implements WorkflowProvider {
     @Override
     public Optional<WorkflowTemplate> getTemplate(String workflowTemplateId) {
         try {
-            return workflowTemplateCache.get(workflowTemplateId);
+            return configSnapshotManager.get().current().workflowTemplate(workflowTemplateId);
         } catch (Exception e) {
             throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
         }
@@ -101,7 +92,7 @@ public class WorkflowProviderCommand implements WorkflowProvider {
 
     @Override
     public Set<WorkflowTemplate> getAll() {
-        return allActiveWorkflow.get("all");
+        return configSnapshotManager.get().current().allWorkflowTemplates();
     }
 
 
@@ -173,6 +164,30 @@ public class WorkflowProviderCommand implements WorkflowProvider {
         }
     }
 
+    @Override
+    public boolean compareAndUpdateWorkflow(Workflow workflow) {
+        try {
+            StoredWorkflowInstance storedWorkflowInstance = WorkflowUtils.toInstanceDao(workflow);
+            return workflowInstanceLookupDao.update(storedWorkflowInstance.getWorkflowId(), workflowInstanceOptional -> {
+                if (!workflowInstanceOptional.isPresent()
+                        || workflowInstanceOptional.get().getVersion() != workflow.getVersion()) {
+                    return null;
+                }
+                val instance = workflowInstanceOptional.get();
+                instance.setCompleted(storedWorkflowInstance.isCompleted());
+                instance.setCurrentState(storedWorkflowInstance.getCurrentState());
+                instance.setData(storedWorkflowInstance.getData());
+                return instance;
+            });
+        } catch (Exception e) {
+            if (DaoUtils.isConcurrentModification(e)) {
+                log.debug("Workflow {} was modified concurrently", workflow.getId());
+                return false;
+            }
+            throw StatesmanError.propagate(e, ResponseCode.DAO_ERROR);
+        }
+    }
+
     @Override
     public boolean workflowExists(String workflowId) {
         try {
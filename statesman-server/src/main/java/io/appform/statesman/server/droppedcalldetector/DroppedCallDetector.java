@@ -8,4 +8,7 @@ import io.appform.statesman.server.callbacktransformation.TransformationTemplate
  */
 public interface DroppedCallDetector {
     boolean detectDroppedCall(TransformationTemplate template, JsonNode node);
+
+    default void warmup(TransformationTemplate template) {
+    }
 }
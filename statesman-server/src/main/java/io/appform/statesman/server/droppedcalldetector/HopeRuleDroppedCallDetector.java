@@ -52,4 +52,12 @@ public class HopeRuleDroppedCallDetector implements DroppedCallDetector {
         }
         return hopeLangEngine.evaluate(ruleCache.get(rule), node);
     }
+
+    @Override
+    public void warmup(TransformationTemplate template) {
+        val rule = template.getDropDetectionRule();
+        if (!Strings.isNullOrEmpty(rule)) {
+            ruleCache.get(rule);
+        }
+    }
 }
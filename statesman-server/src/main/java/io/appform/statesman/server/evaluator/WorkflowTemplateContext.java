@@ -9,4 +9,5 @@ import lombok.Value;
 public class WorkflowTemplateContext {
     WorkflowTemplate template;
     Evaluatable parsedRule;
+    String rule;
 }
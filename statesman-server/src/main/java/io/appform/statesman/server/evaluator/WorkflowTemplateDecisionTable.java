@@ -0,0 +1,180 @@
+package io.appform.statesman.server.evaluator;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.Splitter;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Hash index over workflow selection rules.
+ * Rules that are plain conjunctions are scanned for equality checks of the form <code>"$.field" == literal</code>. The
+ * field checked by the most rules becomes the discriminator. A payload's value for that field picks the candidate
+ * rules directly; rules that do not constrain the field are candidates for every value. Candidates keep the original
+ * rule order, so the first matching rule is the same one a full scan would find.
+ */
+@Slf4j
+final class WorkflowTemplateDecisionTable {
+    private static final Pattern LITERAL = Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\"|'((?:[^'\\\\]|\\\\.)*)'");
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\s*\u0000(\\d+)\u0000\\s*");
+    private static final Pattern EQUALITY = Pattern.compile(
+            "^\\s*(\u0000\\d+\u0000|-?\\d+(?:\\.\\d+)?|true|false)\\s*==\\s*(\u0000\\d+\u0000|-?\\d+(?:\\.\\d+)?|true|false)\\s*$");
+    private static final Pattern SIMPLE_PATH = Pattern.compile("\\$(\\.[A-Za-z_][A-Za-z0-9_\\-]*)+");
+    private static final Splitter CONJUNCTION = Splitter.on("&&");
+
+    private final List<WorkflowTemplateContext> rules;
+    private final JsonPointer discriminator;
+    private final Map<String, int[]> candidatesByValue;
+    private final int[] unconstrained;
+
+    private WorkflowTemplateDecisionTable(
+            List<WorkflowTemplateContext> rules,
+            JsonPointer discriminator,
+            Map<String, int[]> candidatesByValue,
+            int[] unconstrained) {
+        this.rules = rules;
+        this.discriminator = discriminator;
+        this.candidatesByValue = candidatesByValue;
+        this.unconstrained = unconstrained;
+    }
+
+    static WorkflowTemplateDecisionTable build(List<WorkflowTemplateContext> rules) {
+        val equalities = rules.stream()
+                .map(context -> equalities(context.getRule()))
+                .collect(Collectors.toList());
+        val discriminator = equalities.stream()
+                .flatMap(ruleEqualities -> ruleEqualities.keySet().stream())
+                .collect(Collectors.groupingBy(Function.identity(), LinkedHashMap::new, Collectors.counting()))
+                .entrySet()
+                .stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+        if (null == discriminator) {
+            return new WorkflowTemplateDecisionTable(rules, null, Collections.emptyMap(), allOf(rules.size()));
+        }
+        val byValue = new HashMap<String, List<Integer>>();
+        val unconstrained = new ArrayList<Integer>();
+        for (int i = 0; i < rules.size(); i++) {
+            val value = equalities.get(i).get(discriminator);
+            if (null == value) {
+                unconstrained.add(i);
+            }
+            else {
+                byValue.computeIfAbsent(value, key -> new ArrayList<>()).add(i);
+            }
+        }
+        val candidatesByValue = new HashMap<String, int[]>();
+        byValue.forEach((value, indices) -> {
+            indices.addAll(unconstrained);
+            candidatesByValue.put(value, indices.stream().sorted().mapToInt(Integer::intValue).toArray());
+        });
+        log.info("Workflow selection indexed on {} with {} values and {} unconstrained rules out of {}",
+                 discriminator, candidatesByValue.size(), unconstrained.size(), rules.size());
+        return new WorkflowTemplateDecisionTable(rules,
+                                                 JsonPointer.compile(discriminator),
+                                                 candidatesByValue,
+                                                 unconstrained.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Rules that may match the payload, in rule order.
+     */
+    List<WorkflowTemplateContext> candidates(JsonNode payload) {
+        if (null == discriminator) {
+            return rules;
+        }
+        val value = payload.at(discriminator);
+        if (!value.isValueNode() || value.isNull()) {
+            return rules;
+        }
+        val indices = candidatesByValue.getOrDefault(key(value.asText()), unconstrained);
+        val candidates = new ArrayList<WorkflowTemplateContext>(indices.length);
+        for (int index : indices) {
+            candidates.add(rules.get(index));
+        }
+        return candidates;
+    }
+
+    /**
+     * Equality checks that must hold for the rule to match, as pointer to normalised value.
+     * Empty if the rule is not a plain conjunction.
+     */
+    private static Map<String, String> equalities(String rule) {
+        val literals = new ArrayList<String>();
+        val masked = new StringBuffer();
+        final Matcher matcher = LITERAL.matcher(rule);
+        while (matcher.find()) {
+            literals.add(null != matcher.group(1) ? matcher.group(1) : matcher.group(2));
+            matcher.appendReplacement(masked, "\u0000" + (literals.size() - 1) + "\u0000");
+        }
+        matcher.appendTail(masked);
+        val expression = masked.toString();
+        if (expression.contains("||")
+                || expression.contains("(")
+                || expression.replace("!=", "").contains("!")) {
+            return Collections.emptyMap();
+        }
+        val equalities = new LinkedHashMap<String, String>();
+        for (val conjunct : CONJUNCTION.split(expression)) {
+            val equality = EQUALITY.matcher(conjunct);
+            if (!equality.matches()) {
+                continue;
+            }
+            val left = operand(equality.group(1), literals);
+            val right = operand(equality.group(2), literals);
+            if (left.isPath() && !right.isPath()) {
+                equalities.putIfAbsent(left.getValue(), right.getValue());
+            }
+            else if (right.isPath() && !left.isPath()) {
+                equalities.putIfAbsent(right.getValue(), left.getValue());
+            }
+        }
+        return equalities;
+    }
+
+    private static Operand operand(String token, List<String> literals) {
+        val placeholder = PLACEHOLDER.matcher(token);
+        if (!placeholder.matches()) {
+            return new Operand(false, key(token.trim()));
+        }
+        val literal = literals.get(Integer.parseInt(placeholder.group(1)));
+        if (SIMPLE_PATH.matcher(literal).matches()) {
+            return new Operand(true, literal.substring(1).replace('.', '/'));
+        }
+        return new Operand(false, key(literal));
+    }
+
+    /**
+     * Normalised form of a compared value. Numbers are reduced to a canonical form so that 2, 2.0 and "2" share a key.
+     */
+    private static String key(String value) {
+        try {
+            return new BigDecimal(value).stripTrailingZeros().toPlainString();
+        }
+        catch (NumberFormatException e) {
+            return value;
+        }
+    }
+
+    private static int[] allOf(int size) {
+        val indices = new int[size];
+        for (int i = 0; i < size; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
+
+    @lombok.Value
+    private static class Operand {
+        boolean path;
+        String value;
+    }
+}
@@ -8,27 +8,22 @@ import io.appform.hope.core.exceptions.errorstrategy.InjectValueErrorHandlingStr
 import io.appform.hope.lang.HopeLangEngine;
 import io.appform.statesman.engine.WorkflowProvider;
 import io.appform.statesman.model.WorkflowTemplate;
-import io.dropwizard.lifecycle.Managed;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Singleton
-public class WorkflowTemplateSelector implements Managed {
+public class WorkflowTemplateSelector {
 
     private WorkflowProvider workflowProvider;
     private HopeLangEngine hopeLangEngine;
-    private final AtomicReference<List<WorkflowTemplateContext>> parsedWorkflowTemplates;
-    private final ScheduledExecutorService executorService;
+    private final AtomicReference<WorkflowTemplateDecisionTable> parsedWorkflowTemplates;
 
     @Inject
     public WorkflowTemplateSelector(WorkflowProvider workflowProvider) {
@@ -36,16 +31,14 @@ public class WorkflowTemplateSelector implements Managed {
         this.hopeLangEngine = HopeLangEngine.builder()
                 .errorHandlingStrategy(new InjectValueErrorHandlingStrategy())
                 .build();
-        this.parsedWorkflowTemplates = new AtomicReference<>(new ArrayList<>());
-        this.executorService = Executors.newSingleThreadScheduledExecutor();
-        loadParsedWorkflowTemplates(); //initial loading
-        executorService.scheduleWithFixedDelay(this::loadParsedWorkflowTemplates, 0, 120, TimeUnit.SECONDS);
-
+        this.parsedWorkflowTemplates = new AtomicReference<>(WorkflowTemplateDecisionTable.build(new ArrayList<>()));
+        reload(); //initial loading
     }
 
     public Optional<WorkflowTemplate> determineTemplate(JsonNode translatedPayload) {
 
         return parsedWorkflowTemplates.get()
+                .candidates(translatedPayload)
                 .stream()
                 .filter(parsedWorkflowContext -> hopeLangEngine
                         .evaluate(parsedWorkflowContext.getParsedRule(), translatedPayload))
@@ -54,7 +47,10 @@ public class WorkflowTemplateSelector implements Managed {
     }
 
 
-    private void loadParsedWorkflowTemplates() {
+    /**
+     * Rebuilds the selection table from the current workflow templates. Called whenever the config snapshot changes.
+     */
+    public void reload() {
         log.info("Reloading templates for workflow selection");
         List<WorkflowTemplateContext> parsedTemplates = workflowProvider.getAll()
                 .stream()
@@ -67,25 +63,13 @@ public class WorkflowTemplateSelector implements Managed {
                         log.error("Error parsing template for workflow: " + template.getId(), e);
                         return null;
                     }
-                    return new WorkflowTemplateContext(template, parsedTemplateRule);
+                    return new WorkflowTemplateContext(template, parsedTemplateRule, rule);
                 }))
                 .filter(Objects::nonNull)
                 .collect(Collectors.toList());
         log.info("Reloaded templates:{}", parsedTemplates.stream()
                 .map(WorkflowTemplateContext::getTemplate)
                 .collect(Collectors.toSet()));
-        parsedWorkflowTemplates.set(parsedTemplates);
-    }
-
-    @Override
-    public void start(){
-
+        parsedWorkflowTemplates.set(WorkflowTemplateDecisionTable.build(parsedTemplates));
     }
-
-    @Override
-    public void stop() {
-        executorService.shutdown();
-    }
-
-
 }
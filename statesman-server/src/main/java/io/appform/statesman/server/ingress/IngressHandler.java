@@ -10,7 +10,7 @@ import com.google.common.base.Strings;
 import io.appform.hope.core.Evaluatable;
 import io.appform.hope.core.exceptions.errorstrategy.InjectValueErrorHandlingStrategy;
 import io.appform.hope.lang.HopeLangEngine;
-import io.appform.statesman.engine.StateTransitionEngine;
+import io.appform.statesman.engine.WorkflowMailbox;
 import io.appform.statesman.engine.WorkflowProvider;
 import io.appform.statesman.engine.handlebars.HandleBarsService;
 import io.appform.statesman.engine.observer.ObservableEventBus;
@@ -57,7 +57,7 @@ public class IngressHandler {
     private final CallbackTemplateProvider callbackTemplateProvider;
     private final ObjectMapper mapper;
     private final HandleBarsService handleBarsService;
-    private final Provider<StateTransitionEngine> engine;
+    private final Provider<WorkflowMailbox> workflowMailbox;
     private final Provider<WorkflowProvider> workflowProvider;
     private final Provider<WorkflowTemplateSelector> templateSelector;
     private final Provider<ObservableEventBus> eventBus;
@@ -71,7 +71,7 @@ public class IngressHandler {
         CallbackTemplateProvider callbackTemplateProvider,
         final ObjectMapper mapper,
         HandleBarsService handleBarsService,
-        Provider<StateTransitionEngine> engine,
+        Provider<WorkflowMailbox> workflowMailbox,
         Provider<WorkflowProvider> workflowProvider,
         Provider<WorkflowTemplateSelector> templateSelector,
         Provider<ObservableEventBus> eventBus,
@@ -79,7 +79,7 @@ public class IngressHandler {
         this.callbackTemplateProvider = callbackTemplateProvider;
         this.mapper = mapper;
         this.handleBarsService = handleBarsService;
-        this.engine = engine;
+        this.workflowMailbox = workflowMailbox;
         this.workflowProvider = workflowProvider;
         this.templateSelector = templateSelector;
         this.eventBus = eventBus;
@@ -166,7 +166,7 @@ public class IngressHandler {
         final DataUpdate dataUpdate = new DataUpdate(wfId, update, new MergeDataAction());
         eventBus.get().publish(new StateTransitionEvent(wfTemplate, workflow, dataUpdate, null, null));
         final AppliedTransitions appliedTransitions
-                = engine.get()
+                = workflowMailbox.get()
                 .handle(dataUpdate);
         log.debug("Workflow: {} with template: {} went through transitions: {}",
                   wfId, wfTemplate.getId(), appliedTransitions.getTransitions());
@@ -263,7 +263,7 @@ public class IngressHandler {
         val dataUpdate = new DataUpdate(wfId, update, new MergeDataAction());
         eventBus.get().publish(new StateTransitionEvent(wfTemplate, workflow, dataUpdate, null, null));
 
-        val appliedTransitions = engine.get().handle(dataUpdate);
+        val appliedTransitions = workflowMailbox.get().handle(dataUpdate);
         log.debug("Workflow: {} with template: {} went through transitions: {}",
             wfId, wfTemplate.getId(), appliedTransitions.getTransitions());
 
@@ -364,7 +364,7 @@ public class IngressHandler {
             log.debug("Workflow created: {}", wf);
         }
         final AppliedTransitions appliedTransitions
-                = engine.get()
+                = workflowMailbox.get()
                 .handle(dataUpdate, new MergeDataAction());
         log.debug("Workflow: {} with template: {} went through transitions: {}",
                   wfId, wfTemplate.getId(), appliedTransitions.getTransitions());
@@ -405,9 +405,8 @@ public class IngressHandler {
             eventBus.get().publish(ingressCallbackEvent);
             return false;
         }
-        val stdPayload = handleBarsService.transform(JsonNodeValueResolver.INSTANCE, tmpl.getTemplate(), node);
-        log.info("stdPayload:{}", stdPayload);
-        val update = mapper.readTree(stdPayload);
+        val update = handleBarsService.transformToNode(JsonNodeValueResolver.INSTANCE, tmpl.getTemplate(), node);
+        log.info("stdPayload:{}", update);
         var wfId = extractWorkflowId(node, transformationTemplate);
         val wfp = this.workflowProvider.get();
         val workflow = wfp.getWorkflow(wfId).orElse(null);
@@ -426,7 +425,7 @@ public class IngressHandler {
         }
         final DataUpdate dataUpdate = new DataUpdate(wfId, update, new MergeDataAction());
         final AppliedTransitions appliedTransitions
-                = engine.get()
+                = workflowMailbox.get()
                 .handle(dataUpdate);
         log.debug("Workflow: {} with template: {} went through transitions: {}",
                   wfId, wfTemplate.getId(), appliedTransitions.getTransitions());
@@ -468,14 +467,13 @@ public class IngressHandler {
             eventBus.get().publish(ingressCallbackEvent);
             return false;
         }
-        val stdPayload = handleBarsService.transform(JsonNodeValueResolver.INSTANCE, tmpl.getTemplate(), callback.getBody());
-        log.info("stdPayload:{}", stdPayload);
-        val update = mapper.readTree(stdPayload);
+        val update = handleBarsService.transformToNode(JsonNodeValueResolver.INSTANCE, tmpl.getTemplate(), callback.getBody());
+        log.info("stdPayload:{}", update);
         val wfTemplate = templateSelector.get()
                 .determineTemplate(update)
                 .orElse(null);
         if (null == wfTemplate) {
-            log.warn("No matching workflow template found for provider: {}, context: {}", provider, stdPayload);
+            log.warn("No matching workflow template found for provider: {}, context: {}", provider, update);
             ingressCallbackEvent.setErrorMessage(WORKFLOW_TEMPLATE_NOT_FOUND);
             eventBus.get().publish(ingressCallbackEvent);
             return false;
@@ -493,7 +491,7 @@ public class IngressHandler {
         final DataUpdate dataUpdate = new DataUpdate(wfId, update, new MergeDataAction());
         eventBus.get().publish(new StateTransitionEvent(wfTemplate, workflow, dataUpdate, null, null));
         final AppliedTransitions appliedTransitions
-                = engine.get()
+                = workflowMailbox.get()
                 .handle(dataUpdate);
         log.debug("Workflow: {} with template: {} went through transitions: {}",
                   wfId, wfTemplate.getId(), appliedTransitions.getTransitions());
@@ -535,7 +533,7 @@ public class IngressHandler {
         final DataUpdate dataUpdate = new DataUpdate(wfId, update, new MergeDataAction());
         eventBus.get().publish(new StateTransitionEvent(wfTemplate, workflow, dataUpdate, null, null));
         final AppliedTransitions appliedTransitions
-                = engine.get()
+                = workflowMailbox.get()
                 .handle(dataUpdate);
         log.debug("Workflow: {} with template: {} went through transitions: {}",
                   wfId, wfTemplate.getId(), appliedTransitions.getTransitions());
@@ -545,6 +543,34 @@ public class IngressHandler {
         return true;
     }
 
+    /**
+     * Precompiles the handlebars templates and rules of a callback template.
+     */
+    public void warmup(TransformationTemplate transformationTemplate) {
+        transformationTemplate.accept(new TransformationTemplateVisitor<Void>() {
+            @Override
+            public Void visit(OneShotTransformationTemplate oneShotTransformationTemplate) {
+                handleBarsService.precompile(oneShotTransformationTemplate.getTemplate());
+                return null;
+            }
+
+            @Override
+            public Void visit(StepByStepTransformationTemplate stepByStepTransformationTemplate) {
+                if (null == stepByStepTransformationTemplate.getTemplates()) {
+                    return null;
+                }
+                stepByStepTransformationTemplate.getTemplates().forEach(step -> {
+                    if (!Strings.isNullOrEmpty(step.getSelectionRule())) {
+                        hopeRuleCache.get(step.getSelectionRule());
+                    }
+                    handleBarsService.precompile(step.getTemplate());
+                });
+                return null;
+            }
+        });
+        droppedCallDetector.warmup(transformationTemplate);
+    }
+
     public JsonNode translateIngressIvrPayload(String providerKey,
                                                IngressCallback ingressCallback) throws IOException {
         val queryParams = parseQueryParams(ingressCallback);
@@ -581,8 +607,7 @@ public class IngressHandler {
                     providerKey, node);
             return null;
         }
-        val stdPayload =  handleBarsService.transform(JsonNodeValueResolver.INSTANCE, template, node);
-        val update = mapper.readTree(stdPayload);
+        val update = handleBarsService.transformToNode(JsonNodeValueResolver.INSTANCE, template, node);
         if (update.isObject()) {
             ((ObjectNode) update).put("callDropped",
                                       droppedCallDetector.detectDroppedCall(transformationTemplate, update));
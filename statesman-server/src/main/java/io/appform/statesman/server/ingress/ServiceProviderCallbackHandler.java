@@ -4,7 +4,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.jknack.handlebars.JsonNodeValueResolver;
 import com.google.common.base.Strings;
-import io.appform.statesman.engine.StateTransitionEngine;
+import io.appform.statesman.engine.WorkflowMailbox;
 import io.appform.statesman.engine.WorkflowProvider;
 import io.appform.statesman.engine.handlebars.HandleBarsService;
 import io.appform.statesman.model.AppliedTransitions;
@@ -33,7 +33,7 @@ import java.util.Optional;
 public class ServiceProviderCallbackHandler {
     private final Provider<CallbackTemplateProvider> callbackTemplateProvider;
     private Provider<HandleBarsService> handleBarsService;
-    private final Provider<StateTransitionEngine> engine;
+    private final Provider<WorkflowMailbox> workflowMailbox;
     private final Provider<WorkflowProvider> workflowProvider;
     private ObjectMapper mapper;
 
@@ -41,12 +41,12 @@ public class ServiceProviderCallbackHandler {
     public ServiceProviderCallbackHandler(
             Provider<CallbackTemplateProvider> callbackTemplateProvider,
             Provider<HandleBarsService> handleBarsService,
-            Provider<StateTransitionEngine> engine,
+            Provider<WorkflowMailbox> workflowMailbox,
             Provider<WorkflowProvider> workflowProvider,
             ObjectMapper mapper) {
         this.callbackTemplateProvider = callbackTemplateProvider;
         this.handleBarsService = handleBarsService;
-        this.engine = engine;
+        this.workflowMailbox = workflowMailbox;
         this.workflowProvider = workflowProvider;
         this.mapper = mapper;
     }
@@ -85,7 +85,7 @@ public class ServiceProviderCallbackHandler {
         log.info("translatedProviderCallbackPayload:{}", translatedProviderCallbackPayload);
         val context = mapper.readTree(translatedProviderCallbackPayload);
         val dataUpdate = new DataUpdate(wfId, context, new MergeDataAction());
-        final AppliedTransitions appliedTransitions = engine.get().handle(dataUpdate);
+        final AppliedTransitions appliedTransitions = workflowMailbox.get().handle(dataUpdate);
         log.debug("Workflow: {} went through transitions: {}.", wfId, appliedTransitions.getTransitions());
         return true;
     }
@@ -8,6 +8,8 @@ import io.appform.dropwizard.sharding.dao.LookupDao;
 import io.appform.dropwizard.sharding.dao.RelationalDao;
 import io.appform.statesman.server.dao.action.StoredActionTemplate;
 import io.appform.statesman.server.dao.callback.StoredCallbackTransformationTemplate;
+import io.appform.statesman.server.dao.config.StoredConfigVersion;
+import io.appform.statesman.server.dao.failedaction.StoredFailedAction;
 import io.appform.statesman.server.dao.providers.StoredProvider;
 import io.appform.statesman.server.dao.transition.StoredStateTransition;
 import io.appform.statesman.server.dao.workflow.StoredWorkflowInstance;
@@ -57,4 +59,16 @@ public class DBModule extends AbstractModule {
     public RelationalDao<StoredCallbackTransformationTemplate> provideCallbackTransformationTemplateLookupDao() {
         return dbShardingBundle.createRelatedObjectDao(StoredCallbackTransformationTemplate.class);
     }
+
+    @Singleton
+    @Provides
+    public LookupDao<StoredConfigVersion> provideConfigVersionLookupDao() {
+        return dbShardingBundle.createParentObjectDao(StoredConfigVersion.class);
+    }
+
+    @Singleton
+    @Provides
+    public RelationalDao<StoredFailedAction> provideFailedActionRelationalDao() {
+        return dbShardingBundle.createRelatedObjectDao(StoredFailedAction.class);
+    }
 }
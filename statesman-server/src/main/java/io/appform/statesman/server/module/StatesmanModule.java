@@ -1,6 +1,8 @@
 package io.appform.statesman.server.module;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.inject.AbstractModule;
+import com.google.inject.Provider;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
@@ -8,6 +10,7 @@ import com.google.inject.name.Names;
 import io.appform.eventingester.client.EventPublisher;
 import io.appform.eventingester.client.EventPublishers;
 import io.appform.statesman.engine.ActionTemplateStore;
+import io.appform.statesman.engine.FailedActionStore;
 import io.appform.statesman.engine.ProviderSelector;
 import io.appform.statesman.engine.TransitionStore;
 import io.appform.statesman.engine.WorkflowProvider;
@@ -17,16 +20,22 @@ import io.appform.statesman.engine.action.ActionRegistry;
 import io.appform.statesman.engine.action.MapBasedActionRegistry;
 import io.appform.statesman.engine.http.HttpClient;
 import io.appform.statesman.engine.http.HttpUtil;
+import io.appform.statesman.engine.observer.BatchingObservableEventBus;
 import io.appform.statesman.engine.observer.ObservableEventBus;
 import io.appform.statesman.engine.observer.ObservableEventBusSubscriber;
 import io.appform.statesman.engine.observer.ObservableGuavaEventBus;
 import io.appform.statesman.engine.observer.observers.FoxtrotEventSender;
+import io.appform.statesman.model.EventBusConfig;
+import io.appform.statesman.model.EventSpoolConfig;
 import io.appform.statesman.model.FoxtrotClientConfig;
 import io.appform.statesman.model.HttpClientConfiguration;
+import io.appform.statesman.model.action.ActionLimit;
+import io.appform.statesman.model.action.CircuitBreakerConfig;
 import io.appform.statesman.server.AppConfig;
 import io.appform.statesman.server.dao.action.ActionTemplateStoreCommand;
 import io.appform.statesman.server.dao.callback.CallbackTemplateProvider;
 import io.appform.statesman.server.dao.callback.CallbackTemplateProviderCommand;
+import io.appform.statesman.server.dao.failedaction.FailedActionStoreCommand;
 import io.appform.statesman.server.dao.transition.TransitionStoreCommand;
 import io.appform.statesman.server.dao.workflow.WorkflowProviderCommand;
 import io.appform.statesman.server.droppedcalldetector.DroppedCallDetector;
@@ -34,19 +43,29 @@ import io.appform.statesman.server.droppedcalldetector.HopeRuleDroppedCallDetect
 import io.appform.statesman.server.idextractor.CompoundIdExtractor;
 import io.appform.statesman.server.idextractor.IdExtractor;
 import io.appform.statesman.server.provider.ProviderSelectorImpl;
+import io.dropwizard.lifecycle.Managed;
 import io.dropwizard.setup.Environment;
+import lombok.val;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 
 public class StatesmanModule extends AbstractModule {
+    private static final int COMPOUND_ACTION_QUEUE_SIZE = 1024;
+    private static final int MAILBOX_QUEUE_SIZE = 1024;
 
     @Override
     protected void configure() {
         bind(ActionTemplateStore.class).to(ActionTemplateStoreCommand.class);
         bind(TransitionStore.class).to(TransitionStoreCommand.class);
         bind(WorkflowProvider.class).to(WorkflowProviderCommand.class);
+        bind(FailedActionStore.class).to(FailedActionStoreCommand.class);
         bind(CallbackTemplateProvider.class).to(CallbackTemplateProviderCommand.class);
         bind(ActionRegistry.class).to(MapBasedActionRegistry.class);
         bind(ProviderSelector.class).to(ProviderSelectorImpl.class);
-        bind(ObservableEventBus.class).to(ObservableGuavaEventBus.class);
         bind(DroppedCallDetector.class).to(HopeRuleDroppedCallDetector.class);
         bind(ActionExecutor.class).to(ActionExecutorImpl.class);
         bind(ObservableEventBusSubscriber.class)
@@ -71,6 +90,27 @@ public class StatesmanModule extends AbstractModule {
         return config.getHttpActionDefaultConfig();
     }
 
+    @Singleton
+    @Provides
+    @Named("httpClientProfiles")
+    public Map<String, HttpClientConfiguration> provideHttpClientProfiles(AppConfig config) {
+        return config.getHttpClientProfiles();
+    }
+
+    @Singleton
+    @Provides
+    @Named("providerLimits")
+    public Map<String, ActionLimit> provideProviderLimits(AppConfig config) {
+        return config.getProviderLimits();
+    }
+
+    @Singleton
+    @Provides
+    @Named("circuitBreakerDefaults")
+    public CircuitBreakerConfig provideCircuitBreakerDefaults(AppConfig config) {
+        return config.getCircuitBreaker();
+    }
+
     @Provides
     @Singleton
     public HttpClient httpClient(Environment environment, AppConfig appConfig) {
@@ -80,6 +120,113 @@ public class StatesmanModule extends AbstractModule {
                                                      appConfig.getHttpActionDefaultConfig()));
     }
 
+    /**
+     * Runs completions and retries of async actions. Managed by the dropwizard lifecycle.
+     */
+    @Provides
+    @Singleton
+    @Named("asyncActionExecutor")
+    public ScheduledExecutorService asyncActionExecutor(Environment environment) {
+        return environment.lifecycle()
+                .scheduledExecutorService("async-action-%d")
+                .threads(Math.max(4, Runtime.getRuntime().availableProcessors()))
+                .build();
+    }
+
+    /**
+     * Drains workflow mailboxes for updates nobody waits on, like merges of async action responses. Bounded; once the
+     * queue fills up, the mailbox drains on the submitting thread.
+     */
+    @Provides
+    @Singleton
+    @Named("mailboxExecutor")
+    public ExecutorService mailboxExecutor(Environment environment) {
+        val threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        return environment.lifecycle()
+                .executorService("workflow-mailbox-%d")
+                .minThreads(threads)
+                .maxThreads(threads)
+                .workQueue(new ArrayBlockingQueue<>(MAILBOX_QUEUE_SIZE))
+                .build();
+    }
+
+    /**
+     * Runs the branches of parallel compound actions. Bounded; once the queue fills up, branches are rejected rather
+     * than run on the caller, where they could not be cut off at the branch timeout.
+     * {@link io.appform.statesman.engine.action.ActionHelper} decides what happens to them.
+     */
+    @Provides
+    @Singleton
+    @Named("compoundActionExecutor")
+    public ExecutorService compoundActionExecutor(Environment environment) {
+        val threads = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+        return environment.lifecycle()
+                .executorService("compound-action-%d")
+                .minThreads(threads)
+                .maxThreads(threads)
+                .workQueue(new ArrayBlockingQueue<>(COMPOUND_ACTION_QUEUE_SIZE))
+                .rejectionHandler(new ThreadPoolExecutor.AbortPolicy())
+                .build();
+    }
+
+    @Provides
+    @Singleton
+    public EventBusConfig eventBusConfig(AppConfig appConfig) {
+        return appConfig.getEventBus();
+    }
+
+    @Provides
+    @Singleton
+    public EventSpoolConfig eventSpoolConfig(AppConfig appConfig) {
+        return appConfig.getEventSpool();
+    }
+
+    /**
+     * Sends reporting events off the caller's thread. Bounded; once the queue fills up, events go to the spool.
+     */
+    @Provides
+    @Singleton
+    @Named("eventPublishExecutor")
+    public ExecutorService eventPublishExecutor(Environment environment, EventSpoolConfig config) {
+        return environment.lifecycle()
+                .executorService("event-publish-%d")
+                .minThreads(config.getPublishThreads())
+                .maxThreads(config.getPublishThreads())
+                .workQueue(new ArrayBlockingQueue<>(config.getPublishQueueSize()))
+                .build();
+    }
+
+    @Provides
+    @Singleton
+    public ObservableEventBus observableEventBus(
+            EventBusConfig eventBusConfig,
+            Environment environment,
+            Provider<ObservableGuavaEventBus> syncEventBus,
+            Provider<BatchingObservableEventBus> batchingEventBus) {
+        if (eventBusConfig.getType() != EventBusConfig.Type.BATCHING) {
+            return syncEventBus.get();
+        }
+        val eventBus = batchingEventBus.get();
+        environment.lifecycle().manage(new Managed() {
+            @Override
+            public void start() {
+                eventBus.start();
+            }
+
+            @Override
+            public void stop() throws Exception {
+                eventBus.stop();
+            }
+        });
+        return eventBus;
+    }
+
+    @Provides
+    @Singleton
+    public MetricRegistry metricRegistry(Environment environment) {
+        return environment.metrics();
+    }
+
     @Provides
     @Singleton
     public FoxtrotClientConfig foxtrotClientConfig(AppConfig appConfig) {
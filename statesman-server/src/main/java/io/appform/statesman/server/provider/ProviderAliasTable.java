@@ -0,0 +1,80 @@
+package io.appform.statesman.server.provider;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Weighted random pick over a fixed set of providers in constant time, using Vose's alias method.
+ * Built once per provider config and health refresh; picks don't allocate.
+ */
+final class ProviderAliasTable {
+    private final String[] providers;
+    private final double[] probabilities;
+    private final int[] aliases;
+
+    private ProviderAliasTable(String[] providers, double[] probabilities, int[] aliases) {
+        this.providers = providers;
+        this.probabilities = probabilities;
+        this.aliases = aliases;
+    }
+
+    /**
+     * Builds a table over the given providers. Non positive weights are dropped, unless all of them are, in which case
+     * providers are picked uniformly.
+     */
+    static ProviderAliasTable of(String[] providers, double[] weights) {
+        final int size = providers.length;
+        double total = 0;
+        for (double weight : weights) {
+            total += Math.max(0, weight);
+        }
+        final double[] scaled = new double[size];
+        for (int i = 0; i < size; i++) {
+            scaled[i] = total > 0
+                        ? Math.max(0, weights[i]) * size / total
+                        : 1.0;
+        }
+        final double[] probabilities = new double[size];
+        final int[] aliases = new int[size];
+        final ArrayDeque<Integer> small = new ArrayDeque<>();
+        final ArrayDeque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < size; i++) {
+            (scaled[i] < 1.0 ? small : large).add(i);
+        }
+        while (!small.isEmpty() && !large.isEmpty()) {
+            final int less = small.poll();
+            final int more = large.poll();
+            probabilities[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1.0;
+            (scaled[more] < 1.0 ? small : large).add(more);
+        }
+        //Whatever is left is at (or, due to rounding, about) one
+        while (!large.isEmpty()) {
+            probabilities[large.poll()] = 1.0;
+        }
+        while (!small.isEmpty()) {
+            probabilities[small.poll()] = 1.0;
+        }
+        return new ProviderAliasTable(providers, probabilities, aliases);
+    }
+
+    int size() {
+        return providers.length;
+    }
+
+    String provider(int index) {
+        return providers[index];
+    }
+
+    String pick() {
+        if (providers.length == 0) {
+            return null;
+        }
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int column = random.nextInt(providers.length);
+        return random.nextDouble() < probabilities[column]
+               ? providers[column]
+               : providers[aliases[column]];
+    }
+}
@@ -1,49 +1,119 @@
 package io.appform.statesman.server.provider;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import io.appform.statesman.engine.ProviderSelector;
+import io.appform.statesman.engine.action.ActionLimiter;
+import io.appform.statesman.engine.action.CircuitBreakers;
+import io.appform.statesman.engine.action.ProviderHealthTracker;
 import io.appform.statesman.model.Workflow;
 import io.appform.statesman.server.dao.providers.ProviderCommands;
+import io.appform.statesman.server.dao.providers.StoredProvider;
+import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import lombok.val;
 
-import java.util.List;
-import java.util.Random;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Objects;
 
+/**
+ * Picks providers at random, weighted by their partitions and the observed health of their action templates.
+ * Weights are baked into an alias table per routed template, rebuilt when the provider config changes and at most
+ * once every {@link #HEALTH_REFRESH_MS} to follow health. A pick is a couple of random numbers and array reads.
+ * Providers that are saturated or whose template circuit is open are skipped while any other provider is available.
+ */
 @Slf4j
 @Singleton
 public class ProviderSelectorImpl implements ProviderSelector {
-
+    private static final long HEALTH_REFRESH_MS = 1_000;
+    private static final int UNAVAILABLE_REPICKS = 2;
 
     private final ProviderCommands providerCommands;
+    private final ActionLimiter actionLimiter;
+    private final ProviderHealthTracker healthTracker;
+    private final CircuitBreakers circuitBreakers;
+    //Keyed by the provider map instance of a routed template, which is replaced whenever templates are reloaded
+    private final Cache<Map<String, String>, RoutingTable> routingTables = Caffeine.newBuilder()
+            .weakKeys()
+            .build();
 
     @Inject
-    public ProviderSelectorImpl(ProviderCommands providerCommands) {
+    public ProviderSelectorImpl(
+            ProviderCommands providerCommands,
+            ActionLimiter actionLimiter,
+            ProviderHealthTracker healthTracker,
+            CircuitBreakers circuitBreakers) {
         this.providerCommands = providerCommands;
+        this.actionLimiter = actionLimiter;
+        this.healthTracker = healthTracker;
+        this.circuitBreakers = circuitBreakers;
     }
 
     @Override
-    public String provider(String useCase, Set<String> configuredProviders, Workflow workflow) {
-        List<String> activeProviders =
-                configuredProviders.stream()
-                        .map(providerId -> providerCommands.get(providerId, useCase))
-                        .filter(storedProvider -> storedProvider.isPresent() && storedProvider.get().isActive())
-                        .map(storedProvider -> storedProvider.get().getProviderId())
-                        .collect(Collectors.toList());
-        return getRandom(activeProviders);
+    public String provider(String useCase, Map<String, String> providerTemplates, Workflow workflow) {
+        val aliasTable = routingTable(useCase, providerTemplates).aliasTable;
+        String provider = aliasTable.pick();
+        if (aliasTable.size() < 2 || isAvailable(provider, providerTemplates)) {
+            return provider;
+        }
+        //Saturated or broken providers are picked only if no other provider is available
+        for (int i = 0; i < UNAVAILABLE_REPICKS; i++) {
+            provider = aliasTable.pick();
+            if (isAvailable(provider, providerTemplates)) {
+                return provider;
+            }
+        }
+        for (int i = 0; i < aliasTable.size(); i++) {
+            if (isAvailable(aliasTable.provider(i), providerTemplates)) {
+                return aliasTable.provider(i);
+            }
+        }
+        return provider;
     }
 
-    private String getRandom(List<String> configuredProviders) {
-        if (configuredProviders.isEmpty()) {
-            return null;
-        }
-        if (configuredProviders.size() == 1) {
-            return configuredProviders.get(0);
+    private boolean isAvailable(String provider, Map<String, String> providerTemplates) {
+        return !actionLimiter.isProviderSaturated(provider)
+                && !circuitBreakers.isOpen(providerTemplates.get(provider));
+    }
+
+    private RoutingTable routingTable(String useCase, Map<String, String> providerTemplates) {
+        val version = providerCommands.configVersion();
+        val now = System.currentTimeMillis();
+        val existing = routingTables.getIfPresent(providerTemplates);
+        if (null != existing
+                && existing.version == version
+                && Objects.equals(existing.useCase, useCase)
+                && now - existing.builtAt < HEALTH_REFRESH_MS) {
+            return existing;
         }
-        Random random = new Random();
-        int randomNumber = random.nextInt(configuredProviders.size());
-        return configuredProviders.get(randomNumber);
+        val table = new RoutingTable(useCase, version, now, aliasTable(useCase, providerTemplates));
+        routingTables.put(providerTemplates, table);
+        return table;
+    }
+
+    private ProviderAliasTable aliasTable(String useCase, Map<String, String> providerTemplates) {
+        val providers = new ArrayList<String>(providerTemplates.size());
+        val weights = new ArrayList<Double>(providerTemplates.size());
+        providerTemplates.forEach((providerId, templateId) -> {
+            final StoredProvider storedProvider = providerCommands.get(providerId, useCase).orElse(null);
+            if (null == storedProvider || !storedProvider.isActive()) {
+                return;
+            }
+            providers.add(providerId);
+            weights.add(Math.max(1, storedProvider.getPartitions()) * healthTracker.healthFactor(templateId));
+        });
+        return ProviderAliasTable.of(providers.toArray(new String[0]),
+                                     weights.stream().mapToDouble(Double::doubleValue).toArray());
+    }
+
+    @AllArgsConstructor
+    private static final class RoutingTable {
+        private final String useCase;
+        private final long version;
+        private final long builtAt;
+        private final ProviderAliasTable aliasTable;
     }
 }
@@ -10,9 +10,11 @@ import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import io.appform.hope.core.exceptions.errorstrategy.InjectValueErrorHandlingStrategy;
 import io.appform.hope.lang.HopeLangEngine;
-import io.appform.statesman.engine.StateTransitionEngine;
+import io.appform.statesman.engine.FailedActionStore;
+import io.appform.statesman.engine.WorkflowMailbox;
 import io.appform.statesman.engine.WorkflowProvider;
 import io.appform.statesman.engine.action.ActionExecutor;
+import io.appform.statesman.engine.action.ActionRetryQueue;
 import io.appform.statesman.engine.handlebars.HandleBarsService;
 import io.appform.statesman.model.*;
 import io.appform.statesman.model.dataaction.impl.MergeDataAction;
@@ -29,6 +31,8 @@ import lombok.val;
 import org.glassfish.jersey.uri.UriComponent;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -45,9 +49,11 @@ public class HousekeepingResource {
 
 
     private final Provider<WorkflowProvider> workflowProvider;
-    private final Provider<StateTransitionEngine> engine;
+    private final Provider<WorkflowMailbox> workflowMailbox;
     private final Provider<ActionExecutor> actionExecutor;
     private final Provider<IngressHandler> ingressHandler;
+    private final Provider<FailedActionStore> failedActionStore;
+    private final Provider<ActionRetryQueue> actionRetryQueue;
     private final ObjectMapper mapper;
     private final HandleBarsService handleBarsService;
     private final HopeLangEngine hopeLangEngine;
@@ -55,15 +61,19 @@ public class HousekeepingResource {
     @Inject
     public HousekeepingResource(
             Provider<WorkflowProvider> workflowProvider,
-            Provider<StateTransitionEngine> engine,
+            Provider<WorkflowMailbox> workflowMailbox,
             Provider<ActionExecutor> actionExecutor,
             Provider<IngressHandler> ingressHandler,
+            Provider<FailedActionStore> failedActionStore,
+            Provider<ActionRetryQueue> actionRetryQueue,
             ObjectMapper mapper,
             HandleBarsService handleBarsService) {
         this.workflowProvider = workflowProvider;
-        this.engine = engine;
+        this.workflowMailbox = workflowMailbox;
         this.actionExecutor = actionExecutor;
         this.ingressHandler = ingressHandler;
+        this.failedActionStore = failedActionStore;
+        this.actionRetryQueue = actionRetryQueue;
         this.mapper = mapper;
         this.handleBarsService = handleBarsService;
         this.hopeLangEngine = HopeLangEngine.builder()
@@ -93,6 +103,26 @@ public class HousekeepingResource {
                 .build();
     }
 
+    @GET
+    @Timed
+    @Path("/failed-actions/dead")
+    @ApiOperation("Actions that ran out of retries")
+    public Response deadLetters(@QueryParam("limit") @DefaultValue("100") @Min(1) @Max(10_000) int limit) {
+        return Response.ok()
+                .entity(failedActionStore.get().deadLetters(limit))
+                .build();
+    }
+
+    @POST
+    @Timed
+    @Path("/failed-actions/dead/replay")
+    @ApiOperation("Requeue actions that ran out of retries")
+    public Response replayDeadLetters(@QueryParam("limit") @DefaultValue("100") @Min(1) @Max(10_000) int limit) {
+        return Response.ok()
+                .entity(Collections.singletonMap("replayed", actionRetryQueue.get().replayDeadLetters(limit)))
+                .build();
+    }
+
     @POST
     @Timed
     @Path("/ingress/template/test")
@@ -165,7 +195,7 @@ public class HousekeepingResource {
         val workflow = new Workflow(UUID.randomUUID().toString(), wfTemplate.getId(), dataObject, date, date);
         workflowProvider.get().saveWorkflow(workflow);
         final AppliedTransitions appliedTransitions
-                = engine.get().handle(new DataUpdate(workflow.getId(), translatedData, new MergeDataAction()), new MergeDataAction());
+                = workflowMailbox.get().handle(new DataUpdate(workflow.getId(), translatedData, new MergeDataAction()), new MergeDataAction());
         return Response.ok()
                 .entity(appliedTransitions)
                 .build();
@@ -183,7 +213,7 @@ public class HousekeepingResource {
                     .build();
         }
         final AppliedTransitions appliedTransitions
-                = engine.get().handle(new DataUpdate(workflowId, update, new MergeDataAction()));
+                = workflowMailbox.get().handle(new DataUpdate(workflowId, update, new MergeDataAction()));
         return Response.ok()
                 .entity(appliedTransitions)
                 .build();
@@ -0,0 +1,19 @@
+package io.appform.statesman.server.retry;
+
+import lombok.Data;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+/**
+ *
+ */
+@Data
+public class ActionRetryConfig {
+    @Min(1)
+    private int pollIntervalSeconds = 5;
+
+    @Min(1)
+    @Max(10_000)
+    private int batchSize = 100;
+}
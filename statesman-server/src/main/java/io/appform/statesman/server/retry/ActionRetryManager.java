@@ -0,0 +1,58 @@
+package io.appform.statesman.server.retry;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import io.appform.statesman.engine.action.ActionRetryQueue;
+import io.appform.statesman.server.AppConfig;
+import io.dropwizard.lifecycle.Managed;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the {@link ActionRetryQueue} for failed actions that are due for another attempt
+ */
+@Slf4j
+@Singleton
+public class ActionRetryManager implements Managed {
+    private final Provider<ActionRetryQueue> retryQueue;
+    private final ActionRetryConfig config;
+    private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+
+    @Inject
+    public ActionRetryManager(Provider<ActionRetryQueue> retryQueue, AppConfig appConfig) {
+        this.retryQueue = retryQueue;
+        this.config = appConfig.getActionRetry();
+    }
+
+    @Override
+    public void start() {
+        executorService.scheduleWithFixedDelay(this::retryDue,
+                                               config.getPollIntervalSeconds(),
+                                               config.getPollIntervalSeconds(),
+                                               TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void stop() {
+        executorService.shutdown();
+    }
+
+    private void retryDue() {
+        try {
+            int retried;
+            do {
+                retried = retryQueue.get().retryDue(config.getBatchSize());
+                if (retried > 0) {
+                    log.info("Retried {} failed actions", retried);
+                }
+            } while (retried == config.getBatchSize());
+        }
+        catch (Exception e) {
+            log.error("Error retrying failed actions", e);
+        }
+    }
+}
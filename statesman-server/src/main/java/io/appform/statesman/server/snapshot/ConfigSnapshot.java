@@ -0,0 +1,94 @@
+package io.appform.statesman.server.snapshot;
+
+import io.appform.statesman.model.StateTransition;
+import io.appform.statesman.model.WorkflowTemplate;
+import io.appform.statesman.model.action.template.ActionTemplate;
+import io.appform.statesman.server.callbacktransformation.TransformationTemplate;
+import io.appform.statesman.server.dao.callback.CallbackTemplateIndex;
+import io.appform.statesman.server.dao.providers.StoredProvider;
+import lombok.Value;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable, consistent view of all stored templates and providers at a given config version.
+ */
+@Value
+public class ConfigSnapshot {
+    long version;
+    long loadedAt;
+    Map<String, WorkflowTemplate> workflowTemplates;
+    Map<String, ActionTemplate> actionTemplates;
+    Map<String, List<StateTransition>> transitions;
+    Map<String, Map<String, List<StateTransition>>> activeTransitions;
+    CallbackTemplateIndex callbackTemplates;
+    Map<String, Map<String, StoredProvider>> providers;
+
+    public static ConfigSnapshot of(
+            long version,
+            Collection<WorkflowTemplate> workflowTemplates,
+            Collection<ActionTemplate> actionTemplates,
+            Map<String, List<StateTransition>> transitions,
+            Set<TransformationTemplate> callbackTemplates,
+            Collection<StoredProvider> providers) {
+        final Map<String, Map<String, List<StateTransition>>> activeTransitions = new HashMap<>();
+        transitions.forEach((templateId, templateTransitions) -> activeTransitions.put(
+                templateId,
+                Collections.unmodifiableMap(templateTransitions.stream()
+                                                    .filter(transition -> transition.isActive() && null != transition.getFromState())
+                                                    .collect(Collectors.groupingBy(StateTransition::getFromState)))));
+        final Map<String, Map<String, StoredProvider>> providersById = new HashMap<>();
+        providers.forEach(provider -> providersById.computeIfAbsent(provider.getProviderId(), id -> new HashMap<>())
+                .putIfAbsent(provider.getUseCase(), provider));
+        return new ConfigSnapshot(
+                version,
+                System.currentTimeMillis(),
+                Collections.unmodifiableMap(workflowTemplates.stream()
+                                                    .collect(Collectors.toMap(WorkflowTemplate::getId,
+                                                                              Function.identity(),
+                                                                              (lhs, rhs) -> lhs))),
+                Collections.unmodifiableMap(actionTemplates.stream()
+                                                    .collect(Collectors.toMap(ActionTemplate::getTemplateId,
+                                                                              Function.identity(),
+                                                                              (lhs, rhs) -> lhs))),
+                Collections.unmodifiableMap(new HashMap<>(transitions)),
+                Collections.unmodifiableMap(activeTransitions),
+                CallbackTemplateIndex.of(callbackTemplates),
+                Collections.unmodifiableMap(providersById));
+    }
+
+    public Optional<WorkflowTemplate> workflowTemplate(String templateId) {
+        return Optional.ofNullable(workflowTemplates.get(templateId));
+    }
+
+    public Set<WorkflowTemplate> allWorkflowTemplates() {
+        return new HashSet<>(workflowTemplates.values());
+    }
+
+    public Optional<ActionTemplate> actionTemplate(String templateId) {
+        return Optional.ofNullable(actionTemplates.get(templateId));
+    }
+
+    public List<ActionTemplate> allActionTemplates() {
+        return new ArrayList<>(actionTemplates.values());
+    }
+
+    public List<StateTransition> transitions(String workflowTemplateId) {
+        return transitions.getOrDefault(workflowTemplateId, Collections.emptyList());
+    }
+
+    public List<StateTransition> activeTransitions(String workflowTemplateId, String fromState) {
+        return activeTransitions.getOrDefault(workflowTemplateId, Collections.emptyMap())
+                .getOrDefault(fromState, Collections.emptyList());
+    }
+
+    public Optional<StoredProvider> provider(String providerId, String useCase) {
+        return Optional.ofNullable(providers.getOrDefault(providerId, Collections.emptyMap()).get(useCase));
+    }
+
+    public List<StoredProvider> providers(String providerId) {
+        return new ArrayList<>(providers.getOrDefault(providerId, Collections.emptyMap()).values());
+    }
+}
@@ -0,0 +1,17 @@
+package io.appform.statesman.server.snapshot;
+
+import lombok.Data;
+
+import javax.validation.constraints.Min;
+
+/**
+ *
+ */
+@Data
+public class ConfigSnapshotConfig {
+    @Min(1)
+    private int versionPollIntervalSeconds = 5;
+
+    @Min(1)
+    private int fullReloadIntervalSeconds = 600;
+}
@@ -0,0 +1,174 @@
+package io.appform.statesman.server.snapshot;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import io.appform.statesman.engine.graph.TransitionGraphStore;
+import io.appform.statesman.server.AppConfig;
+import io.appform.statesman.server.dao.action.ActionTemplateStoreCommand;
+import io.appform.statesman.server.dao.callback.CallbackTemplateProviderCommand;
+import io.appform.statesman.server.dao.config.ConfigVersionCommands;
+import io.appform.statesman.server.dao.providers.ProviderCommands;
+import io.appform.statesman.server.dao.transition.TransitionStoreCommand;
+import io.appform.statesman.server.dao.workflow.WorkflowProviderCommand;
+import io.appform.statesman.server.evaluator.WorkflowTemplateSelector;
+import io.dropwizard.lifecycle.Managed;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Owns the in-memory {@link ConfigSnapshot} that all template and provider lookups are served from.
+ * The config version row is polled cheaply; the full reload from the DB only happens when the version moves, or
+ * after {@link ConfigSnapshotConfig#getFullReloadIntervalSeconds()} as a safety net against missed bumps. A reload
+ * builds a new snapshot off to the side and swaps it in atomically, so readers never see a partially loaded config.
+ */
+@Slf4j
+@Singleton
+public class ConfigSnapshotManager implements Managed {
+    private final ConfigVersionCommands configVersionCommands;
+    private final Provider<WorkflowProviderCommand> workflowProvider;
+    private final Provider<ActionTemplateStoreCommand> actionTemplateStore;
+    private final Provider<TransitionStoreCommand> transitionStore;
+    private final Provider<CallbackTemplateProviderCommand> callbackTemplateProvider;
+    private final Provider<ProviderCommands> providerCommands;
+    private final Provider<WorkflowTemplateSelector> workflowTemplateSelector;
+    private final Provider<TransitionGraphStore> transitionGraphStore;
+    private final ConfigSnapshotConfig config;
+    private final AtomicReference<ConfigSnapshot> snapshot = new AtomicReference<>();
+    private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private final Meter reloads;
+    private final Meter reloadFailures;
+
+    @Inject
+    public ConfigSnapshotManager(
+            ConfigVersionCommands configVersionCommands,
+            Provider<WorkflowProviderCommand> workflowProvider,
+            Provider<ActionTemplateStoreCommand> actionTemplateStore,
+            Provider<TransitionStoreCommand> transitionStore,
+            Provider<CallbackTemplateProviderCommand> callbackTemplateProvider,
+            Provider<ProviderCommands> providerCommands,
+            Provider<WorkflowTemplateSelector> workflowTemplateSelector,
+            Provider<TransitionGraphStore> transitionGraphStore,
+            AppConfig appConfig,
+            MetricRegistry metricRegistry) {
+        this.configVersionCommands = configVersionCommands;
+        this.workflowProvider = workflowProvider;
+        this.actionTemplateStore = actionTemplateStore;
+        this.transitionStore = transitionStore;
+        this.callbackTemplateProvider = callbackTemplateProvider;
+        this.providerCommands = providerCommands;
+        this.workflowTemplateSelector = workflowTemplateSelector;
+        this.transitionGraphStore = transitionGraphStore;
+        this.config = appConfig.getConfigSnapshot();
+        this.reloads = metricRegistry.meter(MetricRegistry.name(ConfigSnapshotManager.class, "reloads"));
+        this.reloadFailures = metricRegistry.meter(MetricRegistry.name(ConfigSnapshotManager.class, "reload.failures"));
+        metricRegistry.register(MetricRegistry.name(ConfigSnapshotManager.class, "version"),
+                                (Gauge<Long>) () -> null == snapshot.get() ? -1 : snapshot.get().getVersion());
+    }
+
+    /**
+     * Current snapshot. Loaded synchronously on first use.
+     */
+    public ConfigSnapshot current() {
+        val current = snapshot.get();
+        if (null != current) {
+            return current;
+        }
+        synchronized (this) {
+            if (null == snapshot.get()) {
+                swap(load(configVersionCommands.current()));
+            }
+            return snapshot.get();
+        }
+    }
+
+    /**
+     * To be called after every config write. Bumps the stored version so that other nodes pick the change up on
+     * their next poll, and schedules a reload of this node. The reload runs in the background, so the write doesn't
+     * wait for it; publishes that arrive while a reload is pending share it.
+     */
+    public void publish() {
+        try {
+            configVersionCommands.bump();
+        }
+        catch (Exception e) {
+            log.error("Error bumping config version, other nodes will pick the change up on full reload", e);
+        }
+        if (!refreshPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executorService.execute(() -> {
+                refreshPending.set(false);
+                refresh(true);
+            });
+        }
+        catch (RejectedExecutionException e) {
+            refreshPending.set(false);
+            log.warn("Config snapshot manager is stopped, skipping reload");
+        }
+    }
+
+    @Override
+    public void start() {
+        current();
+        executorService.scheduleWithFixedDelay(() -> refresh(false),
+                                               config.getVersionPollIntervalSeconds(),
+                                               config.getVersionPollIntervalSeconds(),
+                                               TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void stop() {
+        executorService.shutdown();
+    }
+
+    private synchronized void refresh(boolean force) {
+        try {
+            val current = current();
+            val latestVersion = configVersionCommands.current();
+            val age = System.currentTimeMillis() - current.getLoadedAt();
+            if (!force
+                    && latestVersion == current.getVersion()
+                    && age < TimeUnit.SECONDS.toMillis(config.getFullReloadIntervalSeconds())) {
+                return;
+            }
+            swap(load(latestVersion));
+            workflowTemplateSelector.get().reload();
+            log.info("Swapped config snapshot version {} -> {}", current.getVersion(), latestVersion);
+        }
+        catch (Exception e) {
+            reloadFailures.mark();
+            log.error("Error reloading config snapshot, continuing with the previous one", e);
+        }
+    }
+
+    //Graphs are compiled before the snapshot goes live, so callbacks never compile them on the request path
+    private void swap(ConfigSnapshot loaded) {
+        transitionGraphStore.get().rebuild(loaded.getTransitions());
+        snapshot.set(loaded);
+    }
+
+    //Version is read before the data, so a write racing with the load is picked up by the next poll
+    private ConfigSnapshot load(long version) {
+        log.info("Loading config snapshot for version {}", version);
+        reloads.mark();
+        return ConfigSnapshot.of(version,
+                                 workflowProvider.get().getAllFromDb(),
+                                 actionTemplateStore.get().getAllFromDb(),
+                                 transitionStore.get().getAllFromDb(),
+                                 callbackTemplateProvider.get().getAllFromDb(),
+                                 providerCommands.get().getAllFromDb());
+    }
+}
@@ -0,0 +1,72 @@
+package io.appform.statesman.server.spool;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.appform.statesman.engine.events.SpoolingEventPublisher;
+import io.appform.statesman.model.EventSpoolConfig;
+import io.dropwizard.lifecycle.Managed;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays events spooled by {@link SpoolingEventPublisher} once the publisher is reachable again.
+ * Backs off exponentially while publishing keeps failing.
+ */
+@Slf4j
+@Singleton
+public class EventSpoolDrainer implements Managed {
+    private final SpoolingEventPublisher publisher;
+    private final EventSpoolConfig config;
+    private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+    private long backoffMs;
+
+    @Inject
+    public EventSpoolDrainer(SpoolingEventPublisher publisher, EventSpoolConfig config) {
+        this.publisher = publisher;
+        this.config = config;
+    }
+
+    @Override
+    public void start() {
+        if (config.isEnabled()) {
+            schedule(config.getDrainIntervalMs());
+        }
+    }
+
+    @Override
+    public void stop() throws Exception {
+        executorService.shutdown();
+        executorService.awaitTermination(config.getDrainIntervalMs(), TimeUnit.MILLISECONDS);
+        publisher.close();
+    }
+
+    private void drain() {
+        try {
+            int total = 0;
+            int drained;
+            do {
+                drained = publisher.drain(config.getDrainBatchSize());
+                total += drained;
+            } while (drained == config.getDrainBatchSize() && !executorService.isShutdown());
+            if (total > 0) {
+                log.info("Replayed {} spooled event batches", total);
+            }
+            backoffMs = 0;
+        }
+        catch (Exception e) {
+            backoffMs = Math.min(config.getMaxDrainBackoffMs(),
+                                 Math.max(config.getDrainIntervalMs(), backoffMs * 2));
+            log.warn("Could not replay spooled events, retrying in {} ms: {}", backoffMs, e.getMessage());
+        }
+        schedule(Math.max(config.getDrainIntervalMs(), backoffMs));
+    }
+
+    private void schedule(long delayMs) {
+        if (!executorService.isShutdown()) {
+            executorService.schedule(this::drain, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+}
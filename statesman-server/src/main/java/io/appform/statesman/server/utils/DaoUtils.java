@@ -0,0 +1,21 @@
+package io.appform.statesman.server.utils;
+
+import com.google.common.base.Throwables;
+import org.hibernate.StaleStateException;
+
+import javax.persistence.OptimisticLockException;
+
+public class DaoUtils {
+
+    private DaoUtils() {
+    }
+
+    /**
+     * True if the error was caused by an optimistic lock (<code>@Version</code>) check failing on write.
+     */
+    public static boolean isConcurrentModification(Throwable e) {
+        return Throwables.getCausalChain(e)
+                .stream()
+                .anyMatch(cause -> cause instanceof StaleStateException || cause instanceof OptimisticLockException);
+    }
+}
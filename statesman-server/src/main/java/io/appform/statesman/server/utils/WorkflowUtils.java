@@ -30,6 +30,7 @@ public class WorkflowUtils {
                 .templateId(templateId)
                 .rules(MapperUtils.serialize(workflowTemplate.getRules()))
                 .startState(MapperUtils.serialize(workflowTemplate.getStartState()))
+                .eventPayload(MapperUtils.serialize(workflowTemplate.getEventPayload()))
                 .build();
     }
 
@@ -41,6 +42,7 @@ public class WorkflowUtils {
                 .rules(MapperUtils.deserialize(workflowTemplate.getRules(), new TypeReference<List<String>>() {
                 }))
                 .startState(MapperUtils.deserialize(workflowTemplate.getStartState(), State.class))
+                .eventPayload(MapperUtils.deserialize(workflowTemplate.getEventPayload(), EventPayloadConfig.class))
                 .build();
     }
 
@@ -74,6 +76,7 @@ public class WorkflowUtils {
                 .dataObject(MapperUtils.deserialize(storedWorkflowInstance.getData(), DataObject.class))
                 .created(storedWorkflowInstance.getCreated())
                 .updated(storedWorkflowInstance.getUpdated())
+                .version(storedWorkflowInstance.getVersion())
                 .build();
     }
 
@@ -0,0 +1,30 @@
+package io.appform.statesman.server.warmup;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import ru.vyarus.dropwizard.guice.module.installer.feature.health.NamedHealthCheck;
+
+/**
+ * Unhealthy until {@link WarmupManager} has precompiled all templates, so that traffic is not routed to a cold node.
+ */
+@Singleton
+public class WarmupHealthCheck extends NamedHealthCheck {
+    private final WarmupManager warmupManager;
+
+    @Inject
+    public WarmupHealthCheck(WarmupManager warmupManager) {
+        this.warmupManager = warmupManager;
+    }
+
+    @Override
+    public String getName() {
+        return "warmup";
+    }
+
+    @Override
+    protected Result check() {
+        return warmupManager.isCompleted()
+               ? Result.healthy("Warmup completed with %d failures", warmupManager.getFailures())
+               : Result.unhealthy("Warmup in progress");
+    }
+}
@@ -0,0 +1,121 @@
+package io.appform.statesman.server.warmup;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import io.appform.statesman.engine.action.ActionExecutor;
+import io.appform.statesman.engine.graph.TransitionGraphStore;
+import io.appform.statesman.server.evaluator.WorkflowTemplateSelector;
+import io.appform.statesman.server.ingress.IngressHandler;
+import io.appform.statesman.server.snapshot.ConfigSnapshotManager;
+import io.dropwizard.lifecycle.Managed;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Precompiles every transition rule, workflow selection rule, action template and callback template at startup, so
+ * that the first callbacks after a deploy do not pay for parsing and compilation. Runs in the background;
+ * {@link WarmupHealthCheck} reports unhealthy until it is done.
+ */
+@Slf4j
+@Singleton
+public class WarmupManager implements Managed {
+    private final Provider<ConfigSnapshotManager> configSnapshotManager;
+    private final Provider<TransitionGraphStore> transitionGraphStore;
+    private final Provider<WorkflowTemplateSelector> workflowTemplateSelector;
+    private final Provider<ActionExecutor> actionExecutor;
+    private final Provider<IngressHandler> ingressHandler;
+    private final Timer warmupTime;
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private final AtomicInteger failures = new AtomicInteger();
+    private ExecutorService executorService;
+
+    @Inject
+    public WarmupManager(
+            Provider<ConfigSnapshotManager> configSnapshotManager,
+            Provider<TransitionGraphStore> transitionGraphStore,
+            Provider<WorkflowTemplateSelector> workflowTemplateSelector,
+            Provider<ActionExecutor> actionExecutor,
+            Provider<IngressHandler> ingressHandler,
+            MetricRegistry metricRegistry) {
+        this.configSnapshotManager = configSnapshotManager;
+        this.transitionGraphStore = transitionGraphStore;
+        this.workflowTemplateSelector = workflowTemplateSelector;
+        this.actionExecutor = actionExecutor;
+        this.ingressHandler = ingressHandler;
+        this.warmupTime = metricRegistry.timer(MetricRegistry.name(WarmupManager.class, "duration"));
+    }
+
+    public boolean isCompleted() {
+        return completed.get();
+    }
+
+    public int getFailures() {
+        return failures.get();
+    }
+
+    @Override
+    public void start() {
+        //One thread coordinates while the rest compile
+        executorService = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        CompletableFuture.runAsync(this::warmup, executorService);
+    }
+
+    @Override
+    public void stop() {
+        executorService.shutdownNow();
+    }
+
+    private void warmup() {
+        log.info("Starting warmup");
+        try (final Timer.Context ignored = warmupTime.time()) {
+            val snapshot = configSnapshotManager.get().current();
+            val tasks = new ArrayList<Runnable>();
+            tasks.add(() -> workflowTemplateSelector.get());
+            snapshot.getWorkflowTemplates()
+                    .keySet()
+                    .forEach(templateId -> tasks.add(() -> transitionGraphStore.get().get(templateId)));
+            snapshot.getActionTemplates()
+                    .values()
+                    .forEach(template -> tasks.add(() -> actionExecutor.get().warmup(template)));
+            snapshot.getCallbackTemplates()
+                    .getTemplates()
+                    .forEach(template -> tasks.add(() -> ingressHandler.get().warmup(template)));
+            run(tasks);
+            log.info("Warmup completed for {} items with {} failures", tasks.size(), failures.get());
+        }
+        catch (Exception e) {
+            log.error("Error during warmup, serving with whatever got compiled", e);
+        }
+        finally {
+            completed.set(true);
+            //Nothing runs on the pool after warmup, let its threads go
+            executorService.shutdown();
+        }
+    }
+
+    private void run(List<Runnable> tasks) {
+        CompletableFuture.allOf(tasks.stream()
+                                        .map(task -> CompletableFuture.runAsync(() -> {
+                                            try {
+                                                task.run();
+                                            }
+                                            catch (Exception e) {
+                                                failures.incrementAndGet();
+                                                log.warn("Warmup task failed: {}", e.getMessage());
+                                            }
+                                        }, executorService))
+                                        .toArray(CompletableFuture[]::new))
+                .join();
+    }
+}
@@ -13,6 +13,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import javax.inject.Provider;
+import java.util.Set;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -21,32 +22,28 @@ public class WorkflowEvaluatorTest {
 
     private static final String WFT_ID1 = "wft1";
     private static final String WFT_ID2 = "wft2";
+    private static final String WFT_ID3 = "wft3";
+    private WorkflowTemplate wft1;
+    private WorkflowTemplate wft2;
     private WorkflowTemplateSelector workflowEvaluator;
     private ObjectMapper mapper;
 
     @Before
     public void setup() {
-        val wft1 = new WorkflowTemplate(WFT_ID1,
-                                        WFT_ID1,
-                                        true,
-                                        ImmutableList.of("\"$.lang\" == \"KA\"",
-                                                         "\"$.lang\" == \"KA\" && \"$.covidTest\" == \"true\" "),
-                                        new State("A", false));
-        val wft2 = new WorkflowTemplate(WFT_ID2,
-                                        WFT_ID2,
-                                        true,
-                                        ImmutableList.of("\"$.lang\" == \"MH\"",
-                                                         "\"$.lang\" == \"MH\" && \"$.ageGreaterThanSixty\" == \"true\" "),
-                                        new State("B", false));
-
-        final Provider<WorkflowProviderCommand> workflowProviderCommandProvider = () -> {
-            val provider = mock(WorkflowProviderCommand.class);
-            when(provider.getAll())
-                    .thenReturn(ImmutableSet.of(wft1, wft2));
-            return provider;
-        };
+        wft1 = new WorkflowTemplate(WFT_ID1,
+                                    WFT_ID1,
+                                    true,
+                                    ImmutableList.of("\"$.lang\" == \"KA\"",
+                                                     "\"$.lang\" == \"KA\" && \"$.covidTest\" == \"true\" "),
+                                    new State("A", false));
+        wft2 = new WorkflowTemplate(WFT_ID2,
+                                    WFT_ID2,
+                                    true,
+                                    ImmutableList.of("\"$.lang\" == \"MH\"",
+                                                     "\"$.lang\" == \"MH\" && \"$.ageGreaterThanSixty\" == \"true\" "),
+                                    new State("B", false));
 
-        workflowEvaluator = new WorkflowTemplateSelector(workflowProviderCommandProvider.get());
+        workflowEvaluator = selector(ImmutableSet.of(wft1, wft2));
         mapper = new ObjectMapper();
     }
 
@@ -64,6 +61,54 @@ public class WorkflowEvaluatorTest {
         Assert.assertEquals(WFT_ID2, t2.getId());
     }
 
+    @Test
+    public void testWorkflowEvaluationWithoutIndexedValue() {
+        Assert.assertFalse(workflowEvaluator.determineTemplate(
+                mapper.createObjectNode()
+                        .put("lang", "TN")).isPresent());
+        Assert.assertFalse(workflowEvaluator.determineTemplate(
+                mapper.createObjectNode()
+                        .put("covidTest", "true")).isPresent());
+    }
+
+    @Test
+    public void testUnindexedRuleDeclaredFirstStillWins() {
+        val wft3 = new WorkflowTemplate(WFT_ID3,
+                                        WFT_ID3,
+                                        true,
+                                        ImmutableList.of("\"$.age\" > 60"),
+                                        new State("C", false));
+        val selector = selector(ImmutableSet.of(wft3, wft1, wft2));
+        final WorkflowTemplate senior = selector.determineTemplate(
+                mapper.createObjectNode()
+                        .put("lang", "KA")
+                        .put("age", 70)).orElse(null);
+        Assert.assertNotNull(senior);
+        Assert.assertEquals(WFT_ID3, senior.getId());
+        final WorkflowTemplate unknownLanguage = selector.determineTemplate(
+                mapper.createObjectNode()
+                        .put("lang", "TN")
+                        .put("age", 70)).orElse(null);
+        Assert.assertNotNull(unknownLanguage);
+        Assert.assertEquals(WFT_ID3, unknownLanguage.getId());
+        final WorkflowTemplate young = selector.determineTemplate(
+                mapper.createObjectNode()
+                        .put("lang", "KA")
+                        .put("age", 30)).orElse(null);
+        Assert.assertNotNull(young);
+        Assert.assertEquals(WFT_ID1, young.getId());
+    }
+
+    private static WorkflowTemplateSelector selector(Set<WorkflowTemplate> templates) {
+        final Provider<WorkflowProviderCommand> workflowProviderCommandProvider = () -> {
+            val provider = mock(WorkflowProviderCommand.class);
+            when(provider.getAll())
+                    .thenReturn(templates);
+            return provider;
+        };
+        return new WorkflowTemplateSelector(workflowProviderCommandProvider.get());
+    }
+
 /*    @Test
     @SneakyThrows
     public void t() {
@@ -0,0 +1,40 @@
+package io.appform.statesman.server.provider;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ProviderAliasTableTest {
+
+    @Test
+    public void testPicksFollowWeights() {
+        final ProviderAliasTable table = ProviderAliasTable.of(new String[]{"A", "B", "C"}, new double[]{1, 3, 0});
+        final Map<String, Integer> counts = new HashMap<>();
+        final int picks = 100_000;
+        for (int i = 0; i < picks; i++) {
+            counts.merge(table.pick(), 1, Integer::sum);
+        }
+        Assert.assertFalse(counts.containsKey("C"));
+        Assert.assertEquals(0.25, counts.get("A") / (double) picks, 0.02);
+        Assert.assertEquals(0.75, counts.get("B") / (double) picks, 0.02);
+    }
+
+    @Test
+    public void testZeroWeightsPickUniformly() {
+        final ProviderAliasTable table = ProviderAliasTable.of(new String[]{"A", "B"}, new double[]{0, 0});
+        final Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            counts.merge(table.pick(), 1, Integer::sum);
+        }
+        Assert.assertEquals(2, counts.size());
+    }
+
+    @Test
+    public void testEmpty() {
+        final ProviderAliasTable table = ProviderAliasTable.of(new String[0], new double[0]);
+        Assert.assertEquals(0, table.size());
+        Assert.assertNull(table.pick());
+    }
+}